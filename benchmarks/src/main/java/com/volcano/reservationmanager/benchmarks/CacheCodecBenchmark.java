@@ -0,0 +1,75 @@
+package com.volcano.reservationmanager.benchmarks;
+
+import com.volcano.reservationmanager.caching.ReservationRedisSerializer;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The binary cache layout against the JDK serialization it replaced, for a cached reservation and for a day
+ * bucket. Entry sizes are printed when each trial starts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheCodecBenchmark {
+
+	@Param({"binary", "jdk"})
+	public String codec;
+
+	private RedisSerializer<Object> serializer;
+	private ReservationDTO reservation;
+	private List<ReservationDTO> bucket;
+	private byte[] serializedReservation;
+	private byte[] serializedBucket;
+
+	@Setup
+	public void setUp() {
+		serializer = "binary".equals(codec) ? new ReservationRedisSerializer() : new JdkSerializationRedisSerializer();
+		reservation = Fixtures.reservationDTO(LocalDate.now(), 0);
+		bucket = new ArrayList<>(Fixtures.reservationDTOs(LocalDate.now(), 2));
+		serializedReservation = serializer.serialize(reservation);
+		serializedBucket = serializer.serialize(bucket);
+		System.out.printf("%n%s: %d bytes per reservation, %d bytes per bucket of %d%n",
+				codec, serializedReservation.length, serializedBucket.length, bucket.size());
+	}
+
+	@Benchmark
+	public byte[] serializeReservation() {
+		return serializer.serialize(reservation);
+	}
+
+	@Benchmark
+	public Object deserializeReservation() {
+		return serializer.deserialize(serializedReservation);
+	}
+
+	@Benchmark
+	public byte[] serializeBucket() {
+		return serializer.serialize(bucket);
+	}
+
+	@Benchmark
+	public Object deserializeBucket() {
+		return serializer.deserialize(serializedBucket);
+	}
+}
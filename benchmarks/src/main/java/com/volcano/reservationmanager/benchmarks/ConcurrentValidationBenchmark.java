@@ -0,0 +1,95 @@
+package com.volcano.reservationmanager.benchmarks;
+
+import com.volcano.reservationmanager.ReservationManagerApplication;
+import com.volcano.reservationmanager.repositories.models.Reservation;
+import com.volcano.reservationmanager.repositories.models.ReservationRepository;
+import com.volcano.reservationmanager.services.AvailabilityIndex;
+import com.volcano.reservationmanager.services.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Whether some days are free, asked by many threads at once: the overlap query bookings were validated with before
+ * the availability index, against the index itself. Both look at the same back to back reservations, stored in the
+ * embedded Postgres of the test profile and loaded into the index. Run with -t to try other thread counts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ConcurrentValidationBenchmark {
+
+	//Few enough for the earliest of them to come after 1970, as the index is keyed by epoch day
+	@Param({"1000", "5000"})
+	public int reservations;
+
+	private ConfigurableApplicationContext context;
+	private ReservationRepository repository;
+	private AvailabilityIndex index;
+	private LocalDate first;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		//The scheduled refresh would swap the seeded reservations, all in the past, for the upcoming ones
+		context = new SpringApplicationBuilder(ReservationManagerApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("test")
+				.properties("reservations.availability.refresh-interval=3600000")
+				.run();
+		repository = context.getBean(ReservationRepository.class);
+		index = context.getBean(AvailabilityIndex.class);
+
+		first = LocalDate.now().minusDays(4L * reservations);
+		List<Reservation> seed = Fixtures.reservations(first, reservations).stream()
+				.map(r -> new Reservation(r.getName(), r.getEmail(), r.getStartDate(), r.getEndDate()))
+				.collect(Collectors.toList());
+		index.replaceAll(repository.saveAll(seed).stream());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public boolean query() {
+		LocalDate from = randomDay();
+		return !repository.existsByStartDateBetweenAndEndDateGreaterThanEqual(
+				from.minusDays(ReservationService.MAX_RESERVATION_DAYS), from, from);
+	}
+
+	@Benchmark
+	public boolean index() {
+		LocalDate from = randomDay();
+		return index.isAvailable(from, from, null);
+	}
+
+	//A one day stay, on a free day about a quarter of the time
+	private LocalDate randomDay() {
+		return first.plusDays(ThreadLocalRandom.current().nextInt(4 * reservations));
+	}
+}
@@ -0,0 +1,48 @@
+package com.volcano.reservationmanager.benchmarks;
+
+import com.volcano.reservationmanager.converters.ReservationConverter;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.repositories.models.Reservation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConverterBenchmark {
+
+	private final ReservationConverter converter = new ReservationConverter();
+
+	private Reservation reservation;
+	private ReservationDTO reservationDTO;
+
+	@Setup
+	public void setUp() {
+		reservation = Fixtures.reservation(LocalDate.now(), 0);
+		reservationDTO = Fixtures.reservationDTO(LocalDate.now(), 0);
+	}
+
+	@Benchmark
+	public ReservationDTO toDTO() {
+		return converter.toDTO(reservation);
+	}
+
+	@Benchmark
+	public Reservation toModel() {
+		return converter.toModel(reservationDTO);
+	}
+}
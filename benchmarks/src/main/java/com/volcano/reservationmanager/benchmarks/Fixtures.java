@@ -0,0 +1,75 @@
+package com.volcano.reservationmanager.benchmarks;
+
+import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.repositories.models.Reservation;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+final class Fixtures {
+
+	private Fixtures() {
+	}
+
+	/**
+	 * The i-th of a series of back to back three day reservations, starting at the given day.
+	 */
+	static Reservation reservation(LocalDate first, int i) {
+		LocalDate from = first.plusDays(4L * i);
+		return new Reservation(UUID.randomUUID(), "Guest " + i, "guest" + i + "@email.com", from, from.plusDays(2));
+	}
+
+	static ReservationDTO reservationDTO(LocalDate first, int i) {
+		Reservation reservation = reservation(first, i);
+		return new ReservationDTO(reservation.getId(), reservation.getName(), reservation.getEmail(),
+				reservation.getStartDate(), reservation.getEndDate());
+	}
+
+	static List<Reservation> reservations(LocalDate first, int count) {
+		List<Reservation> reservations = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			reservations.add(reservation(first, i));
+		}
+		return reservations;
+	}
+
+	static List<ReservationDTO> reservationDTOs(LocalDate first, int count) {
+		List<ReservationDTO> reservations = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			reservations.add(reservationDTO(first, i));
+		}
+		return reservations;
+	}
+
+	/**
+	 * A repository that finds nothing, for benchmarking the service without a database.
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> T emptyRepository(Class<T> type) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+			Class<?> returned = method.getReturnType();
+			if (Stream.class.equals(returned)) {
+				return Stream.empty();
+			}
+			if (List.class.isAssignableFrom(returned)) {
+				return Collections.emptyList();
+			}
+			if (Optional.class.equals(returned)) {
+				return Optional.empty();
+			}
+			if (boolean.class.equals(returned)) {
+				return false;
+			}
+			if (method.getName().equals("save")) {
+				return args[0];
+			}
+			return null;
+		});
+	}
+}
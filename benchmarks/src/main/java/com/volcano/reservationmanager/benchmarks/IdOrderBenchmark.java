@@ -0,0 +1,104 @@
+package com.volcano.reservationmanager.benchmarks;
+
+import com.volcano.reservationmanager.ReservationManagerApplication;
+import com.volcano.reservationmanager.repositories.models.TimeOrderedUuidGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Inserts into a table shaped like reservation, already holding millions of rows, with random against time-ordered
+ * primary keys. Random keys land on any page of the primary key index, so the bigger the index the more of those
+ * pages are out of the cache and split half full. Prints the size of the index at the end of each trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdOrderBenchmark {
+
+	private static final int BATCH_SIZE = 1000;
+	private static final String INSERT = "INSERT INTO %s (id, name, email, start_date, end_date) VALUES (?, ?, ?, ?, ?)";
+
+	@Param({"random", "time-ordered"})
+	public String ids;
+
+	@Param({"2000000"})
+	public int rows;
+
+	private ConfigurableApplicationContext context;
+	private JdbcTemplate jdbcTemplate;
+	private Supplier<UUID> idGenerator;
+	private String table;
+	private Date day;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(ReservationManagerApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("test")
+				.run();
+		jdbcTemplate = context.getBean(JdbcTemplate.class);
+		idGenerator = "random".equals(ids) ? UUID::randomUUID : TimeOrderedUuidGenerator::next;
+		table = "id_order_" + ids.replace('-', '_');
+		day = Date.valueOf(LocalDate.now());
+
+		jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+		jdbcTemplate.execute("CREATE TABLE " + table + " (id uuid PRIMARY KEY, name varchar(255), "
+				+ "email varchar(255), start_date date, end_date date)");
+		for (int inserted = 0; inserted < rows; inserted += BATCH_SIZE) {
+			insertBatch();
+		}
+		jdbcTemplate.execute("VACUUM ANALYZE " + table);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		Long indexBytes = jdbcTemplate.queryForObject("SELECT pg_relation_size(?::regclass)", Long.class,
+				table + "_pkey");
+		Long rowCount = jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+		System.out.printf("%n%s ids: primary key index of %d MB for %d rows%n", ids,
+				indexBytes / (1024 * 1024), rowCount);
+		jdbcTemplate.execute("DROP TABLE " + table);
+		context.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public int[] insert() {
+		return insertBatch();
+	}
+
+	private int[] insertBatch() {
+		List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			batch.add(new Object[]{idGenerator.get(), "Guest", "guest@email.com", day, day});
+		}
+		return jdbcTemplate.batchUpdate(String.format(INSERT, table), batch);
+	}
+}
@@ -0,0 +1,65 @@
+package com.volcano.reservationmanager.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listing responses as the service writes and clients read them, with the mapper configured the way Spring Boot
+ * configures it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JacksonBenchmark {
+
+	@Param({"1", "100", "500"})
+	public int reservations;
+
+	private ObjectWriter writer;
+	private ObjectReader reader;
+	private List<ReservationDTO> page;
+	private byte[] json;
+
+	@Setup
+	public void setUp() throws IOException {
+		ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		TypeReference<List<ReservationDTO>> type = new TypeReference<List<ReservationDTO>>() {};
+		writer = objectMapper.writerFor(type);
+		reader = objectMapper.readerFor(type);
+		page = Fixtures.reservationDTOs(LocalDate.now(), reservations);
+		json = writer.writeValueAsBytes(page);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		return writer.writeValueAsBytes(page);
+	}
+
+	@Benchmark
+	public List<ReservationDTO> deserialize() throws IOException {
+		return reader.readValue(json);
+	}
+}
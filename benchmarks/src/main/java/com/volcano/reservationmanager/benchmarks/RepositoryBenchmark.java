@@ -0,0 +1,99 @@
+package com.volcano.reservationmanager.benchmarks;
+
+import com.volcano.reservationmanager.ReservationManagerApplication;
+import com.volcano.reservationmanager.models.ReservationPage;
+import com.volcano.reservationmanager.repositories.models.Reservation;
+import com.volcano.reservationmanager.repositories.models.ReservationRepository;
+import com.volcano.reservationmanager.services.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Database reads behind the listings and lookups, on the embedded Postgres of the test profile, seeded with the
+ * given number of back to back reservations. Caching is off in that profile, so every call reaches the database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+	private static final int LOOKUP_SIZE = 100;
+
+	@Param({"1000", "10000"})
+	public int reservations;
+
+	private ConfigurableApplicationContext context;
+	private ReservationRepository repository;
+	private ReservationService service;
+	private LocalDate first;
+	private List<UUID> ids;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(ReservationManagerApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("test")
+				.run();
+		repository = context.getBean(ReservationRepository.class);
+		service = context.getBean(ReservationService.class);
+
+		first = LocalDate.now().minusDays(4L * reservations);
+		List<Reservation> seed = Fixtures.reservations(first, reservations).stream()
+				.map(r -> new Reservation(r.getName(), r.getEmail(), r.getStartDate(), r.getEndDate()))
+				.collect(Collectors.toList());
+		ids = repository.saveAll(seed).stream()
+				.map(Reservation::getId)
+				.collect(Collectors.toList());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<Reservation> findStartingInAMonth() {
+		LocalDate from = randomDay();
+		return repository.findByStartDateBetweenOrderByStartDateAscIdAsc(from, from.plusDays(30));
+	}
+
+	@Benchmark
+	public ReservationPage findPage() {
+		LocalDate from = randomDay();
+		return service.findReservations(from, from.plusDays(90), null, 100);
+	}
+
+	@Benchmark
+	public List<Reservation> findAllById() {
+		int start = ThreadLocalRandom.current().nextInt(ids.size() - LOOKUP_SIZE);
+		return repository.findAllById(ids.subList(start, start + LOOKUP_SIZE));
+	}
+
+	private LocalDate randomDay() {
+		return first.plusDays(ThreadLocalRandom.current().nextInt(4 * reservations));
+	}
+}
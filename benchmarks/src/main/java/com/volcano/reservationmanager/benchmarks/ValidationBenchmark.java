@@ -0,0 +1,95 @@
+package com.volcano.reservationmanager.benchmarks;
+
+import com.volcano.reservationmanager.caching.ReservationDayCache;
+import com.volcano.reservationmanager.caching.ReservationIdCache;
+import com.volcano.reservationmanager.converters.ReservationConverter;
+import com.volcano.reservationmanager.exceptions.ReservationConflictException;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.repositories.models.ReservationRepository;
+import com.volcano.reservationmanager.services.AvailabilityIndex;
+import com.volcano.reservationmanager.services.BookingLockManager;
+import com.volcano.reservationmanager.services.InMemoryHoldStore;
+import com.volcano.reservationmanager.services.ReservationOutbox;
+import com.volcano.reservationmanager.services.ReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The checks a booking goes through before anything is locked, against an availability index holding the given
+ * number of reservations and a repository that finds nothing. The other collaborators are the real ones, without a
+ * database or cache manager behind them: these checks never reach either. Days the index has as taken are confirmed
+ * with the repository, which finds them free, so validateTaken measures the index hit plus that lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+	//Few enough for the earliest of them to come after 1970, as the index is keyed by epoch day
+	@Param({"100", "5000"})
+	public int reservations;
+
+	private ReservationService service;
+	private ReservationDTO free;
+	private ReservationDTO taken;
+
+	@Setup
+	public void setUp() {
+		//Bookings every fourth day, leaving the day before each of them free
+		LocalDate first = LocalDate.now().minusDays(4L * reservations - 8);
+		AvailabilityIndex index = new AvailabilityIndex();
+		index.replaceAll(Fixtures.reservations(first, reservations).stream());
+
+		JdbcTemplate noDatabase = new JdbcTemplate();
+		ObjectProvider<CacheManager> noCache = new StaticListableBeanFactory().getBeanProvider(CacheManager.class);
+		service = new ReservationService(
+				Fixtures.emptyRepository(ReservationRepository.class),
+				new ReservationConverter(),
+				index,
+				new BookingLockManager(noDatabase, new SimpleMeterRegistry()),
+				new ReservationDayCache(noCache),
+				new ReservationIdCache(noCache),
+				new InMemoryHoldStore(),
+				new ReservationOutbox(noDatabase, 0));
+
+		LocalDate lastBooked = first.plusDays(4L * (reservations - 1));
+		free = new ReservationDTO("Free", "free@email.com", lastBooked.plusDays(7), lastBooked.plusDays(9));
+		taken = new ReservationDTO("Taken", "taken@email.com", lastBooked, lastBooked.plusDays(2));
+	}
+
+	@Benchmark
+	public ReservationDTO validateFree() {
+		service.validateBookable(free);
+		return free;
+	}
+
+	@Benchmark
+	public boolean validateTaken() {
+		try {
+			service.validateBookable(taken);
+			return true;
+		} catch (ReservationConflictException e) {
+			return false;
+		}
+	}
+}
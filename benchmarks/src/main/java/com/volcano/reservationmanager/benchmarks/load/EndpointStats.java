@@ -0,0 +1,44 @@
+package com.volcano.reservationmanager.benchmarks.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and response statuses of one endpoint.
+ */
+class EndpointStats {
+
+	private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+	private final ConcurrentMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+	void record(int status, long latencyNanos) {
+		latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), latencies.getHighestTrackableValue()));
+		statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+	}
+
+	long count(int status) {
+		LongAdder count = statuses.get(status);
+		return count == null ? 0 : count.sum();
+	}
+
+	Map<String, Object> report(double seconds) {
+		Map<String, Object> report = new TreeMap<>();
+		report.put("requests", latencies.getTotalCount());
+		report.put("throughputPerSecond", latencies.getTotalCount() / seconds);
+		report.put("p50Millis", latencies.getValueAtPercentile(50) / 1000.0);
+		report.put("p99Millis", latencies.getValueAtPercentile(99) / 1000.0);
+		report.put("p999Millis", latencies.getValueAtPercentile(99.9) / 1000.0);
+		report.put("maxMillis", latencies.getMaxValue() / 1000.0);
+		Map<String, Long> byStatus = new TreeMap<>();
+		statuses.forEach((status, count) -> byStatus.put(String.valueOf(status), count.sum()));
+		report.put("statuses", byStatus);
+		return report;
+	}
+}
@@ -0,0 +1,254 @@
+package com.volcano.reservationmanager.benchmarks.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.volcano.reservationmanager.ReservationManagerApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Launch day in a box: the service on the embedded Postgres and a local Redis, many clients fighting over the same
+ * few days, and readers listing and fetching reservations in the background. Prints a JSON report, and exits with
+ * 1 if any two reservations overlap at the end.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.volcano.reservationmanager.benchmarks.load.LoadTest \
+ *     --clients=64 --readers=16 --hot-days=5 --duration-seconds=60 --output=load.json
+ * </pre>
+ */
+public class LoadTest {
+
+	private static final String OVERLAPS = "SELECT count(*) FROM reservation a JOIN reservation b ON a.id < b.id " +
+			"AND daterange(a.start_date, a.end_date, '[]') && daterange(b.start_date, b.end_date, '[]') " +
+			"WHERE a.status = 'ACTIVE' AND b.status = 'ACTIVE'";
+
+	private final int clients;
+	private final int readers;
+	private final int hotDays;
+	private final int durationSeconds;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+	private final List<String> bookedIds = new CopyOnWriteArrayList<>();
+
+	private String baseUrl;
+	private volatile boolean running = true;
+
+	private LoadTest(SimpleCommandLinePropertySource options) {
+		this.clients = intOption(options, "clients", 64);
+		this.readers = intOption(options, "readers", 16);
+		this.hotDays = intOption(options, "hot-days", 5);
+		this.durationSeconds = intOption(options, "duration-seconds", 60);
+		endpoints.put("POST /reservations", new EndpointStats());
+		endpoints.put("GET /reservations", new EndpointStats());
+		endpoints.put("GET /reservations/{id}", new EndpointStats());
+	}
+
+	public static void main(String[] args) throws Exception {
+		SimpleCommandLinePropertySource options = new SimpleCommandLinePropertySource(args);
+		int redisPort = freePort();
+		RedisServer redis = RedisServer.builder().port(redisPort).setting("maxmemory 128M").build();
+		redis.start();
+
+		ConfigurableApplicationContext context = null;
+		boolean invariantHolds = false;
+		try {
+			context = new SpringApplicationBuilder(ReservationManagerApplication.class)
+					.profiles("loadtest")
+					.properties("server.port=0", "spring.redis.port=" + redisPort)
+					.run();
+
+			LoadTest loadTest = new LoadTest(options);
+			loadTest.baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+			Map<String, Object> report = loadTest.run(context);
+			invariantHolds = (Boolean) report.get("noOverlappingReservations");
+
+			String json = loadTest.objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report);
+			String output = options.getProperty("output");
+			if (output != null) {
+				loadTest.objectMapper.writeValue(new File(output), report);
+			}
+			System.out.println(json);
+		} finally {
+			if (context != null) {
+				context.close();
+			}
+			redis.stop();
+		}
+		System.exit(invariantHolds ? 0 : 1);
+	}
+
+	private Map<String, Object> run(ConfigurableApplicationContext context) throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(clients + readers);
+		for (int i = 0; i < clients; i++) {
+			int client = i;
+			pool.execute(() -> book(client));
+		}
+		for (int i = 0; i < readers; i++) {
+			pool.execute(this::read);
+		}
+
+		long start = System.nanoTime();
+		TimeUnit.SECONDS.sleep(durationSeconds);
+		running = false;
+		pool.shutdown();
+		pool.awaitTermination(1, TimeUnit.MINUTES);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		Map<String, Object> config = new LinkedHashMap<>();
+		config.put("clients", clients);
+		config.put("readers", readers);
+		config.put("hotDays", hotDays);
+		config.put("durationSeconds", durationSeconds);
+		report.put("config", config);
+
+		Map<String, Object> byEndpoint = new LinkedHashMap<>();
+		endpoints.forEach((name, stats) -> byEndpoint.put(name, stats.report(seconds)));
+		report.put("endpoints", byEndpoint);
+
+		//Conflicts are the service saying no; aborts are it failing to say anything
+		EndpointStats bookings = endpoints.get("POST /reservations");
+		long conflicts = bookings.count(409);
+		long aborts = bookings.count(503) + bookings.count(500);
+		report.put("bookings", bookings.count(200));
+		report.put("conflicts", conflicts);
+		report.put("aborts", aborts);
+		report.put("conflictToAbortRatio", aborts == 0 ? null : (double) conflicts / aborts);
+
+		MeterRegistry registry = context.getBean(MeterRegistry.class);
+		Map<String, Object> serverSide = new LinkedHashMap<>();
+		for (String counter : new String[]{"reservations.write.retries", "reservations.write.retries.exhausted",
+				"reservations.write.conflicts", "reservations.concurrency.rejections"}) {
+			serverSide.put(counter, Search.in(registry).name(counter).counters().stream()
+					.mapToDouble(c -> c.count()).sum());
+		}
+		report.put("serverCounters", serverSide);
+
+		Long overlaps = context.getBean(JdbcTemplate.class).queryForObject(OVERLAPS, Long.class);
+		report.put("overlappingReservations", overlaps);
+		report.put("noOverlappingReservations", overlaps != null && overlaps == 0);
+		return report;
+	}
+
+	// Every client books with its own email, so the only thing they fight over is the days
+	private void book(int client) {
+		LocalDate firstHotDay = LocalDate.now().plusDays(1);
+		for (long attempt = 0; running; attempt++) {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			LocalDate from = firstHotDay.plusDays(random.nextInt(hotDays));
+			LocalDate to = from.plusDays(1 + random.nextInt(3));
+			String body = String.format("{\"name\":\"Client %d\",\"email\":\"client%d-%d@email.com\",\"from\":\"%s\",\"to\":\"%s\"}",
+					client, client, attempt, from, to);
+			Response response = call("POST /reservations", "POST", "/reservations", body);
+			if (response.status == 200) {
+				try {
+					JsonNode created = objectMapper.readTree(response.body);
+					bookedIds.add(created.get("id").asText());
+				} catch (IOException e) {
+					//Counted by the status alone
+				}
+			}
+		}
+	}
+
+	private void read() {
+		LocalDate today = LocalDate.now();
+		while (running) {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			if (bookedIds.isEmpty() || random.nextBoolean()) {
+				LocalDate from = today.plusDays(random.nextInt(30));
+				call("GET /reservations", "GET",
+						String.format("/reservations?from=%s&to=%s", from, from.plusDays(7)), null);
+			} else {
+				String id = bookedIds.get(random.nextInt(bookedIds.size()));
+				call("GET /reservations/{id}", "GET", "/reservations/" + id, null);
+			}
+		}
+	}
+
+	private Response call(String endpoint, String method, String path, String body) {
+		long start = System.nanoTime();
+		int status;
+		byte[] responseBody = new byte[0];
+		try {
+			HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+			connection.setRequestMethod(method);
+			connection.setConnectTimeout(5000);
+			connection.setReadTimeout(30000);
+			if (body != null) {
+				connection.setDoOutput(true);
+				connection.setRequestProperty("Content-Type", "application/json");
+				try (OutputStream out = connection.getOutputStream()) {
+					out.write(body.getBytes(StandardCharsets.UTF_8));
+				}
+			}
+			status = connection.getResponseCode();
+			try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+				if (in != null) {
+					responseBody = readAll(in);
+				}
+			}
+		} catch (IOException e) {
+			//Connection level failures are reported as status 0
+			status = 0;
+		}
+		endpoints.get(endpoint).record(status, System.nanoTime() - start);
+		return new Response(status, responseBody);
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	private static int intOption(SimpleCommandLinePropertySource options, String name, int defaultValue) {
+		String value = options.getProperty(name);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static final class Response {
+		private final int status;
+		private final byte[] body;
+
+		private Response(int status, byte[] body) {
+			this.status = status;
+			this.body = body;
+		}
+	}
+}
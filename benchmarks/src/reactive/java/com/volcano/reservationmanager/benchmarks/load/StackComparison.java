@@ -0,0 +1,239 @@
+package com.volcano.reservationmanager.benchmarks.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.volcano.reservationmanager.ReservationManagerApplication;
+import com.volcano.reservationmanager.controllers.ReservationController;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import redis.embedded.RedisServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.net.ServerSocket;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The servlet and the reactive stack side by side, under the same crowd of slow clients: pollers listing a week of
+ * reservations over and over with a pause in between, and readers taking the NDJSON stream of every reservation one
+ * line at a time. Each stack runs in turn on the embedded Postgres and a local Redis, with the read model off so
+ * every listing reaches the database. Prints a JSON report with the throughput, latencies and threads of each.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.volcano.reservationmanager.benchmarks.load.StackComparison \
+ *     --pollers=2000 --think-ms=100 --slow-readers=200 --read-delay-ms=20 --seed=2000 --duration-seconds=60 \
+ *     --output=stacks.json
+ * </pre>
+ */
+public class StackComparison {
+
+	private static final String INSERT = "INSERT INTO reservation (id, name, email, start_date, end_date) VALUES (?, ?, ?, ?, ?)";
+
+	private final int pollers;
+	private final long thinkMillis;
+	private final int slowReaders;
+	private final long readDelayMillis;
+	private final int seed;
+	private final int durationSeconds;
+
+	private StackComparison(SimpleCommandLinePropertySource options) {
+		this.pollers = intOption(options, "pollers", 2000);
+		this.thinkMillis = intOption(options, "think-ms", 100);
+		this.slowReaders = intOption(options, "slow-readers", 200);
+		this.readDelayMillis = intOption(options, "read-delay-ms", 20);
+		this.seed = intOption(options, "seed", 2000);
+		this.durationSeconds = intOption(options, "duration-seconds", 60);
+	}
+
+	public static void main(String[] args) throws Exception {
+		SimpleCommandLinePropertySource options = new SimpleCommandLinePropertySource(args);
+		StackComparison comparison = new StackComparison(options);
+		int redisPort = freePort();
+		RedisServer redis = RedisServer.builder().port(redisPort).setting("maxmemory 128M").build();
+		redis.start();
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		try {
+			Map<String, Object> config = new LinkedHashMap<>();
+			config.put("pollers", comparison.pollers);
+			config.put("thinkMillis", comparison.thinkMillis);
+			config.put("slowReaders", comparison.slowReaders);
+			config.put("readDelayMillis", comparison.readDelayMillis);
+			config.put("seed", comparison.seed);
+			config.put("durationSeconds", comparison.durationSeconds);
+			report.put("config", config);
+
+			report.put("servlet", comparison.run(redisPort, "loadtest"));
+			report.put("reactive", comparison.run(redisPort, "loadtest", "reactive"));
+		} finally {
+			redis.stop();
+		}
+
+		ObjectMapper objectMapper = new ObjectMapper();
+		String output = options.getProperty("output");
+		if (output != null) {
+			objectMapper.writeValue(new File(output), report);
+		}
+		System.out.println(objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report));
+		System.exit(0);
+	}
+
+	private Map<String, Object> run(int redisPort, String... profiles) {
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(ReservationManagerApplication.class)
+				.profiles(profiles)
+				.properties("server.port=0",
+						"spring.redis.port=" + redisPort,
+						"reservations.read-model.enabled=false",
+						"reservations.limits.enabled=false")
+				.run();
+
+		ThreadSampler sampler = new ThreadSampler();
+		try {
+			LocalDate firstDay = seed(context.getBean(JdbcTemplate.class));
+			String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+			WebClient client = WebClient.builder()
+					.baseUrl(baseUrl)
+					.clientConnector(new ReactorClientHttpConnector(
+							HttpClient.create(ConnectionProvider.elastic("stack-comparison"))))
+					.build();
+
+			EndpointStats listings = new EndpointStats();
+			EndpointStats streams = new EndpointStats();
+			LongAdder lines = new LongAdder();
+
+			sampler.start();
+			long start = System.nanoTime();
+			Flux.merge(
+					Flux.range(0, pollers).flatMap(i -> poll(client, firstDay, listings), pollers),
+					Flux.range(0, slowReaders).flatMap(i -> readSlowly(client, firstDay, streams, lines), slowReaders))
+					.take(Duration.ofSeconds(durationSeconds))
+					.blockLast(Duration.ofSeconds(durationSeconds + 30L));
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			Map<String, Object> result = new LinkedHashMap<>();
+			result.put("GET /reservations", listings.report(seconds));
+			result.put("GET /reservations (ndjson, complete streams)", streams.report(seconds));
+			result.put("ndjsonLinesPerSecond", lines.sum() / seconds);
+			result.put("peakThreads", sampler.peak);
+			result.put("peakThreadsByPool", sampler.peakByPool);
+			return result;
+		} finally {
+			sampler.stop();
+			context.close();
+		}
+	}
+
+	// One reservation every third day, all in the past so they never get in the way of anything else
+	private LocalDate seed(JdbcTemplate jdbcTemplate) {
+		LocalDate firstDay = LocalDate.now().minusDays(3L * seed + 3);
+		List<Object[]> rows = new ArrayList<>();
+		for (int i = 0; i < seed; i++) {
+			LocalDate from = firstDay.plusDays(3L * i);
+			rows.add(new Object[]{UUID.randomUUID(), "Guest " + i, "guest" + i + "@email.com",
+					Date.valueOf(from), Date.valueOf(from.plusDays(1))});
+		}
+		jdbcTemplate.batchUpdate(INSERT, rows);
+		return firstDay;
+	}
+
+	private Flux<Integer> poll(WebClient client, LocalDate firstDay, EndpointStats stats) {
+		return Mono.defer(() -> {
+			LocalDate from = firstDay.plusDays(ThreadLocalRandom.current().nextInt(3 * seed));
+			long start = System.nanoTime();
+			return client.get()
+					.uri("/reservations?from={from}&to={to}", from, from.plusDays(7))
+					.exchange()
+					.flatMap(response -> response.bodyToMono(String.class)
+							.then(Mono.just(response.statusCode().value())))
+					.onErrorReturn(0)
+					.doOnNext(status -> stats.record(status, System.nanoTime() - start));
+		})
+				.delayElement(Duration.ofMillis(thinkMillis))
+				.repeat();
+	}
+
+	// Takes one line at a time, so the server can only write as fast as the reader reads
+	private Flux<Long> readSlowly(WebClient client, LocalDate firstDay, EndpointStats stats, LongAdder lines) {
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			return client.get()
+					.uri("/reservations?from={from}&to={to}", firstDay, LocalDate.now())
+					.accept(MediaType.valueOf(ReservationController.APPLICATION_NDJSON_VALUE))
+					.retrieve()
+					.bodyToFlux(String.class)
+					.limitRate(1)
+					.delayElements(Duration.ofMillis(readDelayMillis))
+					.doOnNext(line -> lines.increment())
+					.count()
+					.doOnSuccess(count -> stats.record(200, System.nanoTime() - start))
+					.onErrorResume(e -> {
+						stats.record(0, System.nanoTime() - start);
+						return Mono.empty();
+					});
+		}).repeat();
+	}
+
+	private static int intOption(SimpleCommandLinePropertySource options, String name, int defaultValue) {
+		String value = options.getProperty(name);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	/**
+	 * Live threads of the process every 100ms, in total and by pool. A pool is the thread name without its trailing
+	 * number, such as http-nio-8080-exec or reactor-http-nio.
+	 */
+	private static final class ThreadSampler {
+
+		private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		private final Map<String, Integer> peakByPool = new TreeMap<>();
+		private volatile int peak;
+
+		private void start() {
+			scheduler.scheduleAtFixedRate(this::sample, 0, 100, TimeUnit.MILLISECONDS);
+		}
+
+		private void stop() {
+			scheduler.shutdownNow();
+		}
+
+		private synchronized void sample() {
+			ThreadInfo[] threads = ManagementFactory.getThreadMXBean().dumpAllThreads(false, false);
+			peak = Math.max(peak, threads.length);
+			Map<String, Integer> byPool = new TreeMap<>();
+			for (ThreadInfo thread : threads) {
+				byPool.merge(thread.getThreadName().replaceAll("-?\\d+$", ""), 1, Integer::sum);
+			}
+			byPool.forEach((pool, count) -> peakByPool.merge(pool, count, Math::max));
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package com.volcano.reservationmanager.caching;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A cache that can read and fill many keys in a single round trip.
+ */
+public interface BulkCache {
+
+	/**
+	 * @return the cached values by key, leaving out the keys that are not cached
+	 */
+	Map<Object, Object> getAll(Collection<?> keys);
+
+	/**
+	 * Caches the entries whose keys are not cached yet, so a backfill never overwrites a fresher value.
+	 */
+	void putAllIfAbsent(Map<?, ?> entries);
+}
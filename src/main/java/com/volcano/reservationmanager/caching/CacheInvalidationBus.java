@@ -0,0 +1,60 @@
+package com.volcano.reservationmanager.caching;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redis pub/sub channel that keeps the local tier of every instance coherent.
+ * Messages are "instance|cache|key", or "instance|cache" to clear the whole cache.
+ */
+public class CacheInvalidationBus implements MessageListener {
+
+	public static final String CHANNEL = "reservation-manager:cache-invalidation";
+
+	private static final String SEPARATOR = "|";
+
+	private final String instanceId = UUID.randomUUID().toString();
+	private final StringRedisTemplate redisTemplate;
+	private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+	public CacheInvalidationBus(StringRedisTemplate redisTemplate) {
+		this.redisTemplate = redisTemplate;
+	}
+
+	void register(TwoLevelCache cache) {
+		caches.put(cache.getName(), cache);
+	}
+
+	void publishEvict(String cacheName, String key) {
+		redisTemplate.convertAndSend(CHANNEL, instanceId + SEPARATOR + cacheName + SEPARATOR + key);
+	}
+
+	void publishClear(String cacheName) {
+		redisTemplate.convertAndSend(CHANNEL, instanceId + SEPARATOR + cacheName);
+	}
+
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+		//Our own writes already updated the local tier
+		if (parts.length < 2 || instanceId.equals(parts[0])) {
+			return;
+		}
+
+		TwoLevelCache cache = caches.get(parts[1]);
+		if (cache == null) {
+			return;
+		}
+		if (parts.length == 3) {
+			cache.evictLocal(parts[2]);
+		} else {
+			cache.clearLocal();
+		}
+	}
+}
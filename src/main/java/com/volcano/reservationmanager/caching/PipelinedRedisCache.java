@@ -0,0 +1,89 @@
+package com.volcano.reservationmanager.caching;
+
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis cache that reads many keys with one MGET and backfills them with one pipeline of SET NX, using the same
+ * keys, serializers and TTL as the single key operations.
+ */
+public class PipelinedRedisCache extends RedisCache implements BulkCache {
+
+	private final RedisConnectionFactory connectionFactory;
+
+	public PipelinedRedisCache(String name,
+							   RedisCacheWriter cacheWriter,
+							   RedisCacheConfiguration cacheConfig,
+							   RedisConnectionFactory connectionFactory) {
+		super(name, cacheWriter, cacheConfig);
+		this.connectionFactory = connectionFactory;
+	}
+
+	@Override
+	public Map<Object, Object> getAll(Collection<?> keys) {
+		Map<Object, Object> found = new HashMap<>();
+		if (keys.isEmpty()) {
+			return found;
+		}
+
+		List<Object> ordered = new ArrayList<>(keys);
+		byte[][] rawKeys = new byte[ordered.size()][];
+		for (int i = 0; i < rawKeys.length; i++) {
+			rawKeys[i] = serializeCacheKey(createCacheKey(ordered.get(i)));
+		}
+
+		List<byte[]> rawValues;
+		RedisConnection connection = connectionFactory.getConnection();
+		try {
+			rawValues = connection.mGet(rawKeys);
+		} finally {
+			connection.close();
+		}
+
+		for (int i = 0; rawValues != null && i < rawValues.size(); i++) {
+			byte[] rawValue = rawValues.get(i);
+			Object value = rawValue == null ? null : deserializeCacheValue(rawValue);
+			if (value != null) {
+				found.put(ordered.get(i), fromStoreValue(value));
+			}
+		}
+		return found;
+	}
+
+	@Override
+	public void putAllIfAbsent(Map<?, ?> entries) {
+		if (entries.isEmpty()) {
+			return;
+		}
+
+		Duration ttl = getCacheConfiguration().getTtl();
+		Expiration expiration = ttl == null || ttl.isZero() || ttl.isNegative()
+				? Expiration.persistent()
+				: Expiration.milliseconds(ttl.toMillis());
+
+		RedisConnection connection = connectionFactory.getConnection();
+		try {
+			connection.openPipeline();
+			entries.forEach((key, value) -> connection.set(
+					serializeCacheKey(createCacheKey(key)),
+					serializeCacheValue(toStoreValue(value)),
+					expiration,
+					SetOption.ifAbsent()));
+			connection.closePipeline();
+		} finally {
+			connection.close();
+		}
+	}
+}
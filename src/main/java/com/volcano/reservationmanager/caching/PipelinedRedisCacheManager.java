@@ -0,0 +1,39 @@
+package com.volcano.reservationmanager.caching;
+
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.util.Map;
+
+public class PipelinedRedisCacheManager extends RedisCacheManager {
+
+	private final RedisCacheWriter cacheWriter;
+	private final RedisCacheConfiguration defaultCacheConfiguration;
+	private final RedisConnectionFactory connectionFactory;
+
+	public PipelinedRedisCacheManager(RedisConnectionFactory connectionFactory,
+									  RedisCacheConfiguration defaultCacheConfiguration,
+									  Map<String, RedisCacheConfiguration> initialCacheConfigurations) {
+		this(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory),
+				defaultCacheConfiguration, initialCacheConfigurations, connectionFactory);
+	}
+
+	private PipelinedRedisCacheManager(RedisCacheWriter cacheWriter,
+									   RedisCacheConfiguration defaultCacheConfiguration,
+									   Map<String, RedisCacheConfiguration> initialCacheConfigurations,
+									   RedisConnectionFactory connectionFactory) {
+		super(cacheWriter, defaultCacheConfiguration, initialCacheConfigurations);
+		this.cacheWriter = cacheWriter;
+		this.defaultCacheConfiguration = defaultCacheConfiguration;
+		this.connectionFactory = connectionFactory;
+	}
+
+	@Override
+	protected RedisCache createRedisCache(String name, RedisCacheConfiguration cacheConfig) {
+		return new PipelinedRedisCache(name, cacheWriter,
+				cacheConfig != null ? cacheConfig : defaultCacheConfiguration, connectionFactory);
+	}
+}
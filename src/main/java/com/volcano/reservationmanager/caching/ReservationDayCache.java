@@ -0,0 +1,80 @@
+package com.volcano.reservationmanager.caching;
+
+import com.volcano.reservationmanager.models.ReservationDTO;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reservations grouped by the epoch day they start on, one cache entry per day. Days without reservations are cached
+ * as empty lists. Does nothing when caching is not enabled.
+ */
+@Component
+public class ReservationDayCache {
+
+	public static final String CACHE_NAME = "reservation-days";
+
+	private final ObjectProvider<CacheManager> cacheManager;
+
+	public ReservationDayCache(ObjectProvider<CacheManager> cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	/**
+	 * Looks every day up in one round trip when the cache supports it.
+	 * @return the reservations starting on each cached day, leaving out the days that are not cached
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<LocalDate, List<ReservationDTO>> getAll(Collection<LocalDate> days) {
+		Map<LocalDate, List<ReservationDTO>> found = new HashMap<>();
+		Cache cache = cache();
+		if (cache instanceof BulkCache) {
+			Map<Long, LocalDate> byEpochDay = new LinkedHashMap<>();
+			days.forEach(day -> byEpochDay.put(day.toEpochDay(), day));
+			((BulkCache) cache).getAll(byEpochDay.keySet()).forEach((epochDay, reservations) ->
+					found.put(byEpochDay.get(epochDay), (List<ReservationDTO>) reservations));
+		} else if (cache != null) {
+			days.forEach(day -> {
+				List<ReservationDTO> reservations = cache.get(day.toEpochDay(), List.class);
+				if (reservations != null) {
+					found.put(day, reservations);
+				}
+			});
+		}
+		return found;
+	}
+
+	public void putAllIfAbsent(Map<LocalDate, List<ReservationDTO>> days) {
+		Cache cache = cache();
+		if (cache == null) {
+			return;
+		}
+		Map<Long, List<ReservationDTO>> byEpochDay = new LinkedHashMap<>();
+		days.forEach((day, reservations) -> byEpochDay.put(day.toEpochDay(), reservations));
+		if (cache instanceof BulkCache) {
+			((BulkCache) cache).putAllIfAbsent(byEpochDay);
+		} else {
+			byEpochDay.forEach(cache::putIfAbsent);
+		}
+	}
+
+	public void evict(LocalDate day) {
+		Cache cache = cache();
+		if (cache != null) {
+			cache.evict(day.toEpochDay());
+		}
+	}
+
+	private Cache cache() {
+		CacheManager manager = cacheManager.getIfAvailable();
+		return manager == null ? null : manager.getCache(CACHE_NAME);
+	}
+}
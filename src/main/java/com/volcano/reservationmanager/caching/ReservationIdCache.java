@@ -0,0 +1,73 @@
+package com.volcano.reservationmanager.caching;
+
+import com.volcano.reservationmanager.models.ReservationDTO;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bulk access to the reservations cached by id, the same entries GET /reservations/{id} is served from. Does nothing
+ * when caching is not enabled.
+ */
+@Component
+public class ReservationIdCache {
+
+	public static final String CACHE_NAME = "reservation";
+
+	private final ObjectProvider<CacheManager> cacheManager;
+
+	public ReservationIdCache(ObjectProvider<CacheManager> cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	public Map<UUID, ReservationDTO> getAll(Collection<UUID> ids) {
+		Map<UUID, ReservationDTO> found = new HashMap<>();
+		Cache cache = cache();
+		if (cache instanceof BulkCache) {
+			((BulkCache) cache).getAll(ids).forEach((id, reservation) ->
+					found.put((UUID) id, (ReservationDTO) reservation));
+		} else if (cache != null) {
+			ids.forEach(id -> {
+				ReservationDTO reservation = cache.get(id, ReservationDTO.class);
+				if (reservation != null) {
+					found.put(id, reservation);
+				}
+			});
+		}
+		return found;
+	}
+
+	public void putAllIfAbsent(Map<UUID, ReservationDTO> reservations) {
+		Cache cache = cache();
+		if (cache instanceof BulkCache) {
+			((BulkCache) cache).putAllIfAbsent(reservations);
+		} else if (cache != null) {
+			reservations.forEach(cache::putIfAbsent);
+		}
+	}
+
+	public void put(ReservationDTO reservation) {
+		Cache cache = cache();
+		if (cache != null) {
+			cache.put(reservation.getId(), reservation);
+		}
+	}
+
+	public void evict(UUID id) {
+		Cache cache = cache();
+		if (cache != null) {
+			cache.evict(id);
+		}
+	}
+
+	private Cache cache() {
+		CacheManager manager = cacheManager.getIfAvailable();
+		return manager == null ? null : manager.getCache(CACHE_NAME);
+	}
+}
@@ -0,0 +1,148 @@
+package com.volcano.reservationmanager.caching;
+
+import com.volcano.reservationmanager.models.ReservationDTO;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Binary layout for the cached reservations, a single one or a day bucket of them:
+ * <pre>
+ * version:byte tag:byte [count:int] reservation...
+ * reservation = flags:byte [id:long,long] name:string email:string from:int to:int
+ * string      = length:int (-1 for null) utf8:bytes
+ * </pre>
+ * Dates are epoch days. Entries written in another layout, such as JDK serialized ones left by an older deploy,
+ * read as cache misses.
+ */
+public class ReservationRedisSerializer implements RedisSerializer<Object> {
+
+	private static final byte VERSION = 1;
+
+	private static final byte SINGLE = 1;
+	private static final byte LIST = 2;
+
+	private static final byte HAS_ID = 1;
+	private static final int NULL_DATE = Integer.MIN_VALUE;
+
+	@Override
+	public byte[] serialize(Object value) {
+		if (value == null) {
+			return null;
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(VERSION);
+			if (value instanceof ReservationDTO) {
+				out.writeByte(SINGLE);
+				write(out, (ReservationDTO) value);
+			} else if (value instanceof List) {
+				List<?> reservations = (List<?>) value;
+				out.writeByte(LIST);
+				out.writeInt(reservations.size());
+				for (Object reservation : reservations) {
+					write(out, (ReservationDTO) reservation);
+				}
+			} else {
+				throw new SerializationException("Cannot serialize " + value.getClass().getName());
+			}
+		} catch (IOException | ClassCastException e) {
+			throw new SerializationException("Cannot serialize " + value.getClass().getName(), e);
+		}
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public Object deserialize(byte[] bytes) {
+		if (bytes == null || bytes.length < 2 || bytes[0] != VERSION) {
+			return null;
+		}
+
+		ByteBuffer in = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+		try {
+			byte tag = in.get();
+			if (tag == SINGLE) {
+				return read(in);
+			}
+			if (tag == LIST) {
+				int count = in.getInt();
+				if (count < 0 || count > in.remaining()) {
+					throw new BufferUnderflowException();
+				}
+				List<ReservationDTO> reservations = new ArrayList<>(count);
+				for (int i = 0; i < count; i++) {
+					reservations.add(read(in));
+				}
+				return reservations;
+			}
+			return null;
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new SerializationException("Corrupted cache entry", e);
+		}
+	}
+
+	private static void write(DataOutputStream out, ReservationDTO reservation) throws IOException {
+		UUID id = reservation.getId();
+		out.writeByte(id == null ? 0 : HAS_ID);
+		if (id != null) {
+			out.writeLong(id.getMostSignificantBits());
+			out.writeLong(id.getLeastSignificantBits());
+		}
+		writeString(out, reservation.getName());
+		writeString(out, reservation.getEmail());
+		writeDate(out, reservation.getFrom());
+		writeDate(out, reservation.getTo());
+	}
+
+	private static ReservationDTO read(ByteBuffer in) {
+		UUID id = (in.get() & HAS_ID) != 0 ? new UUID(in.getLong(), in.getLong()) : null;
+		String name = readString(in);
+		String email = readString(in);
+		LocalDate from = readDate(in);
+		LocalDate to = readDate(in);
+		return new ReservationDTO(id, name, email, from, to);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(utf8.length);
+		out.write(utf8);
+	}
+
+	private static String readString(ByteBuffer in) {
+		int length = in.getInt();
+		if (length < 0) {
+			return null;
+		}
+		if (length > in.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+		in.position(in.position() + length);
+		return value;
+	}
+
+	private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+		out.writeInt(date == null ? NULL_DATE : Math.toIntExact(date.toEpochDay()));
+	}
+
+	private static LocalDate readDate(ByteBuffer in) {
+		int epochDay = in.getInt();
+		return epochDay == NULL_DATE ? null : LocalDate.ofEpochDay(epochDay);
+	}
+}
@@ -0,0 +1,232 @@
+package com.volcano.reservationmanager.caching;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A bounded per-instance cache in front of the shared Redis cache. Writes go to both tiers and publish an
+ * invalidation, so the other instances drop their local copy; the local TTL bounds how stale a copy can get if an
+ * invalidation is missed. Misses filled by a loader are not writes, and publish nothing.
+ */
+public class TwoLevelCache implements Cache, BulkCache {
+
+	private final Cache remote;
+	private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+	private final CacheInvalidationBus invalidationBus;
+
+	private final ConcurrentMap<String, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+	private final Counter remoteHits;
+	private final Counter remoteMisses;
+
+	public TwoLevelCache(Cache remote,
+						 com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local,
+						 CacheInvalidationBus invalidationBus,
+						 MeterRegistry registry) {
+		this.remote = remote;
+		this.local = local;
+		this.invalidationBus = invalidationBus;
+
+		Tags tags = Tags.of("cache", remote.getName(), "tier", "remote");
+		this.remoteHits = registry.counter("cache.gets", tags.and("result", "hit"));
+		this.remoteMisses = registry.counter("cache.gets", tags.and("result", "miss"));
+		registry.gauge("cache.hit.ratio", Tags.of("cache", remote.getName(), "tier", "local"), local,
+				c -> c.stats().hitRate());
+		registry.gauge("cache.hit.ratio", tags, this, TwoLevelCache::remoteHitRatio);
+	}
+
+	@Override
+	public String getName() {
+		return remote.getName();
+	}
+
+	@Override
+	public Object getNativeCache() {
+		return this;
+	}
+
+	@Override
+	public ValueWrapper get(Object key) {
+		String localKey = localKey(key);
+		ValueWrapper cached = local.getIfPresent(localKey);
+		if (cached != null) {
+			return cached;
+		}
+
+		cached = remote.get(key);
+		if (cached == null) {
+			remoteMisses.increment();
+			return null;
+		}
+		remoteHits.increment();
+		local.put(localKey, cached);
+		return cached;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Class<T> type) {
+		ValueWrapper cached = get(key);
+		Object value = cached == null ? null : cached.get();
+		if (value != null && type != null && !type.isInstance(value)) {
+			throw new IllegalStateException(String.format(
+					"Cached value is not of required type [%s]: %s", type.getName(), value));
+		}
+		return (T) value;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper cached = get(key);
+		if (cached != null) {
+			return (T) cached.get();
+		}
+
+		//Concurrent misses for the same key share a single load instead of all going to the database
+		String localKey = localKey(key);
+		CompletableFuture<Object> load = new CompletableFuture<>();
+		CompletableFuture<Object> inFlight = loads.putIfAbsent(localKey, load);
+		if (inFlight == null) {
+			try {
+				load.complete(fill(key, valueLoader.call()));
+			} catch (Exception e) {
+				load.completeExceptionally(e);
+			} finally {
+				loads.remove(localKey, load);
+			}
+			inFlight = load;
+		}
+
+		try {
+			return (T) inFlight.join();
+		} catch (CompletionException e) {
+			throw new ValueRetrievalException(key, valueLoader, e.getCause());
+		}
+	}
+
+	@Override
+	public void put(Object key, Object value) {
+		remote.put(key, value);
+		local.put(localKey(key), new SimpleValueWrapper(value));
+		invalidationBus.publishEvict(getName(), localKey(key));
+	}
+
+	@Override
+	public ValueWrapper putIfAbsent(Object key, Object value) {
+		ValueWrapper existing = remote.putIfAbsent(key, value);
+		if (existing != null) {
+			local.put(localKey(key), existing);
+			return existing;
+		}
+		local.put(localKey(key), new SimpleValueWrapper(value));
+		invalidationBus.publishEvict(getName(), localKey(key));
+		return null;
+	}
+
+	@Override
+	public void evict(Object key) {
+		remote.evict(key);
+		local.invalidate(localKey(key));
+		invalidationBus.publishEvict(getName(), localKey(key));
+	}
+
+	@Override
+	public void clear() {
+		remote.clear();
+		local.invalidateAll();
+		invalidationBus.publishClear(getName());
+	}
+
+	/**
+	 * Answers from the local tier first and asks the remote one for the rest in bulk, when it supports it.
+	 */
+	@Override
+	public Map<Object, Object> getAll(Collection<?> keys) {
+		Map<Object, Object> found = new HashMap<>();
+		List<Object> missing = new ArrayList<>();
+		for (Object key : keys) {
+			ValueWrapper cached = local.getIfPresent(localKey(key));
+			if (cached != null) {
+				found.put(key, cached.get());
+			} else {
+				missing.add(key);
+			}
+		}
+		if (missing.isEmpty()) {
+			return found;
+		}
+
+		Map<Object, Object> remoteFound;
+		if (remote instanceof BulkCache) {
+			remoteFound = ((BulkCache) remote).getAll(missing);
+		} else {
+			remoteFound = new HashMap<>();
+			missing.forEach(key -> {
+				ValueWrapper cached = remote.get(key);
+				if (cached != null) {
+					remoteFound.put(key, cached.get());
+				}
+			});
+		}
+
+		remoteHits.increment(remoteFound.size());
+		remoteMisses.increment(missing.size() - remoteFound.size());
+		remoteFound.forEach((key, value) -> local.put(localKey(key), new SimpleValueWrapper(value)));
+		found.putAll(remoteFound);
+		return found;
+	}
+
+	/**
+	 * Backfills the remote tier only; the local one fills up on the next read.
+	 */
+	@Override
+	public void putAllIfAbsent(Map<?, ?> entries) {
+		if (remote instanceof BulkCache) {
+			((BulkCache) remote).putAllIfAbsent(entries);
+		} else {
+			entries.forEach(remote::putIfAbsent);
+		}
+	}
+
+	// A miss filled from the source of truth changes nothing the other instances hold, so nothing is published.
+	// A write may have reached Redis while the loader ran, and its value is fresher than the loaded one, so it wins.
+	private Object fill(Object key, Object value) {
+		ValueWrapper existing = remote.putIfAbsent(key, value);
+		ValueWrapper filled = existing != null ? existing : new SimpleValueWrapper(value);
+		local.put(localKey(key), filled);
+		return filled.get();
+	}
+
+	void evictLocal(String localKey) {
+		local.invalidate(localKey);
+	}
+
+	void clearLocal() {
+		local.invalidateAll();
+	}
+
+	private double remoteHitRatio() {
+		double hits = remoteHits.count();
+		double total = hits + remoteMisses.count();
+		return total == 0 ? 0 : hits / total;
+	}
+
+	private static String localKey(Object key) {
+		return String.valueOf(key);
+	}
+}
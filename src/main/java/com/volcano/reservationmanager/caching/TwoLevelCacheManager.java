@@ -0,0 +1,60 @@
+package com.volcano.reservationmanager.caching;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TwoLevelCacheManager implements CacheManager {
+
+	private final CacheManager remote;
+	private final CacheInvalidationBus invalidationBus;
+	private final MeterRegistry registry;
+	private final long localMaxSize;
+	private final Duration localTtl;
+
+	private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+	public TwoLevelCacheManager(CacheManager remote,
+								CacheInvalidationBus invalidationBus,
+								MeterRegistry registry,
+								long localMaxSize,
+								Duration localTtl) {
+		this.remote = remote;
+		this.invalidationBus = invalidationBus;
+		this.registry = registry;
+		this.localMaxSize = localMaxSize;
+		this.localTtl = localTtl;
+	}
+
+	@Override
+	public Cache getCache(String name) {
+		return caches.computeIfAbsent(name, this::createCache);
+	}
+
+	@Override
+	public Collection<String> getCacheNames() {
+		return Collections.unmodifiableSet(caches.keySet());
+	}
+
+	private TwoLevelCache createCache(String name) {
+		com.github.benmanes.caffeine.cache.Cache<String, Cache.ValueWrapper> local = Caffeine.newBuilder()
+				.maximumSize(localMaxSize)
+				.expireAfterWrite(localTtl)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(registry, local, name, Tags.of("tier", "local"));
+
+		TwoLevelCache cache = new TwoLevelCache(remote.getCache(name), local, invalidationBus, registry);
+		invalidationBus.register(cache);
+		return cache;
+	}
+}
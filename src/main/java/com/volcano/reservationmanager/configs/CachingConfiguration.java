@@ -1,14 +1,80 @@
 package com.volcano.reservationmanager.configs;
 
+import com.volcano.reservationmanager.caching.CacheInvalidationBus;
+import com.volcano.reservationmanager.caching.PipelinedRedisCacheManager;
+import com.volcano.reservationmanager.caching.ReservationDayCache;
+import com.volcano.reservationmanager.caching.ReservationRedisSerializer;
+import com.volcano.reservationmanager.caching.TwoLevelCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 @EnableCaching
 @Profile("!test")
 public class CachingConfiguration extends CachingConfigurerSupport {
 
+	@Value("${spring.cache.redis.time-to-live:60000}")
+	private long redisTtlMillis;
+
+	@Value("${reservations.cache.local.max-size:10000}")
+	private long localMaxSize;
+
+	@Value("${reservations.cache.local.time-to-live:10000}")
+	private long localTtlMillis;
+
+	@Bean
+	public CacheInvalidationBus cacheInvalidationBus(StringRedisTemplate redisTemplate) {
+		return new CacheInvalidationBus(redisTemplate);
+	}
+
+	@Bean
+	public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+																   CacheInvalidationBus invalidationBus) {
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+		container.addMessageListener(invalidationBus, new ChannelTopic(CacheInvalidationBus.CHANNEL));
+		return container;
+	}
+
+	@Bean
+	public CacheManager twoLevelCacheManager(RedisConnectionFactory connectionFactory,
+											 CacheInvalidationBus invalidationBus,
+											 MeterRegistry registry) {
+		RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+				.entryTtl(Duration.ofMillis(redisTtlMillis));
+
+		//Reservations use a compact binary layout instead of JDK serialization
+		RedisCacheConfiguration reservations = defaults
+				.serializeValuesWith(SerializationPair.fromSerializer(new ReservationRedisSerializer()))
+				.disableCachingNullValues();
+		Map<String, RedisCacheConfiguration> configurations = new HashMap<>();
+		configurations.put("reservation", reservations);
+		configurations.put(ReservationDayCache.CACHE_NAME, reservations);
+
+		//MGET and pipelines for the bulk lookups
+		RedisCacheManager redisCacheManager =
+				new PipelinedRedisCacheManager(connectionFactory, defaults, configurations);
+		redisCacheManager.initializeCaches();
+
+		return new TwoLevelCacheManager(
+				redisCacheManager, invalidationBus, registry, localMaxSize, Duration.ofMillis(localTtlMillis));
+	}
 
 }
@@ -0,0 +1,52 @@
+package com.volcano.reservationmanager.configs;
+
+import com.volcano.reservationmanager.limiting.AdaptiveConcurrencyLimiter;
+import com.volcano.reservationmanager.limiting.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "reservations.limits.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfiguration {
+
+	@Value("${reservations.limits.backoff-ratio:0.9}")
+	private double backoffRatio;
+
+	@Value("${reservations.limits.retry-after-seconds:1}")
+	private long retryAfterSeconds;
+
+	@Bean
+	public AdaptiveConcurrencyLimiter readLimiter(MeterRegistry registry,
+												  @Value("${reservations.limits.read.initial:100}") int initial,
+												  @Value("${reservations.limits.read.min:10}") int min,
+												  @Value("${reservations.limits.read.max:1000}") int max,
+												  @Value("${reservations.limits.read.target-latency-ms:200}") long targetLatency) {
+		return new AdaptiveConcurrencyLimiter("read", initial, min, max, targetLatency, backoffRatio, registry);
+	}
+
+	@Bean
+	public AdaptiveConcurrencyLimiter writeLimiter(MeterRegistry registry,
+												   @Value("${reservations.limits.write.initial:20}") int initial,
+												   @Value("${reservations.limits.write.min:2}") int min,
+												   @Value("${reservations.limits.write.max:200}") int max,
+												   @Value("${reservations.limits.write.target-latency-ms:500}") long targetLatency) {
+		return new AdaptiveConcurrencyLimiter("write", initial, min, max, targetLatency, backoffRatio, registry);
+	}
+
+	@Bean
+	public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+			@Qualifier("readLimiter") AdaptiveConcurrencyLimiter readLimiter,
+			@Qualifier("writeLimiter") AdaptiveConcurrencyLimiter writeLimiter) {
+		FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+				new ConcurrencyLimitFilter(readLimiter, writeLimiter, retryAfterSeconds));
+		registration.addUrlPatterns("/reservations/*");
+		return registration;
+	}
+}
@@ -0,0 +1,110 @@
+package com.volcano.reservationmanager.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.function.ToDoubleFunction;
+
+@Configuration
+public class MetricsConfiguration {
+
+	// The pools Lettuce borrows its Redis connections from register themselves under this name
+	private static final String REDIS_POOLS = "org.apache.commons.pool2:type=GenericObjectPool,*";
+
+	//Times the methods annotated with @Timed
+	@Bean
+	public TimedAspect timedAspect(MeterRegistry registry) {
+		return new TimedAspect(registry);
+	}
+
+	/**
+	 * Hibernate statistics, published as hibernate.* metrics. Off unless asked for, as every session then updates
+	 * shared counters on each statement, load and flush.
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer hibernateStatistics(
+			@Value("${reservations.hibernate-statistics.enabled:false}") boolean enabled) {
+		return properties -> properties.put(AvailableSettings.GENERATE_STATISTICS, Boolean.toString(enabled));
+	}
+
+	/**
+	 * Share of the database connections in use; the hikaricp.connections.* meters have the raw numbers.
+	 */
+	@Bean
+	public MeterBinder connectionPoolSaturation(ObjectProvider<DataSource> dataSource) {
+		return registry -> Gauge.builder("reservations.pool.saturation", dataSource, provider -> {
+			HikariDataSource hikari = hikari(provider.getIfAvailable());
+			HikariPoolMXBean pool = hikari == null ? null : hikari.getHikariPoolMXBean();
+			if (pool == null) {
+				return Double.NaN;
+			}
+			return (double) pool.getActiveConnections() / hikari.getMaximumPoolSize();
+		})
+				.tag("pool", "database")
+				.register(registry);
+	}
+
+	/**
+	 * Redis connection pool usage, read from the pools' MBeans since Lettuce keeps the pools to itself. Pools are
+	 * created on first use, so the gauges are computed on every scrape.
+	 */
+	@Bean
+	public MeterBinder redisPoolMetrics() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		return registry -> {
+			redisPoolGauge(registry, server, "reservations.redis.pool.active", "NumActive");
+			redisPoolGauge(registry, server, "reservations.redis.pool.idle", "NumIdle");
+			redisPoolGauge(registry, server, "reservations.redis.pool.waiters", "NumWaiters");
+			Gauge.builder("reservations.pool.saturation", server, s -> {
+				double max = sumRedisPools(s, "MaxTotal");
+				return max <= 0 ? Double.NaN : sumRedisPools(s, "NumActive") / max;
+			})
+					.tag("pool", "redis")
+					.register(registry);
+		};
+	}
+
+	private static void redisPoolGauge(MeterRegistry registry, MBeanServer server, String name, String attribute) {
+		ToDoubleFunction<MBeanServer> sum = s -> sumRedisPools(s, attribute);
+		Gauge.builder(name, server, sum).register(registry);
+	}
+
+	private static double sumRedisPools(MBeanServer server, String attribute) {
+		double total = 0;
+		try {
+			for (ObjectName pool : server.queryNames(new ObjectName(REDIS_POOLS), null)) {
+				total += ((Number) server.getAttribute(pool, attribute)).doubleValue();
+			}
+		} catch (JMException e) {
+			return Double.NaN;
+		}
+		return total;
+	}
+
+	private static HikariDataSource hikari(DataSource dataSource) {
+		try {
+			if (dataSource != null && dataSource.isWrapperFor(HikariDataSource.class)) {
+				return dataSource.unwrap(HikariDataSource.class);
+			}
+		} catch (SQLException e) {
+			//Not a Hikari pool
+		}
+		return null;
+	}
+}
@@ -0,0 +1,48 @@
+package com.volcano.reservationmanager.configs;
+
+import com.volcano.reservationmanager.routing.ReplicaRoutingDataSource;
+import com.volcano.reservationmanager.routing.ReplicaSet;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Read only transactions go to the replicas in reservations.replicas.urls, which share the primary's credentials
+ * and pool settings.
+ */
+@Configuration
+@ConditionalOnProperty(name = "reservations.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfiguration {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean
+	public ReplicaSet replicaSet(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+								 @Value("${reservations.replicas.urls}") List<String> urls,
+								 @Value("${reservations.replicas.max-lag-ms:1000}") long maxLagMillis,
+								 MeterRegistry registry) {
+		return new ReplicaSet(primaryDataSource, urls, maxLagMillis, registry);
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+								 ReplicaSet replicaSet) {
+		return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource, replicaSet));
+	}
+}
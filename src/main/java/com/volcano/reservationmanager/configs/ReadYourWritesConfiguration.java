@@ -0,0 +1,27 @@
+package com.volcano.reservationmanager.configs;
+
+import com.volcano.reservationmanager.routing.ReadYourWritesFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Pins clients that wrote recently, whenever reads may trail writes: on the replicas, or in the read model.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnExpression("${reservations.replicas.enabled:false} or ${reservations.read-model.enabled:false}")
+public class ReadYourWritesConfiguration {
+
+	@Bean
+	public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+			@Value("${reservations.replicas.read-your-writes-ms:5000}") long windowMillis) {
+		FilterRegistrationBean<ReadYourWritesFilter> registration =
+				new FilterRegistrationBean<>(new ReadYourWritesFilter(windowMillis));
+		registration.addUrlPatterns("/reservations/*");
+		return registration;
+	}
+}
@@ -0,0 +1,53 @@
+package com.volcano.reservationmanager.configs;
+
+import com.volcano.reservationmanager.profiling.SqlProfiler;
+import com.volcano.reservationmanager.profiling.SqlProfilingDataSourcePostProcessor;
+import com.volcano.reservationmanager.profiling.SqlProfilingInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@ConditionalOnProperty(name = "reservations.sql-profiler.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlProfilingConfiguration {
+
+	// Static, as the post processor needs it before any other bean is created
+	@Bean
+	public static SqlProfiler sqlProfiler() {
+		return new SqlProfiler();
+	}
+
+	@Bean
+	public static SqlProfilingDataSourcePostProcessor sqlProfilingDataSourcePostProcessor(SqlProfiler sqlProfiler) {
+		return new SqlProfilingDataSourcePostProcessor(sqlProfiler);
+	}
+
+	// Statements are only tied to the request on the servlet stack, where a request keeps to one thread
+	@Configuration
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+	static class SqlProfilingWebConfiguration implements WebMvcConfigurer {
+
+		private final SqlProfiler profiler;
+		private final MeterRegistry registry;
+		private final boolean headers;
+
+		SqlProfilingWebConfiguration(SqlProfiler profiler,
+									 MeterRegistry registry,
+									 @Value("${reservations.sql-profiler.headers:false}") boolean headers) {
+			this.profiler = profiler;
+			this.registry = registry;
+			this.headers = headers;
+		}
+
+		@Override
+		public void addInterceptors(InterceptorRegistry registry) {
+			registry.addInterceptor(new SqlProfilingInterceptor(profiler, this.registry, headers))
+					.addPathPatterns("/reservations/**");
+		}
+	}
+}
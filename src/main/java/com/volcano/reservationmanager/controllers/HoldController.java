@@ -0,0 +1,51 @@
+package com.volcano.reservationmanager.controllers;
+
+import com.volcano.reservationmanager.models.HoldDTO;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.services.BookingExecutor;
+import com.volcano.reservationmanager.services.HoldService;
+import com.volcano.reservationmanager.services.TransientFailureRetrier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/reservations/holds")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class HoldController {
+
+	private final HoldService service;
+	private final TransientFailureRetrier retrier;
+	private final BookingExecutor bookingExecutor;
+
+	public HoldController(HoldService service, TransientFailureRetrier retrier, BookingExecutor bookingExecutor) {
+		this.service = service;
+		this.retrier = retrier;
+		this.bookingExecutor = bookingExecutor;
+	}
+
+	@PostMapping
+	public HoldDTO holdDates(@RequestBody @Valid HoldDTO hold) {
+		return service.hold(hold);
+	}
+
+	// Confirming books, so it runs on the booking executor like the other writes
+	@PostMapping("/{holdId}/confirm")
+	public CompletableFuture<ReservationDTO> confirmHold(@PathVariable UUID holdId) {
+		return bookingExecutor.submit(() -> retrier.execute(() -> service.confirm(holdId)));
+	}
+
+	@DeleteMapping("/{holdId}")
+	public @ResponseBody void releaseHold(@PathVariable UUID holdId) {
+		service.release(holdId);
+	}
+}
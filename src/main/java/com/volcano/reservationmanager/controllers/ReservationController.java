@@ -1,10 +1,18 @@
 package com.volcano.reservationmanager.controllers;
 
-import com.volcano.reservationmanager.exceptions.InvalidReservationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.models.ReservationPage;
+import com.volcano.reservationmanager.routing.ReadYourWrites;
+import com.volcano.reservationmanager.services.BookingExecutor;
+import com.volcano.reservationmanager.services.BookingSequencer;
+import com.volcano.reservationmanager.services.ReservationReadModel;
 import com.volcano.reservationmanager.services.ReservationService;
+import com.volcano.reservationmanager.services.TransientFailureRetrier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.orm.jpa.JpaSystemException;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -13,60 +21,144 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/reservations")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ReservationController {
 
+	public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+	public static final String CONTINUATION_TOKEN_HEADER = "X-Continuation-Token";
+
+	private static final String DEFAULT_PAGE_SIZE = "100";
+
 	private final ReservationService service;
+	private final Optional<BookingSequencer> sequencer;
+	private final Optional<ReservationReadModel> readModel;
+	private final TransientFailureRetrier retrier;
+	private final BookingExecutor bookingExecutor;
+	private final ObjectWriter reservationWriter;
 
-	public ReservationController(ReservationService service) {
+	public ReservationController(ReservationService service,
+								 Optional<BookingSequencer> sequencer,
+								 Optional<ReservationReadModel> readModel,
+								 TransientFailureRetrier retrier,
+								 BookingExecutor bookingExecutor,
+								 ObjectMapper objectMapper) {
 
 		this.service = service;
+		this.sequencer = sequencer;
+		this.readModel = readModel;
+		this.retrier = retrier;
+		this.bookingExecutor = bookingExecutor;
+		this.reservationWriter = objectMapper.writerFor(ReservationDTO.class);
 	}
 
 	@GetMapping("/{reservationId}")
 	public ReservationDTO getReservation(@PathVariable UUID reservationId) {
-		return service.findReservationById(reservationId);
+		return service.findReservation(reservationId);
 	}
 
 	@GetMapping
-	public List<ReservationDTO> getReservations(
+	public ResponseEntity<List<ReservationDTO>> getReservations(
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(required = false) String continuationToken,
+			@RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+		ReservationPage page = readModel()
+				.map(m -> m.findReservations(from, to, continuationToken, size))
+				.orElseGet(() -> service.findReservations(from, to, continuationToken, size));
+
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+		if (page.getContinuationToken() != null) {
+			response.header(CONTINUATION_TOKEN_HEADER, page.getContinuationToken());
+		}
+		return response.body(page.getReservations());
+	}
+
+	// Free days between from and to, both inclusive
+	@GetMapping("/availability")
+	public List<LocalDate> getAvailability(
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+		return readModel()
+				.map(m -> m.findAvailableDays(from, to))
+				.orElseGet(() -> service.findAvailableDays(from, to));
+	}
+
+	// One JSON document per line, written as the database cursor advances
+	@GetMapping(produces = APPLICATION_NDJSON_VALUE)
+	public StreamingResponseBody streamReservations(
 			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
 			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
-		return service.findReservations(from, to);
+		return out -> service.streamReservations(from, to, reservation -> {
+			try {
+				out.write(reservationWriter.writeValueAsBytes(reservation));
+				out.write('\n');
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
 	}
 
+	// Reservations found among the given ids, for clients checking many of them at once
+	@PostMapping("/lookup")
+	public List<ReservationDTO> lookupReservations(@RequestBody List<UUID> reservationIds) {
+		return service.lookupReservations(reservationIds);
+	}
+
+	// Writes run on the booking executor, and leave the container thread to the reads in the meantime
 	@PostMapping
-	public ReservationDTO createReservation(@RequestBody @Valid ReservationDTO reservation) {
-		try {
-			return service.createReservation(reservation);
-		} catch (JpaSystemException jpae) {
-			throw new InvalidReservationException("There is a reservation already being made. Try again, please.", jpae);
-		} catch (Exception e) {
-			return null;
-		}
+	public CompletableFuture<ReservationDTO> createReservation(@RequestBody @Valid ReservationDTO reservation) {
+		return bookingExecutor.submit(() -> retrier.execute(() -> sequencer
+				.map(s -> await(s.create(reservation)))
+				.orElseGet(() -> service.createReservation(reservation))));
 	}
 
 	@PutMapping
-	public ReservationDTO editReservation(@RequestBody @Valid ReservationDTO reservation) {
-		try {
-			return service.editReservation(reservation);
-		} catch (JpaSystemException jpae) {
-			throw new InvalidReservationException("There is a reservation already being made. Try again, please.", jpae);
-		}
+	public CompletableFuture<ReservationDTO> editReservation(@RequestBody @Valid ReservationDTO reservation) {
+		return bookingExecutor.submit(() -> retrier.execute(() -> sequencer
+				.map(s -> await(s.edit(reservation)))
+				.orElseGet(() -> service.editReservation(reservation))));
 	}
 
 	@DeleteMapping("/{reservationId}")
-	public @ResponseBody void cancelReservation(@PathVariable UUID reservationId) {
-		service.cancelReservation(reservationId);
+	public CompletableFuture<Void> cancelReservation(@PathVariable UUID reservationId) {
+		return bookingExecutor.submit(() -> retrier.execute(() -> {
+			if (sequencer.isPresent()) {
+				await(sequencer.get().cancel(reservationId));
+			} else {
+				service.cancelReservation(reservationId);
+			}
+		}));
+	}
+
+	// The read model answers once it has loaded, the tables until then and for clients that have just written
+	private Optional<ReservationReadModel> readModel() {
+		return readModel.filter(model -> model.isReady() && !ReadYourWrites.isPinned());
+	}
+
+	private static <T> T await(CompletableFuture<T> result) {
+		try {
+			return result.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
 	}
 
 }
@@ -0,0 +1,14 @@
+package com.volcano.reservationmanager.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class ReservationConflictException extends InvalidReservationException {
+	public ReservationConflictException(String message) {
+		super(message);
+	}
+	public ReservationConflictException(String message, Exception reason) {
+		super(message, reason);
+	}
+}
@@ -0,0 +1,14 @@
+package com.volcano.reservationmanager.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceBusyException extends RuntimeException {
+	public ServiceBusyException(String message) {
+		super(message);
+	}
+	public ServiceBusyException(String message, Exception reason) {
+		super(message, reason);
+	}
+}
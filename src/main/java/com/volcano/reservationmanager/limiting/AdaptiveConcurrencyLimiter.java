@@ -0,0 +1,102 @@
+package com.volcano.reservationmanager.limiting;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps how many requests run at once, AIMD style: every request answered within the target latency while the
+ * limit is in use raises it by one, and a slow or failed one cuts it by the backoff ratio. When the pools behind
+ * the service saturate, latency goes up and the limit follows it down, so the excess is refused right away
+ * instead of queueing.
+ * <p>
+ * As TCP does once per round trip, the limit is cut once per congestion event: requests that started before the
+ * last cut were admitted under the old limit, so their being slow says nothing about the new one.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final long targetLatencyNanos;
+	private final double backoffRatio;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final Counter rejections;
+
+	private volatile double limit;
+	private boolean backedOff;
+	private long lastBackoffNanos;
+
+	public AdaptiveConcurrencyLimiter(String name,
+									  int initialLimit,
+									  int minLimit,
+									  int maxLimit,
+									  long targetLatencyMillis,
+									  double backoffRatio,
+									  MeterRegistry registry) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+		this.backoffRatio = backoffRatio;
+		this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+		Tags tags = Tags.of("kind", name);
+		registry.gauge("reservations.concurrency.limit", tags, this, AdaptiveConcurrencyLimiter::getLimit);
+		registry.gauge("reservations.concurrency.in.flight", tags, inFlight);
+		this.rejections = registry.counter("reservations.concurrency.rejections", tags);
+	}
+
+	/**
+	 * @return whether the request may go ahead, in which case it must be followed by exactly one onComplete
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			int current = inFlight.get();
+			if (current >= getLimit()) {
+				rejections.increment();
+				return false;
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * @param dropped whether the request failed because the service was overloaded
+	 */
+	public void onComplete(long latencyNanos, boolean dropped) {
+		int current = inFlight.getAndDecrement();
+		long now = System.nanoTime();
+		synchronized (this) {
+			if (dropped || latencyNanos > targetLatencyNanos) {
+				if (!backedOff || now - latencyNanos - lastBackoffNanos > 0) {
+					limit = Math.max(minLimit, limit * backoffRatio);
+					backedOff = true;
+					lastBackoffNanos = now;
+				}
+			} else if (current * 2 >= limit) {
+				//Only grow while the limit is what is holding requests back
+				limit = Math.min(maxLimit, limit + 1);
+			}
+		}
+	}
+
+	/**
+	 * Ends a request without taking its latency into account, for responses that are slow by design.
+	 */
+	public void onIgnore() {
+		inFlight.decrementAndGet();
+	}
+
+	public int getLimit() {
+		return (int) limit;
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+}
@@ -0,0 +1,118 @@
+package com.volcano.reservationmanager.limiting;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Sheds load with a 503 and a Retry-After once too many requests are in flight. Reads and writes are limited
+ * separately, so a burst of bookings cannot starve the listings, nor the other way around.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+	private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+	private final AdaptiveConcurrencyLimiter reads;
+	private final AdaptiveConcurrencyLimiter writes;
+	private final String retryAfterSeconds;
+
+	public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter reads,
+								  AdaptiveConcurrencyLimiter writes,
+								  long retryAfterSeconds) {
+		this.reads = reads;
+		this.writes = writes;
+		this.retryAfterSeconds = Long.toString(retryAfterSeconds);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request,
+									HttpServletResponse response,
+									FilterChain filterChain) throws ServletException, IOException {
+		AdaptiveConcurrencyLimiter limiter = isRead(request) ? reads : writes;
+		if (!limiter.tryAcquire()) {
+			response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+			response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many requests being served. Try again, please.");
+			return;
+		}
+
+		long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			filterChain.doFilter(request, response);
+			failed = false;
+		} finally {
+			if (request.isAsyncStarted()) {
+				//Streamed responses are done when the async request completes, not when the filter returns
+				request.getAsyncContext().addListener(new CompletionListener(limiter, start));
+			} else {
+				complete(limiter, start, failed || isOverloaded(response), response);
+			}
+		}
+	}
+
+	private static boolean isRead(HttpServletRequest request) {
+		return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+	}
+
+	private static void complete(AdaptiveConcurrencyLimiter limiter, long start, boolean dropped,
+								 HttpServletResponse response) {
+		if (!dropped && isStreamed(response)) {
+			limiter.onIgnore();
+		} else {
+			limiter.onComplete(System.nanoTime() - start, dropped);
+		}
+	}
+
+	// Streams last as long as there is data to send, which says nothing about how loaded the service is
+	private static boolean isStreamed(HttpServletResponse response) {
+		String contentType = response.getContentType();
+		return contentType != null && (contentType.startsWith(APPLICATION_NDJSON_VALUE)
+				|| contentType.startsWith(MediaType.TEXT_EVENT_STREAM_VALUE));
+	}
+
+	private static boolean isOverloaded(HttpServletResponse response) {
+		return response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value()
+				|| response.getStatus() == HttpStatus.INTERNAL_SERVER_ERROR.value();
+	}
+
+	private static final class CompletionListener implements AsyncListener {
+		private final AdaptiveConcurrencyLimiter limiter;
+		private final long start;
+
+		private CompletionListener(AdaptiveConcurrencyLimiter limiter, long start) {
+			this.limiter = limiter;
+			this.start = start;
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+			complete(limiter, start, isOverloaded(response), response);
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			//Completion follows, and accounts for the request
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+			//Completion follows, and accounts for the request
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			event.getAsyncContext().addListener(this);
+		}
+	}
+}
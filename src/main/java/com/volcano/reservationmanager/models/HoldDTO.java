@@ -0,0 +1,71 @@
+package com.volcano.reservationmanager.models;
+
+import javax.validation.constraints.Future;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Days held for a guest for a short while, so they can confirm the booking without racing anyone for them.
+ * The id and expiry are set by the service.
+ */
+public class HoldDTO {
+
+	private UUID id;
+
+	@NotNull @NotEmpty
+	private String name;
+
+	@NotNull @NotEmpty
+	private String email;
+
+	@NotNull @Future
+	private LocalDate from;
+
+	@NotNull @Future
+	private LocalDate to;
+
+	private Instant expiresAt;
+
+	public HoldDTO() {
+	}
+
+	public HoldDTO(UUID id, String name, String email, LocalDate from, LocalDate to, Instant expiresAt) {
+		this.id = id;
+		this.name = name;
+		this.email = email;
+		this.from = from;
+		this.to = to;
+		this.expiresAt = expiresAt;
+	}
+
+	public UUID getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public LocalDate getFrom() {
+		return from;
+	}
+
+	public LocalDate getTo() {
+		return to;
+	}
+
+	public Instant getExpiresAt() {
+		return expiresAt;
+	}
+
+	public ReservationDTO toReservation() {
+		return new ReservationDTO(name, email, from, to);
+	}
+}
@@ -0,0 +1,63 @@
+package com.volcano.reservationmanager.models;
+
+import java.util.Objects;
+
+/**
+ * Position in the outbox, read by (txid, id): the last event a reader has already seen. Events are numbered when
+ * appended but commit in any order, whereas every transaction that finished before a snapshot's xmin sorts before
+ * those that had not, so readers only go as far as that xmin and never skip an event that commits late.
+ */
+public final class OutboxPosition implements Comparable<OutboxPosition> {
+
+	private final long txid;
+
+	private final long eventId;
+
+	public OutboxPosition(long txid, long eventId) {
+		this.txid = txid;
+		this.eventId = eventId;
+	}
+
+	/**
+	 * @return the position before every event of the given transaction and the ones after it
+	 */
+	public static OutboxPosition before(long txid) {
+		return new OutboxPosition(txid, 0);
+	}
+
+	public long getTxid() {
+		return txid;
+	}
+
+	public long getEventId() {
+		return eventId;
+	}
+
+	@Override
+	public int compareTo(OutboxPosition other) {
+		int byTxid = Long.compare(txid, other.txid);
+		return byTxid != 0 ? byTxid : Long.compare(eventId, other.eventId);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		OutboxPosition that = (OutboxPosition) o;
+		return txid == that.txid && eventId == that.eventId;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(txid, eventId);
+	}
+
+	@Override
+	public String toString() {
+		return txid + "/" + eventId;
+	}
+}
@@ -0,0 +1,72 @@
+package com.volcano.reservationmanager.models;
+
+import com.volcano.reservationmanager.exceptions.InvalidReservationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Position in a listing ordered by (startDate, id): the last reservation the client has already seen.
+ */
+public class ReservationCursor {
+
+	private static final String SEPARATOR = "|";
+
+	// Same order as Postgres sorts uuids in, byte by byte
+	private static final Comparator<UUID> ID_ORDER = Comparator
+			.comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+			.thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+	/**
+	 * The listing order, by start date and then id.
+	 */
+	public static final Comparator<ReservationDTO> ORDER = Comparator
+			.comparing(ReservationDTO::getFrom)
+			.thenComparing(ReservationDTO::getId, ID_ORDER);
+
+	private final LocalDate startDate;
+
+	private final UUID id;
+
+	public ReservationCursor(LocalDate startDate, UUID id) {
+		this.startDate = startDate;
+		this.id = id;
+	}
+
+	public LocalDate getStartDate() {
+		return startDate;
+	}
+
+	public UUID getId() {
+		return id;
+	}
+
+	/**
+	 * @return whether the reservation comes after this position in the listing
+	 */
+	public boolean precedes(ReservationDTO reservation) {
+		int byDate = reservation.getFrom().compareTo(startDate);
+		return byDate > 0 || (byDate == 0 && ID_ORDER.compare(reservation.getId(), id) > 0);
+	}
+
+	public String encode() {
+		String plain = startDate + SEPARATOR + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static ReservationCursor decode(String token) {
+		try {
+			String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = plain.indexOf(SEPARATOR);
+			return new ReservationCursor(
+					LocalDate.parse(plain.substring(0, separator)),
+					UUID.fromString(plain.substring(separator + 1)));
+		} catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+			throw new InvalidReservationException("Invalid continuation token.", e);
+		}
+	}
+}
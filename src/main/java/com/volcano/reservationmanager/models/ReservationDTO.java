@@ -9,7 +9,7 @@ import java.util.UUID;
 
 public class ReservationDTO implements Serializable {
 
-	private static final Long serialVersionUID = 1L;
+	private static final long serialVersionUID = 1L;
 
 	private UUID id;
 
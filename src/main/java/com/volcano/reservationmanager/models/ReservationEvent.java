@@ -0,0 +1,56 @@
+package com.volcano.reservationmanager.models;
+
+/**
+ * A change to a reservation, read back from the outbox. It carries the reservation as the change left it, or as
+ * it was when cancelled.
+ */
+public class ReservationEvent {
+
+	public enum Type {
+		CREATED, EDITED, CANCELLED
+	}
+
+	private final long txid;
+
+	private final long id;
+
+	private final Type type;
+
+	private final ReservationDTO reservation;
+
+	private final long ageMillis;
+
+	public ReservationEvent(long txid, long id, Type type, ReservationDTO reservation, long ageMillis) {
+		this.txid = txid;
+		this.id = id;
+		this.type = type;
+		this.reservation = reservation;
+		this.ageMillis = ageMillis;
+	}
+
+	// The transaction that made the change
+	public long getTxid() {
+		return txid;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public OutboxPosition getPosition() {
+		return new OutboxPosition(txid, id);
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public ReservationDTO getReservation() {
+		return reservation;
+	}
+
+	// Time since the change was committed, as of the moment it was read
+	public long getAgeMillis() {
+		return ageMillis;
+	}
+}
@@ -0,0 +1,44 @@
+package com.volcano.reservationmanager.models;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ReservationPage {
+
+	private final List<ReservationDTO> reservations;
+
+	private final String continuationToken;
+
+	public ReservationPage(List<ReservationDTO> reservations, String continuationToken) {
+		this.reservations = reservations;
+		this.continuationToken = continuationToken;
+	}
+
+	/**
+	 * The page made of the first limit reservations found, in listing order. Finding one more than that means there
+	 * is a next page, which starts right after the last one kept.
+	 */
+	public static ReservationPage of(List<ReservationDTO> found, int limit) {
+		List<ReservationDTO> reservations = found.stream()
+				.limit(limit)
+				.collect(Collectors.toList());
+
+		String next = null;
+		if (found.size() > limit) {
+			ReservationDTO last = reservations.get(limit - 1);
+			next = new ReservationCursor(last.getFrom(), last.getId()).encode();
+		}
+		return new ReservationPage(reservations, next);
+	}
+
+	public List<ReservationDTO> getReservations() {
+		return reservations;
+	}
+
+	/**
+	 * Opaque token to pass back to get the next page, or null when this is the last page.
+	 */
+	public String getContinuationToken() {
+		return continuationToken;
+	}
+}
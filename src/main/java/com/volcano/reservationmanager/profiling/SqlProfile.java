@@ -0,0 +1,30 @@
+package com.volcano.reservationmanager.profiling;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The SQL round trips made while serving one request.
+ */
+public class SqlProfile {
+
+	private final AtomicLong statements = new AtomicLong();
+	private final AtomicLong elapsedMillis = new AtomicLong();
+
+	void record(long elapsedMillis) {
+		this.statements.incrementAndGet();
+		this.elapsedMillis.addAndGet(elapsedMillis);
+	}
+
+	public long getStatements() {
+		return statements.get();
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d statements in %d ms", getStatements(), getElapsedMillis());
+	}
+}
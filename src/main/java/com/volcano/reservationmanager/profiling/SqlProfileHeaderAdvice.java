@@ -0,0 +1,45 @@
+package com.volcano.reservationmanager.profiling;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the SQL profile headers right before a response body is written, which commits the response.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "reservations.sql-profiler.headers", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class SqlProfileHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return true;
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body,
+								  MethodParameter returnType,
+								  MediaType selectedContentType,
+								  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+								  ServerHttpRequest request,
+								  ServerHttpResponse response) {
+		if (request instanceof ServletServerHttpRequest && response instanceof ServletServerHttpResponse) {
+			Object profile = ((ServletServerHttpRequest) request).getServletRequest()
+					.getAttribute(SqlProfilingInterceptor.PROFILE_ATTRIBUTE);
+			if (profile != null) {
+				SqlProfilingInterceptor.setHeaders(((ServletServerHttpResponse) response).getServletResponse(),
+						(SqlProfile) profile);
+			}
+		}
+		return body;
+	}
+}
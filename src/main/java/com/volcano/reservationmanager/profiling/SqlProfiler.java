@@ -0,0 +1,46 @@
+package com.volcano.reservationmanager.profiling;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+/**
+ * Attributes each statement run through the proxied data source to the profile bound to the current thread, if
+ * any. Batches count as a single round trip.
+ */
+public class SqlProfiler implements QueryExecutionListener {
+
+	private final ThreadLocal<SqlProfile> current = new ThreadLocal<>();
+
+	public SqlProfile start() {
+		SqlProfile profile = new SqlProfile();
+		current.set(profile);
+		return profile;
+	}
+
+	public void bind(SqlProfile profile) {
+		current.set(profile);
+	}
+
+	public void unbind() {
+		current.remove();
+	}
+
+	public SqlProfile current() {
+		return current.get();
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		SqlProfile profile = current.get();
+		if (profile != null) {
+			profile.record(execInfo.getElapsedTime());
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package com.volcano.reservationmanager.profiling;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts the application's data source behind a proxy that reports its statements to the profiler. Data sources it
+ * routes to, if any, are left alone so statements are not counted twice.
+ */
+public class SqlProfilingDataSourcePostProcessor implements BeanPostProcessor {
+
+	private static final String DATA_SOURCE = "dataSource";
+
+	private final SqlProfiler profiler;
+
+	public SqlProfilingDataSourcePostProcessor(SqlProfiler profiler) {
+		this.profiler = profiler;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (!DATA_SOURCE.equals(beanName) || !(bean instanceof DataSource) || bean instanceof ProxyDataSource) {
+			return bean;
+		}
+		return ProxyDataSourceBuilder.create((DataSource) bean)
+				.name(beanName)
+				.listener(profiler)
+				.build();
+	}
+}
@@ -0,0 +1,95 @@
+package com.volcano.reservationmanager.profiling;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Profiles the SQL of each request: statement count and time per endpoint as metrics, the profile itself in a
+ * debug log line and, when headers are on, in response headers set here or by {@link SqlProfileHeaderAdvice}. The
+ * headers tell clients about the queries behind an endpoint, so they are for tests and debugging only.
+ */
+public class SqlProfilingInterceptor implements AsyncHandlerInterceptor {
+
+	public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+	public static final String TIME_HEADER = "X-Sql-Time-Millis";
+
+	static final String PROFILE_ATTRIBUTE = SqlProfilingInterceptor.class.getName() + ".profile";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SqlProfilingInterceptor.class);
+
+	private final SqlProfiler profiler;
+	private final MeterRegistry registry;
+	private final boolean headers;
+
+	public SqlProfilingInterceptor(SqlProfiler profiler, MeterRegistry registry, boolean headers) {
+		this.profiler = profiler;
+		this.registry = registry;
+		this.headers = headers;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		//Async requests come back here when dispatched again, and carry on with the same profile
+		SqlProfile profile = (SqlProfile) request.getAttribute(PROFILE_ATTRIBUTE);
+		if (profile == null) {
+			request.setAttribute(PROFILE_ATTRIBUTE, profiler.start());
+		} else {
+			profiler.bind(profile);
+		}
+		return true;
+	}
+
+	// Responses without a body are still uncommitted here; the others got their headers from the advice
+	@Override
+	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+						   ModelAndView modelAndView) {
+		SqlProfile profile = (SqlProfile) request.getAttribute(PROFILE_ATTRIBUTE);
+		if (headers && profile != null && !response.isCommitted()) {
+			setHeaders(response, profile);
+		}
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+											   Object handler) {
+		profiler.unbind();
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+								Exception ex) {
+		profiler.unbind();
+		SqlProfile profile = (SqlProfile) request.getAttribute(PROFILE_ATTRIBUTE);
+		if (profile == null) {
+			return;
+		}
+
+		String endpoint = request.getMethod() + " " + request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		Tags tags = Tags.of("endpoint", endpoint);
+		DistributionSummary.builder("reservations.sql.statements")
+				.tags(tags)
+				.register(registry)
+				.record(profile.getStatements());
+		Timer.builder("reservations.sql.time")
+				.tags(tags)
+				.register(registry)
+				.record(profile.getElapsedMillis(), TimeUnit.MILLISECONDS);
+		LOGGER.debug("{}: {}", endpoint, profile);
+	}
+
+	static void setHeaders(HttpServletResponse response, SqlProfile profile) {
+		response.setHeader(STATEMENTS_HEADER, Long.toString(profile.getStatements()));
+		response.setHeader(TIME_HEADER, Long.toString(profile.getElapsedMillis()));
+	}
+}
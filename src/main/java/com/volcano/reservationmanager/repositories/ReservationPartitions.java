@@ -0,0 +1,161 @@
+package com.volcano.reservationmanager.repositories;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * The monthly partitions of the reservation table, by start date. Keeps the months from retain-months back to
+ * months-ahead forward attached; older ones are detached and moved to the archive schema, where they can still be
+ * read or dropped at leisure. Anything starting before the first month ever attached lands in reservation_default.
+ * <p>
+ * Every instance runs the rollover; an advisory lock lets one of them at a time do it, and a lock timeout keeps the
+ * DDL from queueing bookings up behind it.
+ */
+@Component
+public class ReservationPartitions {
+
+	private static final int PARTITIONS_NAMESPACE = 0x52534704;
+
+	private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'reservation_y'yyyy'm'MM");
+
+	private static final String DEFAULT_PARTITION = "reservation_default";
+
+	private static final String TRY_LOCK = "SELECT pg_try_advisory_xact_lock(?, 0)";
+
+	private static final String CREATE_PARTITION =
+			"CREATE TABLE IF NOT EXISTS %s PARTITION OF reservation FOR VALUES FROM ('%s') TO ('%s')";
+
+	// Bounded below the months kept, so that attaching a new month never has to scan it
+	private static final String CREATE_DEFAULT_PARTITION =
+			"CREATE TABLE reservation_default PARTITION OF reservation " +
+			"(CONSTRAINT reservation_default_before_partitions CHECK (start_date < '%s')) DEFAULT";
+
+	/*
+	 * Two active reservations in the same partition may not share a day; ReservationService checks across partitions.
+	 * Replaces the constraint of older versions, which cancelled reservations would have been caught by.
+	 */
+	private static final String NO_OVERLAP_CONSTRAINT =
+			"DO $$ BEGIN " +
+			"IF EXISTS (SELECT 1 FROM pg_constraint WHERE conname = '%1$s_no_overlap') THEN " +
+			"ALTER TABLE %1$s DROP CONSTRAINT %1$s_no_overlap; " +
+			"END IF; " +
+			"IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = '%1$s_active_no_overlap') THEN " +
+			"ALTER TABLE %1$s ADD CONSTRAINT %1$s_active_no_overlap " +
+			"EXCLUDE USING gist (daterange(start_date, end_date, '[]') WITH &&) WHERE (status = 'ACTIVE'); " +
+			"END IF; " +
+			"END $$";
+
+	private static final String ATTACHED = "SELECT child.relname FROM pg_inherits " +
+			"JOIN pg_class child ON child.oid = pg_inherits.inhrelid " +
+			"WHERE pg_inherits.inhparent = 'reservation'::regclass AND child.relname LIKE 'reservation\\_y%' " +
+			"ORDER BY child.relname";
+
+	// Lookups by id of the reservations archived with a month, which no longer resolve
+	private static final String FORGET_ARCHIVED =
+			"DELETE FROM reservation_start USING %1$s.%2$s WHERE reservation_start.id = %2$s.id";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final int monthsAhead;
+	private final int retainMonths;
+	private final String archiveSchema;
+	private final long lockTimeoutMillis;
+
+	public ReservationPartitions(JdbcTemplate jdbcTemplate,
+								 PlatformTransactionManager transactionManager,
+								 @Value("${reservations.partitions.months-ahead:3}") int monthsAhead,
+								 @Value("${reservations.partitions.retain-months:12}") int retainMonths,
+								 @Value("${reservations.partitions.archive-schema:reservation_archive}") String archiveSchema,
+								 @Value("${reservations.partitions.lock-timeout-ms:2000}") long lockTimeoutMillis) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.monthsAhead = monthsAhead;
+		this.retainMonths = retainMonths;
+		this.archiveSchema = archiveSchema;
+		this.lockTimeoutMillis = lockTimeoutMillis;
+	}
+
+	/**
+	 * Whether a range of start dates falls in more than one partition.
+	 */
+	public static boolean spans(LocalDate first, LocalDate last) {
+		return !YearMonth.from(first).equals(YearMonth.from(last));
+	}
+
+	/**
+	 * Attaches the months between first and last that are missing. Attaching a month older than the default
+	 * partition's bound fails, as its rows would be in the default partition.
+	 */
+	public void create(YearMonth first, YearMonth last) {
+		for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+			jdbcTemplate.execute(String.format(CREATE_PARTITION,
+					name(month), month.atDay(1), month.plusMonths(1).atDay(1)));
+			constrain(name(month));
+		}
+	}
+
+	// Only for a reservation table that was just created: the months kept, and the default partition below them
+	void createInitial() {
+		YearMonth first = firstRetained();
+		jdbcTemplate.execute(String.format(CREATE_DEFAULT_PARTITION, first.atDay(1)));
+		constrain(DEFAULT_PARTITION);
+		create(first, lastAhead());
+	}
+
+	// Brings the constraints of the partitions made by older versions up to date
+	void constrainAttached() {
+		jdbcTemplate.queryForList(ATTACHED, String.class).forEach(this::constrain);
+		constrain(DEFAULT_PARTITION);
+	}
+
+	private void constrain(String partition) {
+		jdbcTemplate.execute(String.format(NO_OVERLAP_CONSTRAINT, partition));
+	}
+
+	@Scheduled(fixedDelayString = "${reservations.partitions.rollover-interval:3600000}")
+	public void rollOver() {
+		transactionTemplate.execute(status -> {
+			if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK, Boolean.class, PARTITIONS_NAMESPACE))) {
+				return null;
+			}
+			jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMillis);
+
+			create(YearMonth.now(), lastAhead());
+
+			String firstKept = name(firstRetained());
+			List<String> attached = jdbcTemplate.queryForList(ATTACHED, String.class);
+			if (attached.stream().anyMatch(partition -> partition.compareTo(firstKept) < 0)) {
+				jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + archiveSchema);
+			}
+			attached.stream()
+					.filter(partition -> partition.compareTo(firstKept) < 0)
+					.forEach(partition -> {
+						jdbcTemplate.execute("ALTER TABLE reservation DETACH PARTITION " + partition);
+						jdbcTemplate.execute("ALTER TABLE " + partition + " SET SCHEMA " + archiveSchema);
+						jdbcTemplate.update(String.format(FORGET_ARCHIVED, archiveSchema, partition));
+					});
+			return null;
+		});
+	}
+
+	private YearMonth firstRetained() {
+		return YearMonth.now().minusMonths(retainMonths);
+	}
+
+	private YearMonth lastAhead() {
+		return YearMonth.now().plusMonths(monthsAhead);
+	}
+
+	private static String name(YearMonth month) {
+		return PARTITION_NAME.format(month);
+	}
+}
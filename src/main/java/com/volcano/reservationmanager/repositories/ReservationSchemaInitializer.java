@@ -0,0 +1,206 @@
+package com.volcano.reservationmanager.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.sql.Date;
+import java.time.YearMonth;
+
+/**
+ * The schema: the reservation table, range partitioned by month on start_date (see {@link ReservationPartitions}),
+ * the lookup of start dates by id, and the outbox. Hibernate manages none of them, as it can neither declare
+ * partitions, triggers nor exclusion constraints. Every step is idempotent so it is safe on every startup, and a
+ * reservation table left by an older deploy, not partitioned, is moved over to a partitioned one.
+ */
+@Component
+public class ReservationSchemaInitializer {
+
+	private static final int SCHEMA_NAMESPACE = 0x52534705;
+
+	private static final String LOCK = "SELECT pg_advisory_xact_lock(?, 0)";
+
+	// 'p' for a partitioned table, 'r' for a plain one, null when there is none
+	private static final String RESERVATION_KIND = "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('reservation')";
+
+	// The partition key has to be part of the primary key; ids alone stay unique as they are generated
+	private static final String RESERVATION_TABLE =
+			"CREATE TABLE reservation (" +
+			"id UUID NOT NULL, " +
+			"name VARCHAR(255), " +
+			"email VARCHAR(255), " +
+			"start_date DATE NOT NULL, " +
+			"end_date DATE NOT NULL, " +
+			"status VARCHAR(16) NOT NULL DEFAULT 'ACTIVE', " +
+			"PRIMARY KEY (id, start_date)) " +
+			"PARTITION BY RANGE (start_date)";
+
+	// Tables made before reservations were cancelled in place; on Postgres 11 the default costs no rewrite
+	private static final String STATUS_COLUMN =
+			"ALTER TABLE reservation ADD COLUMN IF NOT EXISTS status VARCHAR(16) NOT NULL DEFAULT 'ACTIVE'";
+
+	/*
+	 * Only active reservations are ever looked up, so the indexes leave the cancelled ones out, however many pile up.
+	 * They replace the full indexes of older versions.
+	 */
+
+	// Backs the date range listing, which walks reservations in (start_date, id) order
+	private static final String START_DATE_ID_INDEX =
+			"CREATE INDEX IF NOT EXISTS reservation_active_start_date_id_idx ON reservation (start_date, id) " +
+			"WHERE status = 'ACTIVE'";
+
+	// Backs the check for a guest's other bookings
+	private static final String EMAIL_END_DATE_INDEX =
+			"CREATE INDEX IF NOT EXISTS reservation_active_email_end_date_idx ON reservation (email, end_date) " +
+			"WHERE status = 'ACTIVE'";
+
+	private static final String[] DROP_FULL_INDEXES = {
+			"DROP INDEX IF EXISTS reservation_start_date_id_idx",
+			"DROP INDEX IF EXISTS reservation_email_end_date_idx"
+	};
+
+	private static final String[] MOVE_ASIDE_UNPARTITIONED = {
+			"ALTER TABLE reservation RENAME TO reservation_unpartitioned",
+			"ALTER INDEX IF EXISTS reservation_pkey RENAME TO reservation_unpartitioned_pkey"
+	};
+
+	private static final String LATEST_UNPARTITIONED = "SELECT MAX(start_date) FROM reservation_unpartitioned";
+
+	private static final String COPY_UNPARTITIONED = "INSERT INTO reservation (id, name, email, start_date, end_date) " +
+			"SELECT id, name, email, start_date, end_date FROM reservation_unpartitioned";
+
+	/*
+	 * The start date of every reservation by id, kept by a trigger. Lookups by id read the start date here first,
+	 * so they reach a single partition rather than probing the primary key of every month.
+	 */
+	private static final String START_DATE_LOOKUP_EXISTS = "SELECT to_regclass('reservation_start') IS NOT NULL";
+
+	private static final String START_DATE_LOOKUP_TABLE =
+			"CREATE TABLE reservation_start (" +
+			"id UUID PRIMARY KEY, " +
+			"start_date DATE NOT NULL)";
+
+	private static final String FILL_START_DATE_LOOKUP =
+			"INSERT INTO reservation_start (id, start_date) SELECT id, start_date FROM reservation " +
+			"ON CONFLICT (id) DO NOTHING";
+
+	// A move between partitions fires the delete and then the insert, so the delete only takes its own start date
+	private static final String START_DATE_LOOKUP_FUNCTION =
+			"CREATE OR REPLACE FUNCTION reservation_start_sync() RETURNS trigger AS $$ BEGIN " +
+			"IF TG_OP = 'DELETE' THEN " +
+			"DELETE FROM reservation_start WHERE id = OLD.id AND start_date = OLD.start_date; " +
+			"ELSE " +
+			"INSERT INTO reservation_start (id, start_date) VALUES (NEW.id, NEW.start_date) " +
+			"ON CONFLICT (id) DO UPDATE SET start_date = EXCLUDED.start_date; " +
+			"END IF; " +
+			"RETURN NULL; " +
+			"END $$ LANGUAGE plpgsql";
+
+	// Row triggers on the partitioned table are copied to every partition, the ones attached later included
+	private static final String START_DATE_LOOKUP_TRIGGER =
+			"DO $$ BEGIN " +
+			"IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgname = 'reservation_start_sync' " +
+			"AND tgrelid = 'reservation'::regclass) THEN " +
+			"CREATE TRIGGER reservation_start_sync AFTER INSERT OR UPDATE OF start_date OR DELETE ON reservation " +
+			"FOR EACH ROW EXECUTE PROCEDURE reservation_start_sync(); " +
+			"END IF; " +
+			"END $$";
+
+	// Changes to reservations and the transactions making them, see ReservationOutbox
+	private static final String EVENT_TABLE =
+			"CREATE TABLE IF NOT EXISTS reservation_event (" +
+			"id BIGSERIAL PRIMARY KEY, " +
+			"txid BIGINT NOT NULL DEFAULT txid_current(), " +
+			"type VARCHAR(16) NOT NULL, " +
+			"reservation_id UUID NOT NULL, " +
+			"name VARCHAR(255), " +
+			"email VARCHAR(255), " +
+			"start_date DATE NOT NULL, " +
+			"end_date DATE NOT NULL, " +
+			"occurred_at TIMESTAMP WITH TIME ZONE NOT NULL)";
+
+	// Events appended before the column existed take the id of the transaction adding it
+	private static final String EVENT_TXID_COLUMN =
+			"ALTER TABLE reservation_event ADD COLUMN IF NOT EXISTS txid BIGINT NOT NULL DEFAULT txid_current()";
+
+	// Backs the reads, in (txid, id) order
+	private static final String EVENT_TXID_INDEX =
+			"CREATE INDEX IF NOT EXISTS reservation_event_txid_idx ON reservation_event (txid, id)";
+
+	// Backs the purge of old events
+	private static final String EVENT_OCCURRED_AT_INDEX =
+			"CREATE INDEX IF NOT EXISTS reservation_event_occurred_at_idx ON reservation_event (occurred_at)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final ReservationPartitions partitions;
+
+	public ReservationSchemaInitializer(JdbcTemplate jdbcTemplate,
+										PlatformTransactionManager transactionManager,
+										ReservationPartitions partitions) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.partitions = partitions;
+	}
+
+	@PostConstruct
+	public void initialize() {
+		//Instances starting together take turns, and the ones coming later find the work done
+		transactionTemplate.execute(status -> {
+			jdbcTemplate.query(LOCK, rs -> { }, SCHEMA_NAMESPACE);
+			String kind = jdbcTemplate.queryForObject(RESERVATION_KIND, String.class);
+			if (kind == null) {
+				createReservationTable();
+			} else if ("r".equals(kind)) {
+				partitionReservationTable();
+			}
+			jdbcTemplate.execute(STATUS_COLUMN);
+			partitions.constrainAttached();
+			for (String statement : DROP_FULL_INDEXES) {
+				jdbcTemplate.execute(statement);
+			}
+			jdbcTemplate.execute(START_DATE_ID_INDEX);
+			jdbcTemplate.execute(EMAIL_END_DATE_INDEX);
+			createStartDateLookup();
+			jdbcTemplate.execute(EVENT_TABLE);
+			jdbcTemplate.execute(EVENT_TXID_COLUMN);
+			jdbcTemplate.execute(EVENT_TXID_INDEX);
+			jdbcTemplate.execute(EVENT_OCCURRED_AT_INDEX);
+			return null;
+		});
+	}
+
+	private void createReservationTable() {
+		jdbcTemplate.execute(RESERVATION_TABLE);
+		partitions.createInitial();
+	}
+
+	// The trigger is in place before the table is filled, and both happen under the schema lock, so no row is missed
+	private void createStartDateLookup() {
+		boolean exists = Boolean.TRUE.equals(jdbcTemplate.queryForObject(START_DATE_LOOKUP_EXISTS, Boolean.class));
+		if (!exists) {
+			jdbcTemplate.execute(START_DATE_LOOKUP_TABLE);
+		}
+		jdbcTemplate.execute(START_DATE_LOOKUP_FUNCTION);
+		jdbcTemplate.execute(START_DATE_LOOKUP_TRIGGER);
+		if (!exists) {
+			jdbcTemplate.update(FILL_START_DATE_LOOKUP);
+		}
+	}
+
+	// Copies the rows over in the same transaction, so the table is never seen half moved
+	private void partitionReservationTable() {
+		for (String statement : MOVE_ASIDE_UNPARTITIONED) {
+			jdbcTemplate.execute(statement);
+		}
+		createReservationTable();
+		Date latest = jdbcTemplate.queryForObject(LATEST_UNPARTITIONED, Date.class);
+		if (latest != null) {
+			partitions.create(YearMonth.now(), YearMonth.from(latest.toLocalDate()));
+		}
+		jdbcTemplate.update(COPY_UNPARTITIONED);
+		jdbcTemplate.execute("DROP TABLE reservation_unpartitioned");
+	}
+}
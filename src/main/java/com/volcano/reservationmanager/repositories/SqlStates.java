@@ -0,0 +1,32 @@
+package com.volcano.reservationmanager.repositories;
+
+import java.sql.SQLException;
+
+/**
+ * SQLSTATEs the service reacts to, looked up along the causes of a failure. The reactive stack translates R2DBC
+ * failures into SQLExceptions, so they are found here too.
+ */
+public final class SqlStates {
+
+	public static final String EXCLUSION_VIOLATION = "23P01";
+	public static final String SERIALIZATION_FAILURE = "40001";
+	public static final String DEADLOCK_DETECTED = "40P01";
+
+	private SqlStates() {
+	}
+
+	public static boolean hasSqlState(Throwable throwable, String... states) {
+		for (Throwable current = throwable; current != null; current = current.getCause()) {
+			String sqlState = current instanceof SQLException ? ((SQLException) current).getSQLState() : null;
+			for (String state : states) {
+				if (state.equals(sqlState)) {
+					return true;
+				}
+			}
+			if (current.getCause() == current) {
+				break;
+			}
+		}
+		return false;
+	}
+}
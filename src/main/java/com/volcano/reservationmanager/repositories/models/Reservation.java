@@ -1,17 +1,32 @@
 package com.volcano.reservationmanager.repositories.models;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Where;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import java.time.LocalDate;
 import java.util.UUID;
 
+/**
+ * A booking. Cancelling one only marks it as such, for the record; every query through the entity sees the active
+ * ones only, and the indexes behind them leave the cancelled ones out.
+ */
 @Entity
+@Where(clause = "status = 'ACTIVE'")
 public class Reservation {
 
+	public enum Status {
+		ACTIVE, CANCELLED
+	}
+
 	@Id
-	@GeneratedValue
+	@GeneratedValue(generator = "time-ordered-uuid")
+	@GenericGenerator(name = "time-ordered-uuid", strategy = "com.volcano.reservationmanager.repositories.models.TimeOrderedUuidGenerator")
 	private UUID id;
 
 	@Column
@@ -26,6 +41,10 @@ public class Reservation {
 	@Column
 	private LocalDate endDate;
 
+	@Column
+	@Enumerated(EnumType.STRING)
+	private Status status = Status.ACTIVE;
+
 	public Reservation() {}
 
 	public Reservation(String name, String email, LocalDate startDate, LocalDate endDate) {
@@ -68,4 +87,10 @@ public class Reservation {
 	}
 
 	public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(Status status) { this.status = status; }
 }
@@ -1,24 +1,54 @@
 package com.volcano.reservationmanager.repositories.models;
 
-import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import javax.persistence.LockModeType;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Stream;
 
 @Repository
-public interface ReservationRepository extends CrudRepository<Reservation, UUID> {
+public interface ReservationRepository extends JpaRepository<Reservation, UUID>, ReservationRepositoryCustom {
 
-	@Query("select r from Reservation r where (r.startDate >= ?1 and r.startDate <= ?2) or (r.endDate >= ?1 and r.endDate <= ?2)")
-	Stream<Reservation> findBetweenDate(LocalDate from, LocalDate to);
+	/*
+	 * By id, through the start date kept in reservation_start, so Postgres reads a single partition. Native queries
+	 * skip the entity's @Where, hence the status.
+	 */
 
-	Stream<Reservation> findByNameAndEmailAndEndDateAfter(String name, String email, LocalDate after);
+	@Override
+	@Query(value = "SELECT * FROM reservation " +
+			"WHERE id = :id AND start_date = (SELECT start_date FROM reservation_start WHERE id = :id) " +
+			"AND status = 'ACTIVE'", nativeQuery = true)
+	Optional<Reservation> findById(@Param("id") UUID id);
 
-	@Lock(LockModeType.PESSIMISTIC_WRITE)
-	Reservation save(Reservation reservation);
+	@Override
+	@Query(value = "SELECT reservation.* FROM reservation_start " +
+			"JOIN reservation ON reservation.id = reservation_start.id " +
+			"AND reservation.start_date = reservation_start.start_date " +
+			"WHERE reservation_start.id IN (:ids) AND reservation.status = 'ACTIVE'", nativeQuery = true)
+	List<Reservation> findAllById(@Param("ids") Iterable<UUID> ids);
+
+	List<Reservation> findByStartDateBetweenOrderByStartDateAscIdAsc(LocalDate from, LocalDate to);
+
+	/*
+	 * The lower bound on the start date is implied by the one on the end date, as reservations are short, but only
+	 * the start date lets Postgres skip the partitions of past months.
+	 */
+
+	Stream<Reservation> findByNameAndEmailAndStartDateGreaterThanEqualAndEndDateAfter(String name, String email,
+																					   LocalDate earliestStart,
+																					   LocalDate after);
+
+	Stream<Reservation> findByStartDateGreaterThanEqualAndEndDateGreaterThanEqual(LocalDate earliestStart, LocalDate date);
+
+	boolean existsByStartDateBetweenAndEndDateGreaterThanEqual(LocalDate earliestStart, LocalDate latestStart,
+																LocalDate date);
+
+	boolean existsByStartDateBetweenAndEndDateGreaterThanEqualAndIdNot(LocalDate earliestStart, LocalDate latestStart,
+																		LocalDate date, UUID id);
 
 }
@@ -0,0 +1,22 @@
+package com.volcano.reservationmanager.repositories.models;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface ReservationRepositoryCustom {
+
+	/**
+	 * Reservations overlapping [from, to] in (startDate, id) order, read through a JDBC cursor and detached as they
+	 * go, so the caller can write them out without holding the whole range in memory. Must be consumed inside a
+	 * transaction.
+	 */
+	Stream<Reservation> streamBetweenDate(LocalDate from, LocalDate to);
+
+	/**
+	 * Reloads the reservation, locking its row until the transaction ends, so the caller sees what committed since it
+	 * was read and nothing else changes it until then. Empty if it has been cancelled meanwhile.
+	 */
+	Optional<Reservation> refreshForUpdate(Reservation reservation);
+
+}
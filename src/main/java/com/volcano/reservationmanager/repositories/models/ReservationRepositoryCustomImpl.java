@@ -0,0 +1,47 @@
+package com.volcano.reservationmanager.repositories.models;
+
+import com.volcano.reservationmanager.services.ReservationService;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class ReservationRepositoryCustomImpl implements ReservationRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Value("${reservations.stream.fetch-size:500}")
+	private int fetchSize;
+
+	@Override
+	public Stream<Reservation> streamBetweenDate(LocalDate from, LocalDate to) {
+		return entityManager
+				.createQuery("select r from Reservation r " +
+						"where r.startDate between :earliestStart and :to and r.endDate >= :from " +
+						"order by r.startDate, r.id", Reservation.class)
+				.setParameter("earliestStart", from.minusDays(ReservationService.MAX_RESERVATION_DAYS))
+				.setParameter("from", from)
+				.setParameter("to", to)
+				.setHint(QueryHints.FETCH_SIZE, fetchSize)
+				.setHint(QueryHints.READ_ONLY, true)
+				.getResultStream()
+				.peek(entityManager::detach);
+	}
+
+	@Override
+	public Optional<Reservation> refreshForUpdate(Reservation reservation) {
+		try {
+			entityManager.refresh(reservation, LockModeType.PESSIMISTIC_WRITE);
+		} catch (EntityNotFoundException e) {
+			return Optional.empty();
+		}
+		return Optional.of(reservation).filter(r -> r.getStatus() == Reservation.Status.ACTIVE);
+	}
+}
@@ -0,0 +1,25 @@
+package com.volcano.reservationmanager.routing;
+
+/**
+ * Marks the current thread as serving a client that wrote recently, so its reads go to the primary and see the
+ * write even if the replicas have not caught up yet.
+ */
+public final class ReadYourWrites {
+
+	private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+	private ReadYourWrites() {
+	}
+
+	public static void pin() {
+		PINNED.set(Boolean.TRUE);
+	}
+
+	public static void unpin() {
+		PINNED.remove();
+	}
+
+	public static boolean isPinned() {
+		return PINNED.get() != null;
+	}
+}
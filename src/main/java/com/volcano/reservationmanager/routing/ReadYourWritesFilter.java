@@ -0,0 +1,172 @@
+package com.volcano.reservationmanager.routing;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Keeps a client on the primary for a short window after it writes. Writes that succeed hand out a cookie holding the
+ * end of the window; requests carrying an unexpired one are pinned to the primary. The cookie comes from the client,
+ * so one ending further away than a window from now, which no write hands out, is ignored.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+	public static final String COOKIE_NAME = "reservations-primary-until";
+
+	// Posted to, but only reads
+	private static final Set<String> READ_ONLY_POSTS = Collections.singleton("/reservations/lookup");
+
+	private final long windowMillis;
+
+	public ReadYourWritesFilter(long windowMillis) {
+		this.windowMillis = windowMillis;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request,
+									HttpServletResponse response,
+									FilterChain filterChain) throws ServletException, IOException {
+		boolean write = isWrite(request);
+		if (!write && isPinned(primaryUntil(request), System.currentTimeMillis())) {
+			ReadYourWrites.pin();
+		}
+
+		//Writes finish on an async dispatch, which may be handed the response tracked on the first one
+		WriteResponse tracked = write ? tracking(response) : null;
+		HttpServletResponse forwarded = response;
+		if (write && tracked == null) {
+			tracked = new WriteResponse(response);
+			forwarded = tracked;
+		}
+
+		try {
+			filterChain.doFilter(request, forwarded);
+		} finally {
+			ReadYourWrites.unpin();
+		}
+
+		if (tracked != null && !request.isAsyncStarted()) {
+			tracked.decide();
+		}
+	}
+
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+
+	private boolean isPinned(long primaryUntil, long now) {
+		return primaryUntil > now && primaryUntil <= now + windowMillis;
+	}
+
+	private static boolean isWrite(HttpServletRequest request) {
+		if (HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())) {
+			return false;
+		}
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		return !(HttpMethod.POST.matches(request.getMethod()) && READ_ONLY_POSTS.contains(path));
+	}
+
+	private static WriteResponse tracking(ServletResponse response) {
+		while (response instanceof ServletResponseWrapper) {
+			if (response instanceof WriteResponse) {
+				return (WriteResponse) response;
+			}
+			response = ((ServletResponseWrapper) response).getResponse();
+		}
+		return null;
+	}
+
+	private static long primaryUntil(HttpServletRequest request) {
+		if (request.getCookies() == null) {
+			return 0;
+		}
+		for (Cookie cookie : request.getCookies()) {
+			if (COOKIE_NAME.equals(cookie.getName())) {
+				try {
+					return Long.parseLong(cookie.getValue());
+				} catch (NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * The response to a write, handing out the cookie once the outcome is known: when the body is about to be written,
+	 * or when the write ends without one. Failed writes, which saw nothing new, get none.
+	 */
+	private final class WriteResponse extends HttpServletResponseWrapper {
+
+		private boolean decided;
+
+		private WriteResponse(HttpServletResponse response) {
+			super(response);
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			decide();
+			return super.getOutputStream();
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			decide();
+			return super.getWriter();
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			decide();
+			super.flushBuffer();
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			decided = true;
+			super.sendError(sc, msg);
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			decided = true;
+			super.sendError(sc);
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			decided = true;
+			super.sendRedirect(location);
+		}
+
+		private void decide() {
+			if (decided || isCommitted()) {
+				return;
+			}
+			decided = true;
+			if (getStatus() < 200 || getStatus() >= 300) {
+				return;
+			}
+			Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(System.currentTimeMillis() + windowMillis));
+			cookie.setPath("/");
+			cookie.setHttpOnly(true);
+			cookie.setMaxAge((int) Math.max(1, windowMillis / 1000));
+			addCookie(cookie);
+		}
+	}
+}
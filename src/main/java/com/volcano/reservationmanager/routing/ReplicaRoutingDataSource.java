@@ -0,0 +1,44 @@
+package com.volcano.reservationmanager.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sends read only transactions to a replica and everything else to the primary. Reads fall back to the primary
+ * when no replica is fit or the client has just written.
+ *
+ * Transactions decide whether they are read only after asking for a connection, so this has to sit behind a
+ * LazyConnectionDataSourceProxy, which only fetches the connection on the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	static final String PRIMARY = "primary";
+
+	private final ReplicaSet replicas;
+
+	public ReplicaRoutingDataSource(DataSource primary, ReplicaSet replicas) {
+		this.replicas = replicas;
+
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		for (int i = 0; i < replicas.getReplicas().size(); i++) {
+			targets.put(i, replicas.replica(i));
+		}
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadYourWrites.isPinned()) {
+			return PRIMARY;
+		}
+		Integer replica = replicas.nextHealthy();
+		return replica == null ? PRIMARY : replica;
+	}
+}
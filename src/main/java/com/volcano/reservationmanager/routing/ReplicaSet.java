@@ -0,0 +1,107 @@
+package com.volcano.reservationmanager.routing;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read replicas, one pool each with the primary's settings, and how far behind the primary they are. Replicas
+ * lagging more than the allowed maximum, or not answering, are left out until they catch up.
+ */
+public class ReplicaSet implements DisposableBean {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaSet.class);
+
+	/*
+	 * Time since the last transaction was replayed, while there is WAL received and not replayed yet. Zero when not
+	 * a standby, or when it has replayed everything it received: on a quiet primary nothing new is replayed, and the
+	 * age of the last transaction says nothing about lag.
+	 */
+	private static final String LAG_MILLIS = "SELECT CASE " +
+			"WHEN NOT pg_is_in_recovery() THEN 0 " +
+			"WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+			"ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+	private final List<HikariDataSource> replicas = new ArrayList<>();
+	private final List<JdbcTemplate> probes = new ArrayList<>();
+	private final double[] lagMillis;
+	private final long maxLagMillis;
+	private final AtomicInteger next = new AtomicInteger();
+
+	private volatile List<Integer> healthy = new ArrayList<>();
+
+	public ReplicaSet(HikariConfig primary, List<String> urls, long maxLagMillis, MeterRegistry registry) {
+		this.maxLagMillis = maxLagMillis;
+		this.lagMillis = new double[urls.size()];
+		for (int i = 0; i < urls.size(); i++) {
+			HikariConfig config = new HikariConfig();
+			primary.copyStateTo(config);
+			config.setJdbcUrl(urls.get(i));
+			config.setPoolName("replica-" + i);
+			config.setReadOnly(true);
+			HikariDataSource replica = new HikariDataSource(config);
+			replicas.add(replica);
+			probes.add(new JdbcTemplate(replica));
+
+			int index = i;
+			Gauge.builder("reservations.replica.lag", this, set -> set.lagMillis[index])
+					.tag("replica", config.getPoolName())
+					.baseUnit("milliseconds")
+					.register(registry);
+		}
+	}
+
+	public List<HikariDataSource> getReplicas() {
+		return replicas;
+	}
+
+	/**
+	 * @return the index of the replica to read from next, or null when none is fit to serve reads
+	 */
+	public Integer nextHealthy() {
+		List<Integer> candidates = healthy;
+		if (candidates.isEmpty()) {
+			return null;
+		}
+		return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+	}
+
+	@Scheduled(fixedDelayString = "${reservations.replicas.lag-check-interval:1000}")
+	public void checkLag() {
+		List<Integer> fit = new ArrayList<>();
+		for (int i = 0; i < probes.size(); i++) {
+			try {
+				Double lag = probes.get(i).queryForObject(LAG_MILLIS, Double.class);
+				lagMillis[i] = lag == null ? Double.NaN : lag;
+				if (lag != null && lag <= maxLagMillis) {
+					fit.add(i);
+				}
+			} catch (DataAccessException e) {
+				lagMillis[i] = Double.NaN;
+				LOGGER.warn("Replica {} is not answering, reading from the primary instead", i, e);
+			}
+		}
+		healthy = fit;
+	}
+
+	@Override
+	public void destroy() {
+		replicas.forEach(HikariDataSource::close);
+	}
+
+	DataSource replica(int index) {
+		return replicas.get(index);
+	}
+}
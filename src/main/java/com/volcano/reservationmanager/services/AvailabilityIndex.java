@@ -0,0 +1,89 @@
+package com.volcano.reservationmanager.services;
+
+import com.volcano.reservationmanager.repositories.models.Reservation;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * In-memory view of which days are taken, one bit per epoch day.
+ * It only answers "is this range free?" quickly; the database remains the source of truth.
+ * It may trail the database, as a refresh drops the changes made while it was reading and cancellations on other
+ * instances only show up with the next one: callers confirm days it has as taken before turning a booking down.
+ */
+@Component
+public class AvailabilityIndex {
+
+	private BitSet occupiedDays = new BitSet();
+	private Map<UUID, DayRange> ranges = new HashMap<>();
+
+	public synchronized boolean isAvailable(LocalDate from, LocalDate to, UUID ignoring) {
+		int first = epochDay(from);
+		int last = epochDay(to);
+		if (last < first) {
+			return true;
+		}
+
+		BitSet conflicts = occupiedDays.get(first, last + 1);
+
+		//Days held by the reservation being edited are not a conflict
+		DayRange own = ignoring == null ? null : ranges.get(ignoring);
+		if (own != null) {
+			int lo = Math.max(own.first, first);
+			int hi = Math.min(own.last, last);
+			if (lo <= hi) {
+				conflicts.clear(lo - first, hi - first + 1);
+			}
+		}
+
+		return conflicts.isEmpty();
+	}
+
+	public synchronized void occupy(UUID reservationId, LocalDate from, LocalDate to) {
+		release(reservationId);
+		DayRange range = new DayRange(epochDay(from), epochDay(to));
+		occupiedDays.set(range.first, range.last + 1);
+		ranges.put(reservationId, range);
+	}
+
+	public synchronized void release(UUID reservationId) {
+		DayRange range = ranges.remove(reservationId);
+		if (range != null) {
+			occupiedDays.clear(range.first, range.last + 1);
+		}
+	}
+
+	public void replaceAll(Stream<Reservation> reservations) {
+		BitSet days = new BitSet();
+		Map<UUID, DayRange> byId = new HashMap<>();
+		reservations.forEach(r -> {
+			DayRange range = new DayRange(epochDay(r.getStartDate()), epochDay(r.getEndDate()));
+			days.set(range.first, range.last + 1);
+			byId.put(r.getId(), range);
+		});
+
+		synchronized (this) {
+			occupiedDays = days;
+			ranges = byId;
+		}
+	}
+
+	private static int epochDay(LocalDate date) {
+		return Math.toIntExact(date.toEpochDay());
+	}
+
+	private static final class DayRange {
+		private final int first;
+		private final int last;
+
+		private DayRange(int first, int last) {
+			this.first = first;
+			this.last = last;
+		}
+	}
+}
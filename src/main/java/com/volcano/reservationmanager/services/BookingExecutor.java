@@ -0,0 +1,112 @@
+package com.volcano.reservationmanager.services;
+
+import com.volcano.reservationmanager.exceptions.ServiceBusyException;
+import com.volcano.reservationmanager.profiling.SqlProfile;
+import com.volcano.reservationmanager.profiling.SqlProfiler;
+import com.volcano.reservationmanager.routing.ReadYourWrites;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs bookings off the container threads, on a bounded pool about the size of the database pool, so a burst of
+ * slow writes queues here while listings keep being served. Once the queue is full bookings are turned away with
+ * a {@link ServiceBusyException}. The SQL profile and read-your-writes pin of the caller carry over to the booking.
+ */
+@Component
+public class BookingExecutor {
+
+	private final ThreadPoolExecutor executor;
+	private final SqlProfiler profiler;
+	private final Timer wait;
+	private final Counter rejected;
+
+	public BookingExecutor(MeterRegistry registry,
+						   ObjectProvider<SqlProfiler> profiler,
+						   @Value("${reservations.booking-executor.threads:10}") int threads,
+						   @Value("${reservations.booking-executor.queue-capacity:200}") int queueCapacity) {
+		AtomicInteger count = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				runnable -> {
+					Thread thread = new Thread(runnable, "booking-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.executor.allowCoreThreadTimeOut(true);
+		this.profiler = profiler.getIfAvailable();
+
+		this.wait = Timer.builder("reservations.booking-executor.wait").register(registry);
+		this.rejected = registry.counter("reservations.booking-executor.rejected");
+		Gauge.builder("reservations.booking-executor.queued", executor, e -> e.getQueue().size()).register(registry);
+		Gauge.builder("reservations.booking-executor.active", executor, ThreadPoolExecutor::getActiveCount)
+				.register(registry);
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		executor.shutdown();
+		executor.awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	public <T> CompletableFuture<T> submit(Supplier<T> booking) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		SqlProfile profile = profiler == null ? null : profiler.current();
+		boolean pinned = ReadYourWrites.isPinned();
+		long queuedAt = System.nanoTime();
+		try {
+			executor.execute(() -> {
+				wait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+				bind(profile, pinned);
+				try {
+					result.complete(booking.get());
+				} catch (RuntimeException e) {
+					result.completeExceptionally(e);
+				} finally {
+					unbind();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			result.completeExceptionally(
+					new ServiceBusyException("Too many bookings being made. Try again, please.", e));
+		}
+		return result;
+	}
+
+	public CompletableFuture<Void> submit(Runnable booking) {
+		return submit(() -> {
+			booking.run();
+			return null;
+		});
+	}
+
+	private void bind(SqlProfile profile, boolean pinned) {
+		if (profiler != null && profile != null) {
+			profiler.bind(profile);
+		}
+		if (pinned) {
+			ReadYourWrites.pin();
+		}
+	}
+
+	private void unbind() {
+		if (profiler != null) {
+			profiler.unbind();
+		}
+		ReadYourWrites.unpin();
+	}
+}
@@ -0,0 +1,97 @@
+package com.volcano.reservationmanager.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Transaction scoped Postgres advisory locks, shared by every instance of the service.
+ * Locks are always taken guests first, in email order, and then day by day in ascending order, so two bookings
+ * can never deadlock.
+ */
+@Component
+public class BookingLockManager {
+
+	// First key of the two-key advisory lock functions, to keep clear of any other advisory lock user
+	static final int GUEST_NAMESPACE = 0x52534701;
+	static final int DAY_NAMESPACE = 0x52534702;
+
+	private static final String LOCK_GUEST = "SELECT pg_advisory_xact_lock(?, hashtext(?))";
+	private static final String LOCK_DAYS = "SELECT pg_advisory_xact_lock(?, day) FROM generate_series(?, ?) AS day";
+
+	private static final RowCallbackHandler IGNORE = rs -> { };
+
+	private final JdbcTemplate jdbcTemplate;
+	private final Timer lockWait;
+
+	public BookingLockManager(JdbcTemplate jdbcTemplate, MeterRegistry registry) {
+		this.jdbcTemplate = jdbcTemplate;
+		//Time spent queueing behind other bookings for the same guest or days
+		this.lockWait = registry.timer("reservations.locks.wait");
+	}
+
+	/**
+	 * Blocks until the current transaction holds the lock for the guest and for every day of the given ranges.
+	 * Ranges are given as (from, to) pairs, both inclusive.
+	 */
+	public void lock(String email, LocalDate... ranges) {
+		lock(Collections.singleton(email), ranges);
+	}
+
+	public void lock(Collection<String> emails, LocalDate... ranges) {
+		lockWait.record(() -> lockAll(emails, ranges));
+	}
+
+	private void lockAll(Collection<String> emails, LocalDate... ranges) {
+		for (String email : new TreeSet<>(emails)) {
+			jdbcTemplate.query(LOCK_GUEST, IGNORE, GUEST_NAMESPACE, email);
+		}
+		// generate_series hands the days of each run out in ascending order
+		for (int[] run : runs(days(ranges))) {
+			jdbcTemplate.query(LOCK_DAYS, IGNORE, DAY_NAMESPACE, run[0], run[1]);
+		}
+	}
+
+	static SortedSet<Integer> days(LocalDate... ranges) {
+		SortedSet<Integer> days = new TreeSet<>();
+		for (int i = 0; i + 1 < ranges.length; i += 2) {
+			for (LocalDate day = ranges[i]; !day.isAfter(ranges[i + 1]); day = day.plusDays(1)) {
+				days.add(Math.toIntExact(day.toEpochDay()));
+			}
+		}
+		return days;
+	}
+
+	// Runs of consecutive days as (first, last) pairs, one statement each
+	static List<int[]> runs(Collection<Integer> days) {
+		List<int[]> runs = new ArrayList<>();
+		Iterator<Integer> iterator = days.iterator();
+		if (!iterator.hasNext()) {
+			return runs;
+		}
+
+		int first = iterator.next();
+		int last = first;
+		while (iterator.hasNext()) {
+			int day = iterator.next();
+			if (day != last + 1) {
+				runs.add(new int[]{first, last});
+				first = day;
+			}
+			last = day;
+		}
+		runs.add(new int[]{first, last});
+		return runs;
+	}
+}
@@ -0,0 +1,223 @@
+package com.volcano.reservationmanager.services;
+
+import com.volcano.reservationmanager.exceptions.InvalidReservationException;
+import com.volcano.reservationmanager.exceptions.NotFoundException;
+import com.volcano.reservationmanager.exceptions.ServiceBusyException;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+
+/**
+ * Optional single-writer mode for bookings. Mutations are queued in a bounded buffer and one thread commits them in
+ * batches, one transaction per batch. If a batch fails in the database, its commands are replayed one transaction
+ * each, so a single conflicting booking never takes the others down with it.
+ */
+@Component
+@ConditionalOnProperty(name = "reservations.sequencer.enabled", havingValue = "true")
+public class BookingSequencer {
+
+	private final ReservationService service;
+	private final BookingLockManager lockManager;
+	private final TransactionTemplate transactionTemplate;
+	private final BlockingQueue<Command<?>> queue;
+	private final int batchSize;
+	private final Thread writer;
+
+	private volatile boolean running = true;
+
+	public BookingSequencer(ReservationService service,
+							BookingLockManager lockManager,
+							PlatformTransactionManager transactionManager,
+							@Value("${reservations.sequencer.capacity:1024}") int capacity,
+							@Value("${reservations.sequencer.batch-size:64}") int batchSize) {
+		this.service = service;
+		this.lockManager = lockManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.batchSize = batchSize;
+		this.writer = new Thread(this::run, "booking-sequencer");
+		this.writer.setDaemon(true);
+	}
+
+	@PostConstruct
+	public void start() {
+		writer.start();
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		writer.join(TimeUnit.SECONDS.toMillis(5));
+		queue.forEach(command -> command.result.completeExceptionally(
+				new ServiceBusyException("Service is shutting down. Try again, please.")));
+	}
+
+	public CompletableFuture<ReservationDTO> create(ReservationDTO reservation) {
+		return submit(new Command<>(reservation, false, reservationService -> reservationService.applyCreate(reservation)));
+	}
+
+	public CompletableFuture<ReservationDTO> edit(ReservationDTO reservation) {
+		return submit(new Command<>(reservation, true, reservationService -> reservationService.applyEdit(reservation)));
+	}
+
+	public CompletableFuture<Void> cancel(UUID reservationId) {
+		return submit(new Command<>(null, false, reservationService -> {
+			reservationService.applyCancel(reservationId);
+			return null;
+		}));
+	}
+
+	private <T> CompletableFuture<T> submit(Command<T> command) {
+		if (!running || !queue.offer(command)) {
+			command.result.completeExceptionally(
+					new ServiceBusyException("Too many bookings being made. Try again, please."));
+		}
+		return command.result;
+	}
+
+	private void run() {
+		List<Command<?>> carried = new ArrayList<>();
+		while (running || !queue.isEmpty() || !carried.isEmpty()) {
+			List<Command<?>> batch = new ArrayList<>(carried);
+			carried.clear();
+			try {
+				if (batch.isEmpty()) {
+					Command<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+					if (first == null) {
+						continue;
+					}
+					batch.add(first);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			queue.drainTo(batch, batchSize - batch.size());
+			process(batch, carried);
+		}
+	}
+
+	private void process(List<Command<?>> batch, List<Command<?>> carried) {
+		//Bookings for days already claimed in this batch wait for the next one, so they validate against committed state
+		Set<LocalDate> claimedDays = new HashSet<>();
+		Set<String> guests = new HashSet<>();
+		List<LocalDate> ranges = new ArrayList<>();
+		List<Command<?>> accepted = new ArrayList<>();
+		for (Command<?> command : batch) {
+			if (command.isBooking()) {
+				List<LocalDate> days = command.days();
+				if (days.stream().anyMatch(claimedDays::contains)) {
+					carried.add(command);
+					continue;
+				}
+				claimedDays.addAll(days);
+				guests.add(command.reservation.getEmail());
+				ranges.add(command.reservation.getFrom());
+				ranges.add(command.reservation.getTo());
+			}
+			accepted.add(command);
+		}
+
+		List<Runnable> completions = new ArrayList<>();
+		try {
+			transactionTemplate.execute(status -> {
+				//Take every lock up front, in the global order, so concurrent batches cannot deadlock. That includes the
+				//days edits move away from, which the stored guest's lock keeps from changing until the batch commits.
+				accepted.stream()
+						.filter(Command::isEdit)
+						.forEach(command -> service.findStored(command.reservation.getId()).ifPresent(stored -> {
+							guests.add(stored.getEmail());
+							ranges.add(stored.getFrom());
+							ranges.add(stored.getTo());
+						}));
+				lockManager.lock(guests, ranges.toArray(new LocalDate[0]));
+				accepted.forEach(command -> completions.add(command.apply(service)));
+				return null;
+			});
+		} catch (RuntimeException batchFailure) {
+			accepted.forEach(this::processAlone);
+			return;
+		}
+		completions.forEach(Runnable::run);
+	}
+
+	private void processAlone(Command<?> command) {
+		try {
+			transactionTemplate.execute(status -> command.apply(service)).run();
+		} catch (RuntimeException e) {
+			command.result.completeExceptionally(e);
+		}
+	}
+
+	private static final class Command<T> {
+		private final ReservationDTO reservation;
+		private final boolean edit;
+		private final Function<ReservationService, T> action;
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+
+		private Command(ReservationDTO reservation, boolean edit, Function<ReservationService, T> action) {
+			this.reservation = reservation;
+			this.edit = edit;
+			this.action = action;
+		}
+
+		// Ranges the service is going to reject anyway do not claim nor lock anything
+		private boolean isBooking() {
+			if (reservation == null || reservation.getFrom() == null || reservation.getTo() == null) {
+				return false;
+			}
+			long length = DAYS.between(reservation.getFrom(), reservation.getTo());
+			return length >= 0 && length <= ReservationService.MAX_RESERVATION_DAYS;
+		}
+
+		private boolean isEdit() {
+			return edit && isBooking() && reservation.getId() != null;
+		}
+
+		private List<LocalDate> days() {
+			List<LocalDate> days = new ArrayList<>();
+			for (LocalDate day = reservation.getFrom(); !day.isAfter(reservation.getTo()); day = day.plusDays(1)) {
+				days.add(day);
+			}
+			return days;
+		}
+
+		/**
+		 * Runs the command in the current transaction and returns how to complete its caller once that commits.
+		 * Rule violations are the caller's answer and leave the transaction usable; anything else aborts the batch.
+		 */
+		private Runnable apply(ReservationService service) {
+			try {
+				T value = action.apply(service);
+				return () -> result.complete(value);
+			} catch (InvalidReservationException | NotFoundException e) {
+				if (e.getCause() != null) {
+					throw e;
+				}
+				return () -> result.completeExceptionally(e);
+			}
+		}
+	}
+}
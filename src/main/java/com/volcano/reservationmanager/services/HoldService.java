@@ -0,0 +1,78 @@
+package com.volcano.reservationmanager.services;
+
+import com.volcano.reservationmanager.exceptions.InvalidReservationException;
+import com.volcano.reservationmanager.exceptions.NotFoundException;
+import com.volcano.reservationmanager.exceptions.ReservationConflictException;
+import com.volcano.reservationmanager.models.HoldDTO;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Two step bookings. Racing for the days is settled by a cheap claim on the hold store; confirming then writes the
+ * reservation, which nobody else is competing for any more.
+ */
+@Service
+public class HoldService {
+
+	private final HoldStore holdStore;
+	private final ReservationService reservationService;
+	private final long timeToLiveMillis;
+	private final int maxPerGuest;
+
+	public HoldService(HoldStore holdStore,
+					   ReservationService reservationService,
+					   @Value("${reservations.holds.time-to-live:120000}") long timeToLiveMillis,
+					   @Value("${reservations.holds.max-per-guest:1}") int maxPerGuest) {
+		this.holdStore = holdStore;
+		this.reservationService = reservationService;
+		this.timeToLiveMillis = timeToLiveMillis;
+		this.maxPerGuest = maxPerGuest;
+	}
+
+	/**
+	 * Holds the days for the guest, who may have no valid booking and only maxPerGuest holds at a time, so that
+	 * nobody can keep days from everyone else by holding them over and over.
+	 */
+	@Timed("reservations.service")
+	public HoldDTO hold(HoldDTO request) {
+		reservationService.validateBookable(request.toReservation());
+		reservationService.validateGuestUnbooked(request.toReservation());
+
+		HoldDTO hold = new HoldDTO(
+				UUID.randomUUID(),
+				request.getName(),
+				request.getEmail(),
+				request.getFrom(),
+				request.getTo(),
+				Instant.now().plusMillis(timeToLiveMillis));
+		switch (holdStore.claim(hold, maxPerGuest)) {
+			case TOO_MANY_HOLDS:
+				throw new InvalidReservationException(
+						"You are holding other dates already. Confirm or release them first, please.");
+			case DAYS_HELD:
+				throw new ReservationConflictException("Those dates are being booked by someone else. Try again later, please.");
+			default:
+				return hold;
+		}
+	}
+
+	@Timed("reservations.service")
+	public ReservationDTO confirm(UUID holdId) {
+		HoldDTO hold = holdStore.find(holdId)
+				.orElseThrow(() -> new NotFoundException(String.format("Hold %s not found or expired", holdId)));
+
+		ReservationDTO reservation = reservationService.createReservation(hold.toReservation(), holdId);
+		holdStore.release(holdId);
+		return reservation;
+	}
+
+	@Timed("reservations.service")
+	public void release(UUID holdId) {
+		holdStore.release(holdId);
+	}
+}
@@ -0,0 +1,36 @@
+package com.volcano.reservationmanager.services;
+
+import com.volcano.reservationmanager.models.HoldDTO;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Where holds live until they are confirmed, released or expire.
+ */
+public interface HoldStore {
+
+	enum Claim {
+		CLAIMED,
+		// Some day is held by another hold
+		DAYS_HELD,
+		// The guest already has maxPerGuest other holds
+		TOO_MANY_HOLDS
+	}
+
+	/**
+	 * Atomically claims every day of the hold, until its expiry, unless its guest already has maxPerGuest other
+	 * holds. Claims nothing unless it returns CLAIMED.
+	 */
+	Claim claim(HoldDTO hold, int maxPerGuest);
+
+	Optional<HoldDTO> find(UUID holdId);
+
+	/**
+	 * @return whether any day between from and to, inclusive, is held by a hold other than holdId
+	 */
+	boolean isHeldByOther(LocalDate from, LocalDate to, UUID holdId);
+
+	void release(UUID holdId);
+}
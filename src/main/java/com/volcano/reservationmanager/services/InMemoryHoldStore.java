@@ -0,0 +1,112 @@
+package com.volcano.reservationmanager.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.volcano.reservationmanager.models.HoldDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Holds kept by this instance only, which is enough while a single instance takes bookings. Each hold expires at
+ * its own time through Caffeine's timer wheel; days whose holder is gone count as free straight away.
+ */
+@Component
+@ConditionalOnProperty(name = "reservations.holds.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryHoldStore implements HoldStore {
+
+	private final Map<Long, UUID> holderByDay = new HashMap<>();
+	private final Cache<UUID, HoldDTO> holds;
+
+	public InMemoryHoldStore() {
+		this.holds = Caffeine.newBuilder()
+				.expireAfter(new UntilExpiry())
+				.<UUID, HoldDTO>removalListener((holdId, hold, cause) -> {
+					if (hold != null) {
+						releaseDays(hold);
+					}
+				})
+				.build();
+	}
+
+	@Override
+	public synchronized Claim claim(HoldDTO hold, int maxPerGuest) {
+		long others = holds.asMap().values().stream()
+				.filter(other -> !other.getId().equals(hold.getId()) && sameGuest(other, hold))
+				.count();
+		if (others >= maxPerGuest) {
+			return Claim.TOO_MANY_HOLDS;
+		}
+		for (long day = hold.getFrom().toEpochDay(); day <= hold.getTo().toEpochDay(); day++) {
+			if (isHeldByOther(day, hold.getId())) {
+				return Claim.DAYS_HELD;
+			}
+		}
+		for (long day = hold.getFrom().toEpochDay(); day <= hold.getTo().toEpochDay(); day++) {
+			holderByDay.put(day, hold.getId());
+		}
+		holds.put(hold.getId(), hold);
+		return Claim.CLAIMED;
+	}
+
+	@Override
+	public Optional<HoldDTO> find(UUID holdId) {
+		return Optional.ofNullable(holds.getIfPresent(holdId));
+	}
+
+	@Override
+	public synchronized boolean isHeldByOther(LocalDate from, LocalDate to, UUID holdId) {
+		for (long day = from.toEpochDay(); day <= to.toEpochDay(); day++) {
+			if (isHeldByOther(day, holdId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void release(UUID holdId) {
+		holds.invalidate(holdId);
+	}
+
+	private boolean isHeldByOther(long day, UUID holdId) {
+		UUID holder = holderByDay.get(day);
+		return holder != null && !holder.equals(holdId) && holds.getIfPresent(holder) != null;
+	}
+
+	private static boolean sameGuest(HoldDTO hold, HoldDTO other) {
+		return hold.getEmail().equalsIgnoreCase(other.getEmail());
+	}
+
+	private synchronized void releaseDays(HoldDTO hold) {
+		for (long day = hold.getFrom().toEpochDay(); day <= hold.getTo().toEpochDay(); day++) {
+			holderByDay.remove(day, hold.getId());
+		}
+	}
+
+	private static final class UntilExpiry implements Expiry<UUID, HoldDTO> {
+
+		@Override
+		public long expireAfterCreate(UUID holdId, HoldDTO hold, long currentTime) {
+			return Math.max(0, Duration.between(Instant.now(), hold.getExpiresAt()).toNanos());
+		}
+
+		@Override
+		public long expireAfterUpdate(UUID holdId, HoldDTO hold, long currentTime, long currentDuration) {
+			return expireAfterCreate(holdId, hold, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(UUID holdId, HoldDTO hold, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package com.volcano.reservationmanager.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volcano.reservationmanager.models.HoldDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Holds shared by every instance. A hold is one key with the hold itself plus one key per day naming the holder,
+ * all expiring with the hold, and a sorted set per guest of their holds by expiry. Claims run as a script so they
+ * are atomic. Keys share the {holds} hash tag so the script also works on a cluster.
+ */
+@Component
+@ConditionalOnProperty(name = "reservations.holds.store", havingValue = "redis")
+public class RedisHoldStore implements HoldStore {
+
+	private static final String KEY_PREFIX = "reservations:{holds}:";
+
+	// KEYS: hold, guest, days... ARGV: hold id, ttl in ms, hold, now in ms, max holds per guest
+	private static final RedisScript<Long> CLAIM = new DefaultRedisScript<>(
+			"redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[4])\n" +
+			"local others = redis.call('ZCARD', KEYS[2])\n" +
+			"if redis.call('ZSCORE', KEYS[2], ARGV[1]) then others = others - 1 end\n" +
+			"if others >= tonumber(ARGV[5]) then return -1 end\n" +
+			"for i = 3, #KEYS do\n" +
+			"  local holder = redis.call('GET', KEYS[i])\n" +
+			"  if holder and holder ~= ARGV[1] then return 0 end\n" +
+			"end\n" +
+			"for i = 3, #KEYS do redis.call('SET', KEYS[i], ARGV[1], 'PX', ARGV[2]) end\n" +
+			"redis.call('SET', KEYS[1], ARGV[3], 'PX', ARGV[2])\n" +
+			"redis.call('ZADD', KEYS[2], tonumber(ARGV[4]) + tonumber(ARGV[2]), ARGV[1])\n" +
+			"if redis.call('PTTL', KEYS[2]) < tonumber(ARGV[2]) then redis.call('PEXPIRE', KEYS[2], ARGV[2]) end\n" +
+			"return 1",
+			Long.class);
+
+	// KEYS: hold, guest, days... ARGV: hold id
+	private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+			"for i = 3, #KEYS do\n" +
+			"  if redis.call('GET', KEYS[i]) == ARGV[1] then redis.call('DEL', KEYS[i]) end\n" +
+			"end\n" +
+			"redis.call('ZREM', KEYS[2], ARGV[1])\n" +
+			"return redis.call('DEL', KEYS[1])",
+			Long.class);
+
+	private final StringRedisTemplate redisTemplate;
+	private final ObjectMapper objectMapper;
+
+	public RedisHoldStore(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+		this.redisTemplate = redisTemplate;
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	public Claim claim(HoldDTO hold, int maxPerGuest) {
+		Instant now = Instant.now();
+		long ttl = Duration.between(now, hold.getExpiresAt()).toMillis();
+		if (ttl <= 0) {
+			return Claim.DAYS_HELD;
+		}
+		Long claimed = redisTemplate.execute(CLAIM, keys(hold), hold.getId().toString(), Long.toString(ttl),
+				write(hold), Long.toString(now.toEpochMilli()), Integer.toString(maxPerGuest));
+		if (Long.valueOf(1).equals(claimed)) {
+			return Claim.CLAIMED;
+		}
+		return Long.valueOf(-1).equals(claimed) ? Claim.TOO_MANY_HOLDS : Claim.DAYS_HELD;
+	}
+
+	@Override
+	public Optional<HoldDTO> find(UUID holdId) {
+		return Optional.ofNullable(redisTemplate.opsForValue().get(holdKey(holdId))).map(this::read);
+	}
+
+	@Override
+	public boolean isHeldByOther(LocalDate from, LocalDate to, UUID holdId) {
+		List<String> holders = redisTemplate.opsForValue().multiGet(dayKeys(from, to));
+		String own = holdId == null ? null : holdId.toString();
+		return holders != null && holders.stream().anyMatch(holder -> holder != null && !holder.equals(own));
+	}
+
+	@Override
+	public void release(UUID holdId) {
+		find(holdId).ifPresent(hold -> redisTemplate.execute(RELEASE, keys(hold), holdId.toString()));
+	}
+
+	private List<String> keys(HoldDTO hold) {
+		List<String> keys = new ArrayList<>();
+		keys.add(holdKey(hold.getId()));
+		keys.add(guestKey(hold.getEmail()));
+		keys.addAll(dayKeys(hold.getFrom(), hold.getTo()));
+		return keys;
+	}
+
+	private static String holdKey(UUID holdId) {
+		return KEY_PREFIX + "hold:" + holdId;
+	}
+
+	private static String guestKey(String email) {
+		return KEY_PREFIX + "guest:" + email.toLowerCase(Locale.ROOT);
+	}
+
+	private static List<String> dayKeys(LocalDate from, LocalDate to) {
+		List<String> keys = new ArrayList<>();
+		for (long day = from.toEpochDay(); day <= to.toEpochDay(); day++) {
+			keys.add(KEY_PREFIX + "day:" + day);
+		}
+		return keys;
+	}
+
+	private String write(HoldDTO hold) {
+		try {
+			return objectMapper.writeValueAsString(hold);
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private HoldDTO read(String hold) {
+		try {
+			return objectMapper.readValue(hold, HoldDTO.class);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.volcano.reservationmanager.services;
+
+import com.volcano.reservationmanager.models.OutboxPosition;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.models.ReservationEvent;
+import com.volcano.reservationmanager.repositories.models.Reservation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Changes to reservations, appended by the transaction making them, for the read model to replay in order.
+ *
+ * Appending takes no lock, so writers for other days never wait on each other here and events commit in any order.
+ * Each event records its transaction id instead, and readers only return events of transactions that had all
+ * finished before their snapshot, in (txid, id) order; see {@link OutboxPosition}. Changes to one reservation are
+ * made under its booking locks, after the previous change committed, so they replay in the order they were made.
+ */
+@Component
+public class ReservationOutbox {
+
+	// The transaction id comes from the column default
+	private static final String APPEND = "INSERT INTO reservation_event " +
+			"(type, reservation_id, name, email, start_date, end_date, occurred_at) " +
+			"VALUES (?, ?::uuid, ?, ?, ?::date, ?::date, clock_timestamp())";
+
+	private static final String READ = "SELECT txid, id, type, reservation_id, name, email, start_date, end_date, " +
+			"EXTRACT(EPOCH FROM clock_timestamp() - occurred_at) * 1000 AS age_millis " +
+			"FROM reservation_event " +
+			"WHERE (txid, id) > (?, ?) AND txid < txid_snapshot_xmin(txid_current_snapshot()) " +
+			"ORDER BY txid, id LIMIT ?";
+
+	private static final String START = "SELECT txid_snapshot_xmin(txid_current_snapshot())";
+
+	private static final String PURGE =
+			"DELETE FROM reservation_event WHERE occurred_at < clock_timestamp() - ? * INTERVAL '1 millisecond'";
+
+	private static final RowMapper<ReservationEvent> EVENT = (rs, row) -> new ReservationEvent(
+			rs.getLong("txid"),
+			rs.getLong("id"),
+			ReservationEvent.Type.valueOf(rs.getString("type")),
+			new ReservationDTO(
+					rs.getObject("reservation_id", UUID.class),
+					rs.getString("name"),
+					rs.getString("email"),
+					rs.getDate("start_date").toLocalDate(),
+					rs.getDate("end_date").toLocalDate()),
+			rs.getLong("age_millis"));
+
+	private final JdbcTemplate jdbcTemplate;
+	private final long retentionMillis;
+
+	public ReservationOutbox(JdbcTemplate jdbcTemplate,
+							 @Value("${reservations.outbox.retention-ms:604800000}") long retentionMillis) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.retentionMillis = retentionMillis;
+	}
+
+	// Must run in the transaction making the change
+	public void append(ReservationEvent.Type type, Reservation reservation) {
+		jdbcTemplate.update(APPEND,
+				type.name(),
+				reservation.getId(),
+				reservation.getName(),
+				reservation.getEmail(),
+				reservation.getStartDate(),
+				reservation.getEndDate());
+	}
+
+	/**
+	 * @return up to limit events following the given position, in order, leaving out those of transactions that
+	 * were still running
+	 */
+	public List<ReservationEvent> read(OutboxPosition after, int limit) {
+		return jdbcTemplate.query(READ, EVENT, after.getTxid(), after.getEventId(), limit);
+	}
+
+	/**
+	 * Where a reader of what the current transaction sees starts: before the events of every transaction that had
+	 * not finished when its snapshot was taken. Some of those may be in the snapshot already, and are read again.
+	 */
+	public OutboxPosition start() {
+		return OutboxPosition.before(jdbcTemplate.queryForObject(START, Long.class));
+	}
+
+	// Readers load a snapshot of the reservations on startup, so old events are only kept for the ones lagging
+	@Scheduled(fixedDelayString = "${reservations.outbox.purge-interval:3600000}")
+	public void purge() {
+		jdbcTemplate.update(PURGE, retentionMillis);
+	}
+}
@@ -0,0 +1,106 @@
+package com.volcano.reservationmanager.services;
+
+import com.volcano.reservationmanager.converters.ReservationConverter;
+import com.volcano.reservationmanager.models.OutboxPosition;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.models.ReservationEvent;
+import com.volcano.reservationmanager.repositories.models.ReservationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the read model, and this instance's availability index, up to date with the outbox. Each instance runs its
+ * own: on startup it loads a snapshot of the reservations, and from then on replays the events that follow it.
+ */
+@Component
+@ConditionalOnProperty(name = "reservations.read-model.enabled", havingValue = "true")
+public class ReservationProjector {
+
+	private final ReservationOutbox outbox;
+	private final ReservationRepository repository;
+	private final ReservationConverter reservationConverter;
+	private final ReservationReadModel readModel;
+	private final AvailabilityIndex availabilityIndex;
+	private final TransactionTemplate snapshotTemplate;
+	private final TransactionTemplate readTemplate;
+	private final int batchSize;
+	private final Timer lag;
+
+	public ReservationProjector(ReservationOutbox outbox,
+								ReservationRepository repository,
+								ReservationConverter reservationConverter,
+								ReservationReadModel readModel,
+								AvailabilityIndex availabilityIndex,
+								PlatformTransactionManager transactionManager,
+								MeterRegistry registry,
+								@Value("${reservations.read-model.batch-size:500}") int batchSize) {
+		this.outbox = outbox;
+		this.repository = repository;
+		this.reservationConverter = reservationConverter;
+		this.readModel = readModel;
+		this.availabilityIndex = availabilityIndex;
+		this.batchSize = batchSize;
+
+		//The snapshot and the position to read on from have to come from the same point in time
+		this.snapshotTemplate = new TransactionTemplate(transactionManager);
+		this.snapshotTemplate.setReadOnly(true);
+		this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+		this.readTemplate = new TransactionTemplate(transactionManager);
+		this.readTemplate.setReadOnly(true);
+
+		//Time between a change committing and the read model applying it
+		this.lag = Timer.builder("reservations.read-model.lag").register(registry);
+		Gauge.builder("reservations.read-model.position", readModel,
+				model -> model.isReady() ? model.getPosition().getEventId() : Double.NaN)
+				.register(registry);
+	}
+
+	@Scheduled(fixedDelayString = "${reservations.read-model.poll-interval:100}")
+	public void poll() {
+		if (!readModel.isReady()) {
+			load();
+		}
+
+		List<ReservationEvent> events;
+		do {
+			events = readTemplate.execute(status -> outbox.read(readModel.getPosition(), batchSize));
+			events.forEach(this::apply);
+		} while (events.size() >= batchSize);
+	}
+
+	private void load() {
+		snapshotTemplate.execute(status -> {
+			OutboxPosition position = outbox.start();
+			List<ReservationDTO> reservations = repository.findAll().stream()
+					.map(reservationConverter::toDTO)
+					.collect(Collectors.toList());
+			readModel.load(reservations, position);
+			return null;
+		});
+	}
+
+	private void apply(ReservationEvent event) {
+		if (!readModel.apply(event)) {
+			return;
+		}
+		ReservationDTO reservation = event.getReservation();
+		if (event.getType() == ReservationEvent.Type.CANCELLED) {
+			availabilityIndex.release(reservation.getId());
+		} else {
+			availabilityIndex.occupy(reservation.getId(), reservation.getFrom(), reservation.getTo());
+		}
+		lag.record(Math.max(0, event.getAgeMillis()), TimeUnit.MILLISECONDS);
+	}
+}
@@ -0,0 +1,166 @@
+package com.volcano.reservationmanager.services;
+
+import com.volcano.reservationmanager.models.OutboxPosition;
+import com.volcano.reservationmanager.models.ReservationCursor;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.models.ReservationEvent;
+import com.volcano.reservationmanager.models.ReservationPage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+
+/**
+ * In-memory copy of the reservations, kept by the ReservationProjector from the outbox, that answers listings and
+ * availability without touching the tables bookings lock. It trails the database by the time the projector takes
+ * to pick up new events. No two reservations share a day, so even years of them take little memory.
+ */
+@Component
+@ConditionalOnProperty(name = "reservations.read-model.enabled", havingValue = "true")
+public class ReservationReadModel {
+
+	// Sorts before any reservation starting on the same day
+	private static final UUID FIRST_ID = new UUID(0, 0);
+
+	private final NavigableSet<ReservationDTO> byStartDate = new TreeSet<>(ReservationCursor.ORDER);
+	private final Map<UUID, ReservationDTO> byId = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// Last event applied, null until the first snapshot is loaded
+	private volatile OutboxPosition position;
+
+	public boolean isReady() {
+		return position != null;
+	}
+
+	public OutboxPosition getPosition() {
+		return position;
+	}
+
+	/**
+	 * Replaces the contents with a snapshot of the reservations, which the events after the given position follow.
+	 */
+	public void load(Collection<ReservationDTO> reservations, OutboxPosition position) {
+		lock.writeLock().lock();
+		try {
+			byStartDate.clear();
+			byId.clear();
+			reservations.forEach(this::put);
+			this.position = position;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Applies the event, unless it was applied already. Events carry the whole reservation, so applying one that the
+	 * snapshot already had, in order with the ones after it, leaves the model as it was.
+	 * @return whether the event was applied
+	 */
+	public boolean apply(ReservationEvent event) {
+		lock.writeLock().lock();
+		try {
+			if (event.getPosition().compareTo(position) <= 0) {
+				return false;
+			}
+			remove(event.getReservation().getId());
+			if (event.getType() != ReservationEvent.Type.CANCELLED) {
+				put(event.getReservation());
+			}
+			position = event.getPosition();
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// Same listing as ReservationService.findReservations
+	public ReservationPage findReservations(LocalDate from, LocalDate to, String continuationToken, int size) {
+		ReservationService.validateListingRange(from, to);
+		int limit = Math.max(1, Math.min(size, ReservationService.MAX_PAGE_SIZE));
+		ReservationCursor cursor = continuationToken == null ? null : ReservationCursor.decode(continuationToken);
+		LocalDate firstStart = from.minusDays(ReservationService.MAX_RESERVATION_DAYS);
+
+		// One extra reservation tells whether there is a next page
+		List<ReservationDTO> found = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			NavigableSet<ReservationDTO> candidates = cursor == null
+					? byStartDate.tailSet(key(firstStart, FIRST_ID), true)
+					: byStartDate.tailSet(key(cursor.getStartDate(), cursor.getId()), false);
+			for (ReservationDTO reservation : candidates) {
+				if (reservation.getFrom().isAfter(to) || found.size() > limit) {
+					break;
+				}
+				if (!reservation.getTo().isBefore(from)) {
+					found.add(reservation);
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		return ReservationPage.of(found, limit);
+	}
+
+	/**
+	 * Days between from and to, both inclusive, that no reservation takes.
+	 */
+	public List<LocalDate> findAvailableDays(LocalDate from, LocalDate to) {
+		ReservationService.validateAvailabilityRange(from, to);
+		int length = Math.toIntExact(DAYS.between(from, to)) + 1;
+		BitSet taken = new BitSet(length);
+
+		lock.readLock().lock();
+		try {
+			LocalDate firstStart = from.minusDays(ReservationService.MAX_RESERVATION_DAYS);
+			for (ReservationDTO reservation : byStartDate.tailSet(key(firstStart, FIRST_ID), true)) {
+				if (reservation.getFrom().isAfter(to)) {
+					break;
+				}
+				int first = Math.max(0, (int) DAYS.between(from, reservation.getFrom()));
+				int last = Math.min(length - 1, (int) DAYS.between(from, reservation.getTo()));
+				if (first <= last) {
+					taken.set(first, last + 1);
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		List<LocalDate> available = new ArrayList<>();
+		for (int day = taken.nextClearBit(0); day < length; day = taken.nextClearBit(day + 1)) {
+			available.add(from.plusDays(day));
+		}
+		return available;
+	}
+
+	private void put(ReservationDTO reservation) {
+		byStartDate.add(reservation);
+		byId.put(reservation.getId(), reservation);
+	}
+
+	private void remove(UUID reservationId) {
+		ReservationDTO previous = byId.remove(reservationId);
+		if (previous != null) {
+			byStartDate.remove(previous);
+		}
+	}
+
+	private static ReservationDTO key(LocalDate startDate, UUID id) {
+		return new ReservationDTO(id, null, null, startDate, null);
+	}
+}
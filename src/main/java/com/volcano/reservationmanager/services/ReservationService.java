@@ -1,49 +1,150 @@
 package com.volcano.reservationmanager.services;
 
+import com.volcano.reservationmanager.caching.ReservationDayCache;
+import com.volcano.reservationmanager.caching.ReservationIdCache;
 import com.volcano.reservationmanager.converters.ReservationConverter;
 import com.volcano.reservationmanager.exceptions.InvalidReservationException;
 import com.volcano.reservationmanager.exceptions.NotFoundException;
+import com.volcano.reservationmanager.exceptions.ReservationConflictException;
+import com.volcano.reservationmanager.models.ReservationCursor;
 import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.models.ReservationEvent;
+import com.volcano.reservationmanager.models.ReservationPage;
+import com.volcano.reservationmanager.repositories.ReservationPartitions;
+import com.volcano.reservationmanager.repositories.SqlStates;
 import com.volcano.reservationmanager.repositories.models.Reservation;
 import com.volcano.reservationmanager.repositories.models.ReservationRepository;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.time.temporal.ChronoUnit.DAYS;
 
 @Service
 public class ReservationService {
 
+	public static final int MAX_RESERVATION_DAYS = 3;
+	public static final int MAX_PAGE_SIZE = 500;
+	public static final int MAX_LOOKUP_IDS = 1000;
+	public static final int MAX_AVAILABILITY_DAYS = 366;
+	// A page walks the range day by day until it fills up, through the cache and the database for sparse ranges
+	public static final int MAX_LISTING_DAYS = 366;
+	// Days read from the cache in one round trip while assembling a page
+	private static final int DAYS_PER_CHUNK = 31;
+
 	private final ReservationRepository repository;
 	private final ReservationConverter reservationConverter;
+	private final AvailabilityIndex availabilityIndex;
+	private final BookingLockManager lockManager;
+	private final ReservationDayCache dayCache;
+	private final ReservationIdCache idCache;
+	private final HoldStore holdStore;
+	private final ReservationOutbox outbox;
 
 	public ReservationService(ReservationRepository repository,
-							  ReservationConverter reservationConverter) {
+							  ReservationConverter reservationConverter,
+							  AvailabilityIndex availabilityIndex,
+							  BookingLockManager lockManager,
+							  ReservationDayCache dayCache,
+							  ReservationIdCache idCache,
+							  HoldStore holdStore,
+							  ReservationOutbox outbox) {
 		this.repository = repository;
 		this.reservationConverter = reservationConverter;
+		this.availabilityIndex = availabilityIndex;
+		this.lockManager = lockManager;
+		this.dayCache = dayCache;
+		this.idCache = idCache;
+		this.holdStore = holdStore;
+		this.outbox = outbox;
 	}
 
-	@Transactional
-	public List<ReservationDTO> findReservations(final LocalDate from, final LocalDate to) {
-		return repository
-				.findBetweenDate(from, to)
-				.map(reservationConverter::toDTO)
-				.collect(Collectors.toList());
+	/**
+	 * Rebuilds the availability index from the database. Runs on startup and periodically after that, so
+	 * bookings and cancellations made by other instances are picked up.
+	 */
+	@Timed("reservations.service")
+	@Scheduled(fixedDelayString = "${reservations.availability.refresh-interval:30000}")
+	@Transactional(readOnly = true)
+	public void refreshAvailability() {
+		LocalDate today = LocalDate.now();
+		try (Stream<Reservation> upcoming = repository.findByStartDateGreaterThanEqualAndEndDateGreaterThanEqual(
+				today.minusDays(MAX_RESERVATION_DAYS), today)) {
+			availabilityIndex.replaceAll(upcoming);
+		}
+	}
+
+	/**
+	 * Pages through the reservations overlapping [from, to] in (startDate, id) order. The page is assembled from
+	 * per-day buckets of reservations by start date, and only the days missing from the cache hit the database.
+	 */
+	@Timed("reservations.service")
+	@Transactional(readOnly = true)
+	public ReservationPage findReservations(final LocalDate from, final LocalDate to,
+											final String continuationToken, final int size) {
+		validateListingRange(from, to);
+		int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+		ReservationCursor cursor = continuationToken == null ? null : ReservationCursor.decode(continuationToken);
+
+		// A reservation overlapping the range starts at most MAX_RESERVATION_DAYS before it
+		LocalDate day = cursor == null ? from.minusDays(MAX_RESERVATION_DAYS) : cursor.getStartDate();
+
+		// One extra reservation tells whether there is a next page
+		List<ReservationDTO> found = new ArrayList<>();
+		while (!day.isAfter(to) && found.size() <= limit) {
+			LocalDate last = day.plusDays(DAYS_PER_CHUNK - 1);
+			if (last.isAfter(to)) {
+				last = to;
+			}
+			for (ReservationDTO reservation : startingBetween(day, last)) {
+				if (!reservation.getTo().isBefore(from) && (cursor == null || cursor.precedes(reservation))) {
+					found.add(reservation);
+				}
+			}
+			day = last.plusDays(1);
+		}
+
+		return ReservationPage.of(found, limit);
 	}
 
-	@Transactional
-	@Cacheable("reservation")
+	@Timed("reservations.service")
+	@Transactional(readOnly = true)
+	public void streamReservations(final LocalDate from, final LocalDate to, final Consumer<ReservationDTO> consumer) {
+		try (Stream<Reservation> reservations = repository.streamBetweenDate(from, to)) {
+			reservations
+					.map(reservationConverter::toDTO)
+					.forEach(consumer);
+		}
+	}
+
+	@Timed("reservations.service")
+	@Transactional(readOnly = true)
+	@Cacheable(value = "reservation", sync = true)
 	public ReservationDTO findReservation(UUID reservationId) {
 		return repository
 				.findById(reservationId)
@@ -51,38 +152,249 @@ public class ReservationService {
 				.orElseThrow(() -> new NotFoundException(String.format("Reservation %s not found", reservationId)));
 	}
 
-	@Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.SERIALIZABLE)
-	@CachePut(value = "reservation", key = "#result.id")
+	/**
+	 * Looks many reservations up at once: one cache round trip, then one query for the ids that were not cached.
+	 * Unknown ids are left out; the rest come back in the order they were asked for.
+	 */
+	@Timed("reservations.service")
+	@Transactional(readOnly = true)
+	public List<ReservationDTO> lookupReservations(final Collection<UUID> reservationIds) {
+		Set<UUID> ids = new LinkedHashSet<>(reservationIds);
+		ids.remove(null);
+		if (ids.size() > MAX_LOOKUP_IDS) {
+			throw new InvalidReservationException(
+					String.format("Too many ids to look up. At most %d at a time.", MAX_LOOKUP_IDS));
+		}
+
+		Map<UUID, ReservationDTO> found = new HashMap<>(idCache.getAll(ids));
+		List<UUID> missing = ids.stream()
+				.filter(id -> !found.containsKey(id))
+				.collect(Collectors.toList());
+		if (!missing.isEmpty()) {
+			Map<UUID, ReservationDTO> loaded = repository.findAllById(missing).stream()
+					.map(reservationConverter::toDTO)
+					.collect(Collectors.toMap(ReservationDTO::getId, Function.identity()));
+			idCache.putAllIfAbsent(loaded);
+			found.putAll(loaded);
+		}
+
+		return ids.stream()
+				.map(found::get)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * The reservation as stored, bypassing the cache, for a caller that must lock its days before editing it in the
+	 * same transaction.
+	 */
+	public Optional<ReservationDTO> findStored(UUID reservationId) {
+		return repository.findById(reservationId).map(reservationConverter::toDTO);
+	}
+
+	/**
+	 * Days between from and to, both inclusive, that no reservation takes, as far as this instance knows.
+	 */
+	@Timed("reservations.service")
+	public List<LocalDate> findAvailableDays(final LocalDate from, final LocalDate to) {
+		validateAvailabilityRange(from, to);
+		List<LocalDate> available = new ArrayList<>();
+		for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+			if (availabilityIndex.isAvailable(day, day, null)) {
+				available.add(day);
+			}
+		}
+		return available;
+	}
+
+	public static void validateAvailabilityRange(final LocalDate from, final LocalDate to) {
+		long days = DAYS.between(from, to);
+		if (days < 0 || days >= MAX_AVAILABILITY_DAYS) {
+			throw new InvalidReservationException(
+					String.format("Availability can be checked for 1 to %d days at a time.", MAX_AVAILABILITY_DAYS));
+		}
+	}
+
+	public static void validateListingRange(final LocalDate from, final LocalDate to) {
+		long days = DAYS.between(from, to);
+		if (days < 0 || days >= MAX_LISTING_DAYS) {
+			throw new InvalidReservationException(
+					String.format("Reservations can be listed for 1 to %d days at a time.", MAX_LISTING_DAYS));
+		}
+	}
+
+	/**
+	 * The cheap checks a booking has to pass before its days are held: valid dates that are free as far as this
+	 * instance knows. Days it knows as taken are confirmed against the database, as they may have been freed since.
+	 */
+	@Timed("reservations.service")
+	public void validateBookable(final ReservationDTO reservation) {
+		validateDates(reservation);
+		if (!availabilityIndex.isAvailable(reservation.getFrom(), reservation.getTo(), null)
+				&& overlapsAnother(reservation, reservation.getFrom().minusDays(MAX_RESERVATION_DAYS))) {
+			throw new ReservationConflictException("There is a valid reservation in place for those dates.");
+		}
+	}
+
+	/**
+	 * Rejects a guest who already has a valid booking, as far as committed bookings tell. Bookings check again under
+	 * their locks.
+	 */
+	@Timed("reservations.service")
+	@Transactional(readOnly = true)
+	public void validateGuestUnbooked(final ReservationDTO reservation) {
+		rejectOtherBooking(reservation);
+	}
+
+	@Timed("reservations.service")
+	@Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
 	public ReservationDTO createReservation(final ReservationDTO reservation) {
-		validate(reservation);
-		Reservation savedReservation = repository.save(reservationConverter.toModel(reservation));
-		return reservationConverter.toDTO(savedReservation);
+		return applyCreate(reservation, null);
 	}
 
-	@Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.SERIALIZABLE)
-	@CachePut(value = "reservation", key = "#reservation.id")
+	// Books the days of the given hold, which no other booking may take while it lasts
+	@Timed("reservations.service")
+	@Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
+	public ReservationDTO createReservation(final ReservationDTO reservation, final UUID holdId) {
+		return applyCreate(reservation, holdId);
+	}
+
+	@Timed("reservations.service")
+	@Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
 	public ReservationDTO editReservation(ReservationDTO reservation) {
+		return applyEdit(reservation);
+	}
 
-		Optional<Reservation> optionalSavedReservation = repository.findById(reservation.getId());
-		if (!optionalSavedReservation.isPresent()) {
-			throw new NotFoundException(String.format("Reservation %s not found", reservation.getId()));
-		}
+	@Timed("reservations.service")
+	@Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
+	public void cancelReservation(UUID reservationId) {
+		applyCancel(reservationId);
+	}
+
+	/*
+	 * The apply methods do the work of create/edit/cancel inside the caller's transaction, which must already be
+	 * open. The sequencer uses them to commit a batch of bookings at once. The reservation cache is only written once
+	 * that transaction commits: a batch may still roll back, and its bookings be replayed under other ids.
+	 */
+
+	@Timed("reservations.service")
+	public ReservationDTO applyCreate(final ReservationDTO reservation) {
+		return applyCreate(reservation, null);
+	}
 
-		Reservation savedReservation = optionalSavedReservation.get();
+	private ReservationDTO applyCreate(final ReservationDTO reservation, final UUID holdId) {
+		validateDates(reservation);
+		lockManager.lock(reservation.getEmail(), reservation.getFrom(), reservation.getTo());
+		validateAvailability(reservation, holdId);
+		Reservation savedReservation = repository.save(reservationConverter.toModel(reservation));
+		flushOrReject();
+		outbox.append(ReservationEvent.Type.CREATED, savedReservation);
+		ReservationDTO created = reservationConverter.toDTO(savedReservation);
+		afterCommit(() -> {
+			availabilityIndex.occupy(savedReservation.getId(), savedReservation.getStartDate(), savedReservation.getEndDate());
+			dayCache.evict(savedReservation.getStartDate());
+			idCache.put(created);
+		});
+		return created;
+	}
+
+	@Timed("reservations.service")
+	public ReservationDTO applyEdit(ReservationDTO reservation) {
 
-		validate(reservation);
+		Reservation savedReservation = repository.findById(reservation.getId())
+				.orElseThrow(() -> notFound(reservation.getId()));
+
+		//The guest is the one stored, whatever the request says, so edits of the same reservation queue on their lock
+		validateDates(reservation);
+		LocalDate lockedStart = savedReservation.getStartDate();
+		LocalDate lockedEnd = savedReservation.getEndDate();
+		lockManager.lock(savedReservation.getEmail(), lockedStart, lockedEnd, reservation.getFrom(), reservation.getTo());
+
+		//Read before the locks were held: another edit or a cancel may have committed in between
+		savedReservation = repository.refreshForUpdate(savedReservation)
+				.orElseThrow(() -> notFound(reservation.getId()));
+		if (!savedReservation.getStartDate().equals(lockedStart) || !savedReservation.getEndDate().equals(lockedEnd)) {
+			lockManager.lock(savedReservation.getEmail(), savedReservation.getStartDate(), savedReservation.getEndDate());
+		}
+		LocalDate previousStartDate = savedReservation.getStartDate();
+
+		ReservationDTO edit = new ReservationDTO(savedReservation.getId(),
+				savedReservation.getName(), savedReservation.getEmail(), reservation.getFrom(), reservation.getTo());
+		validateAvailability(edit, null);
 		savedReservation.setStartDate(reservation.getFrom());
 		savedReservation.setEndDate(reservation.getTo());
+		flushOrReject();
+		outbox.append(ReservationEvent.Type.EDITED, savedReservation);
+		ReservationDTO edited = reservationConverter.toDTO(savedReservation);
+		afterCommit(() -> {
+			availabilityIndex.occupy(savedReservation.getId(), savedReservation.getStartDate(), savedReservation.getEndDate());
+			dayCache.evict(previousStartDate);
+			dayCache.evict(savedReservation.getStartDate());
+			idCache.put(edited);
+		});
 
-		return reservationConverter.toDTO(savedReservation);
+		return edited;
 	}
 
-	@CacheEvict("reservation")
-	public void cancelReservation(UUID reservationId) {
-		repository.deleteById(reservationId);
+	@Timed("reservations.service")
+	public void applyCancel(UUID reservationId) {
+		Reservation reservation = repository.findById(reservationId)
+				.orElseThrow(() -> new NotFoundException(String.format("Reservation %s not found", reservationId)));
+		reservation.setStatus(Reservation.Status.CANCELLED);
+		//Hibernate flushes inserts before updates: the days must be free before a booking in the same batch takes them
+		repository.flush();
+		outbox.append(ReservationEvent.Type.CANCELLED, reservation);
+		afterCommit(() -> {
+			availabilityIndex.release(reservationId);
+			dayCache.evict(reservation.getStartDate());
+			idCache.evict(reservationId);
+		});
+	}
+
+	// Reservations starting on each day between first and last, cached per day and read from the cache in one go
+	private List<ReservationDTO> startingBetween(LocalDate first, LocalDate last) {
+		List<LocalDate> days = new ArrayList<>();
+		for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+			days.add(day);
+		}
+
+		Map<LocalDate, List<ReservationDTO>> cached = dayCache.getAll(days);
+		Map<LocalDate, List<ReservationDTO>> buckets = new LinkedHashMap<>();
+		LocalDate firstMissing = null;
+		LocalDate lastMissing = null;
+		for (LocalDate day : days) {
+			List<ReservationDTO> bucket = cached.get(day);
+			buckets.put(day, bucket);
+			if (bucket == null) {
+				firstMissing = firstMissing == null ? day : firstMissing;
+				lastMissing = day;
+			}
+		}
+
+		//One query covers every missing day, and each of them is cached even when empty
+		if (firstMissing != null) {
+			Map<LocalDate, List<ReservationDTO>> loaded = new LinkedHashMap<>();
+			repository.findByStartDateBetweenOrderByStartDateAscIdAsc(firstMissing, lastMissing)
+					.forEach(r -> loaded.computeIfAbsent(r.getStartDate(), d -> new ArrayList<>())
+							.add(reservationConverter.toDTO(r)));
+			Map<LocalDate, List<ReservationDTO>> filled = new LinkedHashMap<>();
+			buckets.replaceAll((day, bucket) -> {
+				if (bucket != null) {
+					return bucket;
+				}
+				List<ReservationDTO> dayReservations = loaded.getOrDefault(day, Collections.emptyList());
+				filled.put(day, new ArrayList<>(dayReservations));
+				return dayReservations;
+			});
+			dayCache.putAllIfAbsent(filled);
+		}
+
+		List<ReservationDTO> reservations = new ArrayList<>();
+		buckets.values().forEach(reservations::addAll);
+		return reservations;
 	}
 
-	private void validate(final ReservationDTO reservation) {
+	public static void validateDates(final ReservationDTO reservation) {
 
 		// At most 30 days
 		if (DAYS.between(LocalDate.now(), reservation.getFrom()) > 30) {
@@ -98,13 +410,45 @@ public class ReservationService {
 		}
 
 		//Cannot last more than 3 days
-		if (0 >= daysBetween || daysBetween > 3) {
+		if (0 >= daysBetween || daysBetween > MAX_RESERVATION_DAYS) {
 			throw new InvalidReservationException(
-					String.format("Reservation lasts %d days. Must be between 1 and 3 days.", daysBetween));
+					String.format("Reservation lasts %d days. Must be between 1 and %d days.", daysBetween, MAX_RESERVATION_DAYS));
+		}
+	}
+
+	// Expects the booking locks for the reservation to be held already
+	private void validateAvailability(final ReservationDTO reservation, final UUID holdId) {
+
+		//Dates already taken, as far as this instance knows. The index may trail cancellations, made here while it was
+		//being refreshed or on other instances, so the database confirms. It has the final word on flush anyway.
+		LocalDate earliestStart = reservation.getFrom().minusDays(MAX_RESERVATION_DAYS);
+		boolean checkedAcross = false;
+		if (!availabilityIndex.isAvailable(reservation.getFrom(), reservation.getTo(), reservation.getId())) {
+			if (overlapsAnother(reservation, earliestStart)) {
+				throw new ReservationConflictException("There is a valid reservation in place for those dates.");
+			}
+			checkedAcross = true;
+		}
+
+		//Dates held by someone else, who is about to confirm them
+		if (holdStore.isHeldByOther(reservation.getFrom(), reservation.getTo(), holdId)) {
+			throw new ReservationConflictException("Those dates are being booked by someone else. Try again later, please.");
 		}
 
-		//Client already has a valid booking
-		repository.findByNameAndEmailAndEndDateAfter(reservation.getName(), reservation.getEmail(), LocalDate.now())
+		//Each partition only rules out overlaps among its own rows, so bookings near the end of a month check across
+		if (!checkedAcross && ReservationPartitions.spans(earliestStart, reservation.getTo())
+				&& overlapsAnother(reservation, earliestStart)) {
+			throw new ReservationConflictException("There is a valid reservation in place for those dates.");
+		}
+
+		rejectOtherBooking(reservation);
+	}
+
+	//Client already has a valid booking
+	private void rejectOtherBooking(final ReservationDTO reservation) {
+		LocalDate today = LocalDate.now();
+		repository.findByNameAndEmailAndStartDateGreaterThanEqualAndEndDateAfter(
+				reservation.getName(), reservation.getEmail(), today.minusDays(MAX_RESERVATION_DAYS), today)
 				.filter(found -> !found.getId().equals(reservation.getId()))
 				.findFirst()
 				.ifPresent(r -> {
@@ -112,21 +456,44 @@ public class ReservationService {
 						"There is already a valid reservation in place for you. Reservation id: %s",
 						r.getId().toString()));
 				});
+	}
 
-		//There is a valid booking for those dates
-		repository.findBetweenDate(reservation.getFrom(), reservation.getTo())
-				.findFirst()
-				.filter(found -> !found.getId().equals(reservation.getId()))
-				.ifPresent(r -> {
-					throw new InvalidReservationException("There is a valid reservation in place for those dates.");
-				});
+	private boolean overlapsAnother(ReservationDTO reservation, LocalDate earliestStart) {
+		if (reservation.getId() == null) {
+			return repository.existsByStartDateBetweenAndEndDateGreaterThanEqual(
+					earliestStart, reservation.getTo(), reservation.getFrom());
+		}
+		return repository.existsByStartDateBetweenAndEndDateGreaterThanEqualAndIdNot(
+				earliestStart, reservation.getTo(), reservation.getFrom(), reservation.getId());
+	}
 
+	private void flushOrReject() {
+		try {
+			repository.flush();
+		} catch (DataIntegrityViolationException e) {
+			//There is a valid booking for those dates
+			if (SqlStates.hasSqlState(e, SqlStates.EXCLUSION_VIOLATION)) {
+				throw new ReservationConflictException("There is a valid reservation in place for those dates.", e);
+			}
+			throw e;
+		}
 	}
 
-	public ReservationDTO findReservationById(UUID reservationId) {
-		return repository.findById(reservationId)
-				.map(reservationConverter::toDTO)
-				.orElseThrow(() -> new NotFoundException(String.format("Reservation id %s not found", reservationId)));
+	private void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	private static NotFoundException notFound(UUID reservationId) {
+		return new NotFoundException(String.format("Reservation %s not found", reservationId));
 	}
 
 }
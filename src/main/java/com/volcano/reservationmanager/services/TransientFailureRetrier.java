@@ -0,0 +1,112 @@
+package com.volcano.reservationmanager.services;
+
+import com.volcano.reservationmanager.exceptions.ReservationConflictException;
+import com.volcano.reservationmanager.exceptions.ServiceBusyException;
+import com.volcano.reservationmanager.repositories.SqlStates;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retries booking transactions that Postgres aborted for concurrency reasons (serialization failures and deadlocks),
+ * with capped exponential backoff and full jitter. Every attempt must run in a transaction of its own.
+ */
+@Component
+public class TransientFailureRetrier {
+
+	private final int maxAttempts;
+	private final long baseBackoffMillis;
+	private final long maxBackoffMillis;
+
+	private final Counter retries;
+	private final Counter exhausted;
+	private final Counter conflicts;
+
+	public TransientFailureRetrier(MeterRegistry registry,
+								   @Value("${reservations.retry.max-attempts:4}") int maxAttempts,
+								   @Value("${reservations.retry.base-backoff-ms:10}") long baseBackoffMillis,
+								   @Value("${reservations.retry.max-backoff-ms:200}") long maxBackoffMillis) {
+		this.maxAttempts = maxAttempts;
+		this.baseBackoffMillis = baseBackoffMillis;
+		this.maxBackoffMillis = maxBackoffMillis;
+		this.retries = registry.counter("reservations.write.retries");
+		this.exhausted = registry.counter("reservations.write.retries.exhausted");
+		this.conflicts = registry.counter("reservations.write.conflicts");
+	}
+
+	public <T> T execute(Supplier<T> write) {
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return write.get();
+			} catch (ReservationConflictException e) {
+				conflicts.increment();
+				throw e;
+			} catch (RuntimeException e) {
+				if (!SqlStates.hasSqlState(e, SqlStates.SERIALIZATION_FAILURE, SqlStates.DEADLOCK_DETECTED)) {
+					throw e;
+				}
+				if (attempt >= maxAttempts) {
+					exhausted.increment();
+					throw new ServiceBusyException("There is a reservation already being made. Try again, please.", e);
+				}
+				retries.increment();
+				backOff(attempt);
+			}
+		}
+	}
+
+	public void execute(Runnable write) {
+		execute(() -> {
+			write.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Same as execute, for writes of the reactive stack: every attempt subscribes to the write again, after a back
+	 * off that does not hold a thread.
+	 */
+	public <T> Mono<T> execute(Mono<T> write) {
+		return attempt(write, 1);
+	}
+
+	private <T> Mono<T> attempt(Mono<T> write, int attempt) {
+		return write.onErrorResume(e -> {
+			if (e instanceof ReservationConflictException) {
+				conflicts.increment();
+				return Mono.error(e);
+			}
+			if (!(e instanceof Exception)
+					|| !SqlStates.hasSqlState(e, SqlStates.SERIALIZATION_FAILURE, SqlStates.DEADLOCK_DETECTED)) {
+				return Mono.error(e);
+			}
+			if (attempt >= maxAttempts) {
+				exhausted.increment();
+				return Mono.error(new ServiceBusyException(
+						"There is a reservation already being made. Try again, please.", (Exception) e));
+			}
+			retries.increment();
+			return Mono.delay(Duration.ofMillis(backOffMillis(attempt))).then(attempt(write, attempt + 1));
+		});
+	}
+
+	private long backOffMillis(int attempt) {
+		long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 30));
+		return ThreadLocalRandom.current().nextLong(ceiling + 1);
+	}
+
+	private void backOff(int attempt) {
+		try {
+			Thread.sleep(backOffMillis(attempt));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ServiceBusyException("Interrupted while waiting to retry the reservation.", e);
+		}
+	}
+}
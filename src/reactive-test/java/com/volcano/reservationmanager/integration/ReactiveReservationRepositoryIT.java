@@ -0,0 +1,80 @@
+package com.volcano.reservationmanager.integration;
+
+import com.volcano.reservationmanager.ReservationManagerApplication;
+import com.volcano.reservationmanager.repositories.models.ReactiveReservationRepository;
+import com.volcano.reservationmanager.repositories.models.Reservation;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * The R2DBC repository against the embedded Postgres, watching the connections it leaves in the pool.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = ReservationManagerApplication.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles({"test", "reactive"})
+public class ReactiveReservationRepositoryIT {
+
+	private static final LocalDate FROM = LocalDate.now().plus(1, ChronoUnit.DAYS);
+	private static final LocalDate TO = LocalDate.now().plus(2, ChronoUnit.DAYS);
+
+	@Autowired
+	private ReactiveReservationRepository repository;
+
+	@Autowired
+	private ConnectionPool pool;
+
+	@Test
+	public void keeps_its_connections_across_lookups() {
+		//Given
+		Reservation reservation = new Reservation(UUID.randomUUID(), "Matheus", "matheus@email.com", FROM, TO);
+		repository.inTransaction(connection -> repository.insert(connection, reservation)).block();
+		int size = metrics().allocatedSize();
+
+		//When
+		for (int i = 0; i < 20; i++) {
+			Assertions.assertEquals(reservation.getId(), repository.findById(reservation.getId()).block().getId());
+			Assertions.assertNull(repository.findById(UUID.randomUUID()).block());
+		}
+
+		//Then
+		Assertions.assertTrue(size > 0);
+		Assertions.assertEquals(size, metrics().allocatedSize());
+		Assertions.assertEquals(0, metrics().acquiredSize());
+	}
+
+	@Test
+	public void reads_single_rows_within_a_transaction_and_keeps_its_connection() {
+		//Given
+		Reservation reservation = new Reservation(UUID.randomUUID(), "Matheus", "matheus@email.com", FROM, TO);
+		repository.inTransaction(connection -> repository.insert(connection, reservation)).block();
+		int size = metrics().allocatedSize();
+
+		//When
+		UUID overlapping = repository.inTransaction(connection -> repository.findById(connection, reservation.getId())
+				.then(repository.findOtherActive(connection, "Matheus", "matheus@email.com", FROM, UUID.randomUUID()))
+				.then(repository.findOverlapping(connection, FROM, TO, UUID.randomUUID())))
+				.block();
+
+		//Then
+		Assertions.assertEquals(reservation.getId(), overlapping);
+		Assertions.assertEquals(size, metrics().allocatedSize());
+		Assertions.assertEquals(0, metrics().acquiredSize());
+	}
+
+	private PoolMetrics metrics() {
+		return pool.getMetrics().orElseThrow(IllegalStateException::new);
+	}
+}
@@ -0,0 +1,137 @@
+package com.volcano.reservationmanager.integration;
+
+import com.volcano.reservationmanager.ReservationManagerApplication;
+import com.volcano.reservationmanager.controllers.ReservationController;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+
+/**
+ * The reservation routes on the reactive stack, over R2DBC to the embedded Postgres.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = ReservationManagerApplication.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles({"test", "reactive"})
+public class ReactiveRoutesIT {
+
+	private static final LocalDate FROM = LocalDate.now().plus(1, ChronoUnit.DAYS);
+	private static final LocalDate TO = LocalDate.now().plus(2, ChronoUnit.DAYS);
+
+	@Autowired
+	private ApplicationContext context;
+
+	private WebTestClient client;
+
+	@BeforeEach
+	void setup() {
+		this.client = WebTestClient.bindToApplicationContext(context).build();
+	}
+
+	@Test
+	public void books_lists_and_cancels() {
+		//Given
+		ReservationDTO created = book("Matheus", "matheus@email.com", FROM, TO)
+				.expectStatus().isOk()
+				.expectBody(ReservationDTO.class)
+				.returnResult()
+				.getResponseBody();
+
+		//Then
+		Assertions.assertNotNull(created.getId());
+		client.get().uri("/reservations/{id}", created.getId())
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.from").isEqualTo(FROM.toString());
+		client.get().uri("/reservations?from={from}&to={to}", FROM, TO)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.length()").isEqualTo(1);
+		client.get().uri("/reservations/availability?from={from}&to={to}", FROM, TO)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.length()").isEqualTo(0);
+		client.post().uri("/reservations/lookup")
+				.contentType(MediaType.APPLICATION_JSON)
+				.syncBody(Collections.singletonList(created.getId()))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$[0].email").value(equalTo("matheus@email.com"));
+
+		//When
+		client.delete().uri("/reservations/{id}", created.getId())
+				.exchange()
+				.expectStatus().isOk();
+
+		//Then
+		client.get().uri("/reservations/{id}", created.getId())
+				.exchange()
+				.expectStatus().isNotFound();
+		client.get().uri("/reservations/availability?from={from}&to={to}", FROM, TO)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.length()").isEqualTo(2);
+	}
+
+	@Test
+	public void rejects_overlapping_bookings() {
+		//Given
+		book("Matheus", "matheus@email.com", FROM, TO).expectStatus().isOk();
+
+		//Then
+		book("Ana", "ana@email.com", TO, TO.plusDays(1)).expectStatus().isEqualTo(409);
+	}
+
+	@Test
+	public void streams_one_document_per_line() {
+		//Given
+		book("Matheus", "matheus@email.com", FROM, TO).expectStatus().isOk();
+		book("Ana", "ana@email.com", FROM.plusDays(3), TO.plusDays(3)).expectStatus().isOk();
+
+		//When
+		String body = client.get().uri("/reservations?from={from}&to={to}", FROM, TO.plusDays(3))
+				.accept(MediaType.valueOf(ReservationController.APPLICATION_NDJSON_VALUE))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class)
+				.returnResult()
+				.getResponseBody();
+
+		//Then
+		String[] lines = body.split("\n");
+		Assertions.assertEquals(2, lines.length);
+		Assertions.assertTrue(lines[0].contains("matheus@email.com"));
+		Assertions.assertTrue(lines[1].contains("ana@email.com"));
+	}
+
+	@Test
+	public void answers_unknown_ids_with_not_found() {
+		client.get().uri("/reservations/{id}", UUID.randomUUID())
+				.exchange()
+				.expectStatus().isNotFound();
+	}
+
+	private WebTestClient.ResponseSpec book(String name, String email, LocalDate from, LocalDate to) {
+		return client.post().uri("/reservations")
+				.contentType(MediaType.APPLICATION_JSON)
+				.syncBody(new ReservationDTO(name, email, from, to))
+				.exchange();
+	}
+}
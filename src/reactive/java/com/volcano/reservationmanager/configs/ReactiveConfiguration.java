@@ -0,0 +1,61 @@
+package com.volcano.reservationmanager.configs;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+
+import java.net.URI;
+
+/**
+ * R2DBC connections for the reactive stack, to the same database as spring.datasource. JPA and the blocking data
+ * source stay up alongside, for the parts that have no reactive counterpart: holds, the read model and the
+ * availability refresh.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfiguration {
+
+	private static final int DEFAULT_PORT = 5432;
+
+	// After the data source, which may be the one deciding where the database is
+	@Bean
+	@DependsOn("dataSource")
+	public PostgresqlConnectionFactory connectionFactory(DataSourceProperties properties) {
+		// jdbc:postgresql://host:port/database
+		URI url = URI.create(properties.determineUrl().substring("jdbc:".length()));
+		return new PostgresqlConnectionFactory(PostgresqlConnectionConfiguration.builder()
+				.host(url.getHost())
+				.port(url.getPort() < 0 ? DEFAULT_PORT : url.getPort())
+				.database(url.getPath().substring(1))
+				.username(properties.determineUsername())
+				.password(properties.determinePassword())
+				.build());
+	}
+
+	// Connections are checked before they are handed out again, so one left mid-query waits for that query to end
+	@Bean(destroyMethod = "dispose")
+	public ConnectionPool connectionPool(PostgresqlConnectionFactory connectionFactory,
+										 @Value("${reservations.r2dbc.pool-size:10}") int poolSize,
+										 MeterRegistry registry) {
+		ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+				.initialSize(0)
+				.maxSize(poolSize)
+				.validationQuery("SELECT 1")
+				.build());
+		Gauge.builder("reservations.r2dbc.connections", pool,
+				p -> p.getMetrics().map(PoolMetrics::allocatedSize).orElse(0)).register(registry);
+		Gauge.builder("reservations.r2dbc.waiting", pool,
+				p -> p.getMetrics().map(PoolMetrics::pendingAcquireSize).orElse(0)).register(registry);
+		return pool;
+	}
+}
@@ -0,0 +1,155 @@
+package com.volcano.reservationmanager.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.volcano.reservationmanager.exceptions.InvalidReservationException;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.services.ReactiveReservationService;
+import com.volcano.reservationmanager.services.TransientFailureRetrier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.volcano.reservationmanager.controllers.ReservationController.APPLICATION_NDJSON_VALUE;
+import static com.volcano.reservationmanager.controllers.ReservationController.CONTINUATION_TOKEN_HEADER;
+import static org.springframework.web.reactive.function.server.ServerResponse.ok;
+
+/**
+ * ReservationController for the reactive stack, answering the routes in ReservationRouter.
+ */
+@Component
+@Profile("reactive")
+public class ReservationHandler {
+
+	private static final int DEFAULT_PAGE_SIZE = 100;
+
+	private static final ParameterizedTypeReference<List<UUID>> IDS = new ParameterizedTypeReference<List<UUID>>() { };
+
+	private final ReactiveReservationService service;
+	private final TransientFailureRetrier retrier;
+	private final Validator validator;
+	private final ObjectWriter reservationWriter;
+
+	public ReservationHandler(ReactiveReservationService service,
+							  TransientFailureRetrier retrier,
+							  Validator validator,
+							  ObjectMapper objectMapper) {
+		this.service = service;
+		this.retrier = retrier;
+		this.validator = validator;
+		this.reservationWriter = objectMapper.writerFor(ReservationDTO.class);
+	}
+
+	public Mono<ServerResponse> getReservation(ServerRequest request) {
+		return Mono.defer(() -> ok().body(service.findReservation(reservationId(request)), ReservationDTO.class));
+	}
+
+	public Mono<ServerResponse> getReservations(ServerRequest request) {
+		return Mono.defer(() -> service.findReservations(
+				date(request, "from"),
+				date(request, "to"),
+				request.queryParam("continuationToken").orElse(null),
+				request.queryParam("size").map(Integer::parseInt).orElse(DEFAULT_PAGE_SIZE)))
+				.flatMap(page -> {
+					ServerResponse.BodyBuilder response = ok();
+					if (page.getContinuationToken() != null) {
+						response.header(CONTINUATION_TOKEN_HEADER, page.getContinuationToken());
+					}
+					return response.syncBody(page.getReservations());
+				});
+	}
+
+	// One JSON document per line, written as the rows arrive
+	public Mono<ServerResponse> streamReservations(ServerRequest request) {
+		return Mono.defer(() -> ok()
+				.contentType(MediaType.valueOf(APPLICATION_NDJSON_VALUE))
+				.body(service.streamReservations(date(request, "from"), date(request, "to")).map(this::line),
+						String.class));
+	}
+
+	public Mono<ServerResponse> getAvailability(ServerRequest request) {
+		return Mono.defer(() -> service.findAvailableDays(date(request, "from"), date(request, "to")))
+				.flatMap(days -> ok().syncBody(days));
+	}
+
+	public Mono<ServerResponse> lookupReservations(ServerRequest request) {
+		return required(request.bodyToMono(IDS))
+				.flatMap(service::lookupReservations)
+				.flatMap(reservations -> ok().syncBody(reservations));
+	}
+
+	public Mono<ServerResponse> createReservation(ServerRequest request) {
+		return required(request.bodyToMono(ReservationDTO.class))
+				.map(this::validate)
+				.flatMap(reservation -> retrier.execute(service.createReservation(reservation)))
+				.flatMap(reservation -> ok().syncBody(reservation));
+	}
+
+	public Mono<ServerResponse> editReservation(ServerRequest request) {
+		return required(request.bodyToMono(ReservationDTO.class))
+				.map(this::validate)
+				.flatMap(reservation -> retrier.execute(service.editReservation(reservation)))
+				.flatMap(reservation -> ok().syncBody(reservation));
+	}
+
+	public Mono<ServerResponse> cancelReservation(ServerRequest request) {
+		return Mono.defer(() -> retrier.execute(service.cancelReservation(reservationId(request))))
+				.then(ok().build());
+	}
+
+	private ReservationDTO validate(ReservationDTO reservation) {
+		Set<ConstraintViolation<ReservationDTO>> violations = validator.validate(reservation);
+		if (!violations.isEmpty()) {
+			throw new InvalidReservationException(violations.stream()
+					.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+					.sorted()
+					.collect(Collectors.joining(", ")));
+		}
+		return reservation;
+	}
+
+	private static <T> Mono<T> required(Mono<T> body) {
+		return body.switchIfEmpty(Mono.defer(() -> Mono.error(new InvalidReservationException("Request body is missing."))));
+	}
+
+	private String line(ReservationDTO reservation) {
+		try {
+			return reservationWriter.writeValueAsString(reservation) + "\n";
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static UUID reservationId(ServerRequest request) {
+		try {
+			return UUID.fromString(request.pathVariable("reservationId"));
+		} catch (IllegalArgumentException e) {
+			throw new InvalidReservationException("Invalid reservation id.", e);
+		}
+	}
+
+	private static LocalDate date(ServerRequest request, String name) {
+		String value = request.queryParam(name)
+				.orElseThrow(() -> new InvalidReservationException(String.format("Parameter %s is required.", name)));
+		try {
+			return LocalDate.parse(value);
+		} catch (DateTimeParseException e) {
+			throw new InvalidReservationException(String.format("Parameter %s is not a date.", name), e);
+		}
+	}
+}
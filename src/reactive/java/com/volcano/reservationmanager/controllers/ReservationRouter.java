@@ -0,0 +1,40 @@
+package com.volcano.reservationmanager.controllers;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static com.volcano.reservationmanager.controllers.ReservationController.APPLICATION_NDJSON_VALUE;
+import static org.springframework.web.reactive.function.server.RequestPredicates.DELETE;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RequestPredicates.PUT;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * The routes of ReservationController, for the reactive stack.
+ */
+@Configuration
+@Profile("reactive")
+public class ReservationRouter {
+
+	// Only clients naming the stream in their Accept header get it
+	private static final RequestPredicate ACCEPTS_NDJSON =
+			request -> request.headers().accept().contains(MediaType.valueOf(APPLICATION_NDJSON_VALUE));
+
+	@Bean
+	public RouterFunction<ServerResponse> reservationRoutes(ReservationHandler handler) {
+		return route(GET("/reservations/availability"), handler::getAvailability)
+				.andRoute(GET("/reservations/{reservationId}"), handler::getReservation)
+				.andRoute(GET("/reservations").and(ACCEPTS_NDJSON), handler::streamReservations)
+				.andRoute(GET("/reservations"), handler::getReservations)
+				.andRoute(POST("/reservations/lookup"), handler::lookupReservations)
+				.andRoute(POST("/reservations"), handler::createReservation)
+				.andRoute(PUT("/reservations"), handler::editReservation)
+				.andRoute(DELETE("/reservations/{reservationId}"), handler::cancelReservation);
+	}
+}
@@ -0,0 +1,226 @@
+package com.volcano.reservationmanager.repositories.models;
+
+import com.volcano.reservationmanager.services.ReservationService;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.R2dbcException;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Counterpart of ReservationRepository for the reactive stack, over R2DBC. Reads take a connection of their own;
+ * the statements of a booking run on the connection of its transaction, see inTransaction. Connections come from
+ * the pool and go back to it when closed.
+ *
+ * Single row lookups read their whole result rather than cancel it after the first row, as a cancelled query would
+ * leave the conversation of its connection half read.
+ *
+ * Failures carrying a SQLSTATE come out as SQLExceptions, as they would from JDBC, so SqlStates tells them apart
+ * the same way for both stacks.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveReservationRepository {
+
+	private static final String COLUMNS = "id, name, email, start_date, end_date";
+
+	// Through the start date kept in reservation_start, so Postgres reads a single partition
+	private static final String FIND_BY_ID = "SELECT " + COLUMNS + " FROM reservation " +
+			"WHERE id = $1 AND start_date = (SELECT start_date FROM reservation_start WHERE id = $1) AND status = 'ACTIVE'";
+
+	private static final String FIND_BY_ID_FOR_UPDATE = FIND_BY_ID + " FOR UPDATE";
+
+	/*
+	 * Reservations are short, so those ending on or after a day started at most MAX_RESERVATION_DAYS before it. The
+	 * bounds on start_date say as much, and let Postgres skip the partitions of other months.
+	 */
+
+	// Keyset page in (start_date, id) order, backed by reservation_active_start_date_id_idx
+	private static final String FIND_PAGE = "SELECT " + COLUMNS + " FROM reservation " +
+			"WHERE (start_date, id) > ($1, $2) AND start_date BETWEEN $1 AND $3 AND end_date >= $4 AND status = 'ACTIVE' " +
+			"ORDER BY start_date, id LIMIT $5";
+
+	private static final String FIND_BETWEEN_DATE = "SELECT " + COLUMNS + " FROM reservation " +
+			"WHERE start_date BETWEEN $3 AND $1 AND end_date >= $2 AND status = 'ACTIVE' ORDER BY start_date, id";
+
+	private static final String FIND_OTHER_ACTIVE = "SELECT id FROM reservation " +
+			"WHERE name = $1 AND email = $2 AND start_date >= $5 AND end_date > $3 AND id <> $4 AND status = 'ACTIVE' " +
+			"LIMIT 1";
+
+	private static final String FIND_OVERLAPPING = "SELECT id FROM reservation " +
+			"WHERE start_date BETWEEN $3 AND $1 AND end_date >= $2 AND id <> $4 AND status = 'ACTIVE' LIMIT 1";
+
+	private static final String INSERT = "INSERT INTO reservation (" + COLUMNS + ") VALUES ($1, $2, $3, $4, $5)";
+
+	private static final String UPDATE_DATES = "UPDATE reservation SET start_date = $2, end_date = $3 " +
+			"WHERE id = $1 AND status = 'ACTIVE'";
+
+	// Cancelled reservations stay behind, left out of every query and index
+	private static final String CANCEL = "UPDATE reservation SET status = 'CANCELLED' WHERE id = $1 AND status = 'ACTIVE'";
+
+	private final ConnectionPool pool;
+
+	public ReactiveReservationRepository(ConnectionPool pool) {
+		this.pool = pool;
+	}
+
+	public Mono<Reservation> findById(UUID id) {
+		return withConnection(connection -> findById(connection, id).flux()).singleOrEmpty();
+	}
+
+	public Mono<Reservation> findById(Connection connection, UUID id) {
+		return query(connection.createStatement(FIND_BY_ID).bind("$1", id)).singleOrEmpty();
+	}
+
+	/**
+	 * Same as findById, locking the row until the transaction on the given connection ends.
+	 */
+	public Mono<Reservation> findByIdForUpdate(Connection connection, UUID id) {
+		return query(connection.createStatement(FIND_BY_ID_FOR_UPDATE).bind("$1", id)).singleOrEmpty();
+	}
+
+	/**
+	 * Reservations overlapping [from, to] that come after (afterStartDate, afterId), at most limit of them.
+	 */
+	public Flux<Reservation> findPage(LocalDate from, LocalDate to, LocalDate afterStartDate, UUID afterId, int limit) {
+		return withConnection(connection -> query(connection.createStatement(FIND_PAGE)
+				.bind("$1", afterStartDate)
+				.bind("$2", afterId)
+				.bind("$3", to)
+				.bind("$4", from)
+				.bind("$5", limit)));
+	}
+
+	// Reservations overlapping [from, to], emitted as the rows arrive
+	public Flux<Reservation> streamBetweenDate(LocalDate from, LocalDate to) {
+		return withConnection(connection -> query(connection.createStatement(FIND_BETWEEN_DATE)
+				.bind("$1", to)
+				.bind("$2", from)
+				.bind("$3", from.minusDays(ReservationService.MAX_RESERVATION_DAYS))));
+	}
+
+	/**
+	 * @return the id of a reservation of the guest, other than the given one, that has not ended by the given day
+	 */
+	public Mono<UUID> findOtherActive(Connection connection, String name, String email, LocalDate after, UUID id) {
+		return Flux.from(connection.createStatement(FIND_OTHER_ACTIVE)
+				.bind("$1", name)
+				.bind("$2", email)
+				.bind("$3", after)
+				.bind("$4", id)
+				.bind("$5", after.minusDays(ReservationService.MAX_RESERVATION_DAYS))
+				.execute())
+				.concatMap(result -> result.map((row, metadata) -> row.get("id", UUID.class)))
+				.singleOrEmpty();
+	}
+
+	/**
+	 * @return the id of a reservation, other than the given one, sharing a day with [from, to]
+	 */
+	public Mono<UUID> findOverlapping(Connection connection, LocalDate from, LocalDate to, UUID id) {
+		return Flux.from(connection.createStatement(FIND_OVERLAPPING)
+				.bind("$1", to)
+				.bind("$2", from)
+				.bind("$3", from.minusDays(ReservationService.MAX_RESERVATION_DAYS))
+				.bind("$4", id)
+				.execute())
+				.concatMap(result -> result.map((row, metadata) -> row.get("id", UUID.class)))
+				.singleOrEmpty();
+	}
+
+	public Mono<Void> insert(Connection connection, Reservation reservation) {
+		return update(connection.createStatement(INSERT)
+				.bind("$1", reservation.getId())
+				.bind("$2", reservation.getName())
+				.bind("$3", reservation.getEmail())
+				.bind("$4", reservation.getStartDate())
+				.bind("$5", reservation.getEndDate()));
+	}
+
+	public Mono<Void> updateDates(Connection connection, Reservation reservation) {
+		return update(connection.createStatement(UPDATE_DATES)
+				.bind("$1", reservation.getId())
+				.bind("$2", reservation.getStartDate())
+				.bind("$3", reservation.getEndDate()));
+	}
+
+	public Mono<Void> cancel(Connection connection, UUID id) {
+		return update(connection.createStatement(CANCEL).bind("$1", id));
+	}
+
+	/**
+	 * Runs the work in a read committed transaction of its own, committed when the work completes and rolled back
+	 * when it fails or is cancelled.
+	 */
+	public <T> Mono<T> inTransaction(Function<Connection, Mono<T>> work) {
+		return pool.create().flatMap(connection -> Mono.from(connection.beginTransaction())
+				.then(work.apply(connection))
+				.map(Optional::of)
+				.defaultIfEmpty(Optional.empty())
+				.flatMap(result -> Mono.from(connection.commitTransaction()).thenReturn(result))
+				.onErrorResume(e -> Mono.from(connection.rollbackTransaction())
+						.onErrorResume(rollbackFailure -> Mono.empty())
+						.then(Mono.<Optional<T>>error(e)))
+				.doFinally(signal -> {
+					if (signal == SignalType.CANCEL) {
+						Mono.from(connection.rollbackTransaction())
+								.onErrorResume(rollbackFailure -> Mono.empty())
+								.then(Mono.from(connection.close()))
+								.subscribe(closed -> { }, e -> { });
+					} else {
+						close(connection);
+					}
+				}))
+				.onErrorMap(R2dbcException.class, ReactiveReservationRepository::translate)
+				.flatMap(Mono::justOrEmpty);
+	}
+
+	/*
+	 * The pool validates connections before handing them out again, so one whose query was cancelled, such as a listing
+	 * the client stopped reading, is only reused once that query is through.
+	 */
+	private <T> Flux<T> withConnection(Function<Connection, Flux<T>> work) {
+		return pool.create().flatMapMany(connection -> work.apply(connection)
+				.doFinally(signal -> close(connection)))
+				.onErrorMap(R2dbcException.class, ReactiveReservationRepository::translate);
+	}
+
+	private static void close(Connection connection) {
+		Mono.from(connection.close()).subscribe(closed -> { }, e -> { });
+	}
+
+	private static SQLException translate(R2dbcException e) {
+		return new SQLException(e.getMessage(), e.getSqlState(), e);
+	}
+
+	private static Flux<Reservation> query(Statement statement) {
+		return Flux.from(statement.execute())
+				.concatMap(result -> result.map((row, metadata) -> toReservation(row)));
+	}
+
+	private static Mono<Void> update(Statement statement) {
+		return Flux.from(statement.execute())
+				.concatMap(result -> result.getRowsUpdated())
+				.then();
+	}
+
+	private static Reservation toReservation(Row row) {
+		return new Reservation(
+				row.get("id", UUID.class),
+				row.get("name", String.class),
+				row.get("email", String.class),
+				row.get("start_date", LocalDate.class),
+				row.get("end_date", LocalDate.class));
+	}
+}
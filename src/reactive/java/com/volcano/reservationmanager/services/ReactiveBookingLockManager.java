@@ -0,0 +1,57 @@
+package com.volcano.reservationmanager.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Statement;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The locks of BookingLockManager, for transactions of the reactive stack. Same keys and order, so bookings of both
+ * stacks queue on each other.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveBookingLockManager {
+
+	private static final String LOCK_GUEST = "SELECT pg_advisory_xact_lock($1, hashtext($2))";
+	private static final String LOCK_DAYS = "SELECT pg_advisory_xact_lock($1, day) FROM generate_series($2, $3) AS day";
+
+	private final Timer lockWait;
+
+	public ReactiveBookingLockManager(MeterRegistry registry) {
+		this.lockWait = registry.timer("reservations.locks.wait");
+	}
+
+	/**
+	 * Completes once the transaction on the given connection holds the lock for the guest and for every day of the
+	 * given ranges, without blocking a thread in the meantime. Ranges are given as (from, to) pairs, both inclusive.
+	 */
+	public Mono<Void> lock(Connection connection, String email, LocalDate... ranges) {
+		List<Statement> statements = new ArrayList<>();
+		statements.add(connection.createStatement(LOCK_GUEST)
+				.bind("$1", BookingLockManager.GUEST_NAMESPACE)
+				.bind("$2", email));
+		for (int[] run : BookingLockManager.runs(BookingLockManager.days(ranges))) {
+			statements.add(connection.createStatement(LOCK_DAYS)
+					.bind("$1", BookingLockManager.DAY_NAMESPACE)
+					.bind("$2", run[0])
+					.bind("$3", run[1]));
+		}
+
+		long start = System.nanoTime();
+		return Flux.fromIterable(statements)
+				.concatMap(statement -> Flux.from(statement.execute())
+						.concatMap(result -> result.map((row, metadata) -> Boolean.TRUE)))
+				.then()
+				.doOnSuccess(locked -> lockWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+	}
+}
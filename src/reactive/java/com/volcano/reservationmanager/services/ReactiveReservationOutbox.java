@@ -0,0 +1,36 @@
+package com.volcano.reservationmanager.services;
+
+import com.volcano.reservationmanager.models.ReservationEvent;
+import com.volcano.reservationmanager.repositories.models.Reservation;
+import io.r2dbc.spi.Connection;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Appends to the outbox of ReservationOutbox from transactions of the reactive stack. Reading and pruning stay there.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveReservationOutbox {
+
+	// The transaction id comes from the column default
+	private static final String APPEND = "INSERT INTO reservation_event " +
+			"(type, reservation_id, name, email, start_date, end_date, occurred_at) " +
+			"VALUES ($1, $2, $3, $4, $5, $6, clock_timestamp())";
+
+	// Must run in the transaction making the change, on the given connection
+	public Mono<Void> append(Connection connection, ReservationEvent.Type type, Reservation reservation) {
+		return Flux.from(connection.createStatement(APPEND)
+				.bind("$1", type.name())
+				.bind("$2", reservation.getId())
+				.bind("$3", reservation.getName())
+				.bind("$4", reservation.getEmail())
+				.bind("$5", reservation.getStartDate())
+				.bind("$6", reservation.getEndDate())
+				.execute())
+				.concatMap(result -> result.getRowsUpdated())
+				.then();
+	}
+}
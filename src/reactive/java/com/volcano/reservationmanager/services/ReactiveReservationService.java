@@ -0,0 +1,277 @@
+package com.volcano.reservationmanager.services;
+
+import com.volcano.reservationmanager.caching.ReservationDayCache;
+import com.volcano.reservationmanager.caching.ReservationIdCache;
+import com.volcano.reservationmanager.converters.ReservationConverter;
+import com.volcano.reservationmanager.exceptions.InvalidReservationException;
+import com.volcano.reservationmanager.exceptions.NotFoundException;
+import com.volcano.reservationmanager.exceptions.ReservationConflictException;
+import com.volcano.reservationmanager.models.ReservationCursor;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.models.ReservationEvent;
+import com.volcano.reservationmanager.models.ReservationPage;
+import com.volcano.reservationmanager.repositories.ReservationPartitions;
+import com.volcano.reservationmanager.repositories.SqlStates;
+import com.volcano.reservationmanager.repositories.models.ReactiveReservationRepository;
+import com.volcano.reservationmanager.repositories.models.Reservation;
+import com.volcano.reservationmanager.repositories.models.TimeOrderedUuidGenerator;
+import io.r2dbc.spi.Connection;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuples;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * ReservationService for the reactive stack: the same rules and locks, over R2DBC, without blocking the caller's
+ * thread. The caches and the hold store may block, so they are used on the elastic scheduler.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveReservationService {
+
+	// Sorts after any reservation starting on the same day
+	private static final UUID LAST_ID = new UUID(-1L, -1L);
+
+	// Reservations looked up at the same time in a bulk lookup
+	private static final int LOOKUP_CONCURRENCY = 8;
+
+	private final ReactiveReservationRepository repository;
+	private final ReservationConverter reservationConverter;
+	private final ReservationService reservationService;
+	private final AvailabilityIndex availabilityIndex;
+	private final ReactiveBookingLockManager lockManager;
+	private final ReactiveReservationOutbox outbox;
+	private final HoldStore holdStore;
+	private final ReservationDayCache dayCache;
+	private final ReservationIdCache idCache;
+	private final Optional<ReservationReadModel> readModel;
+
+	public ReactiveReservationService(ReactiveReservationRepository repository,
+									  ReservationConverter reservationConverter,
+									  ReservationService reservationService,
+									  AvailabilityIndex availabilityIndex,
+									  ReactiveBookingLockManager lockManager,
+									  ReactiveReservationOutbox outbox,
+									  HoldStore holdStore,
+									  ReservationDayCache dayCache,
+									  ReservationIdCache idCache,
+									  Optional<ReservationReadModel> readModel) {
+		this.repository = repository;
+		this.reservationConverter = reservationConverter;
+		this.reservationService = reservationService;
+		this.availabilityIndex = availabilityIndex;
+		this.lockManager = lockManager;
+		this.outbox = outbox;
+		this.holdStore = holdStore;
+		this.dayCache = dayCache;
+		this.idCache = idCache;
+		this.readModel = readModel;
+	}
+
+	public Mono<ReservationDTO> findReservation(UUID reservationId) {
+		return repository.findById(reservationId)
+				.map(reservationConverter::toDTO)
+				.switchIfEmpty(Mono.defer(() -> Mono.error(notFound(reservationId))));
+	}
+
+	// Same listing as ReservationService.findReservations, from the read model when it is loaded
+	public Mono<ReservationPage> findReservations(LocalDate from, LocalDate to, String continuationToken, int size) {
+		Optional<ReservationReadModel> loaded = readModel.filter(ReservationReadModel::isReady);
+		if (loaded.isPresent()) {
+			return Mono.fromCallable(() -> loaded.get().findReservations(from, to, continuationToken, size));
+		}
+
+		return Mono.defer(() -> {
+			ReservationService.validateListingRange(from, to);
+			int limit = Math.max(1, Math.min(size, ReservationService.MAX_PAGE_SIZE));
+			ReservationCursor cursor = continuationToken == null ? null : ReservationCursor.decode(continuationToken);
+			// A reservation overlapping the range starts at most MAX_RESERVATION_DAYS before it
+			LocalDate afterStartDate = cursor == null
+					? from.minusDays(ReservationService.MAX_RESERVATION_DAYS + 1)
+					: cursor.getStartDate();
+			UUID afterId = cursor == null ? LAST_ID : cursor.getId();
+
+			// One extra reservation tells whether there is a next page
+			return repository.findPage(from, to, afterStartDate, afterId, limit + 1)
+					.map(reservationConverter::toDTO)
+					.collectList()
+					.map(found -> ReservationPage.of(found, limit));
+		});
+	}
+
+	public Flux<ReservationDTO> streamReservations(LocalDate from, LocalDate to) {
+		return repository.streamBetweenDate(from, to).map(reservationConverter::toDTO);
+	}
+
+	// Availability comes from the read model or over JDBC, which blocks, so off the event loop either way
+	public Mono<List<LocalDate>> findAvailableDays(LocalDate from, LocalDate to) {
+		return Mono.fromCallable(() -> readModel.filter(ReservationReadModel::isReady)
+				.map(m -> m.findAvailableDays(from, to))
+				.orElseGet(() -> reservationService.findAvailableDays(from, to)))
+				.subscribeOn(Schedulers.elastic());
+	}
+
+	// Unknown ids are left out; the rest come back in the order they were asked for
+	public Mono<List<ReservationDTO>> lookupReservations(Collection<UUID> reservationIds) {
+		Set<UUID> ids = new LinkedHashSet<>(reservationIds);
+		ids.remove(null);
+		if (ids.size() > ReservationService.MAX_LOOKUP_IDS) {
+			return Mono.error(new InvalidReservationException(String.format(
+					"Too many ids to look up. At most %d at a time.", ReservationService.MAX_LOOKUP_IDS)));
+		}
+
+		return Flux.fromIterable(ids)
+				.flatMap(repository::findById, LOOKUP_CONCURRENCY)
+				.map(reservationConverter::toDTO)
+				.collectMap(ReservationDTO::getId, Function.identity())
+				.map(found -> orderedAs(ids, found));
+	}
+
+	public Mono<ReservationDTO> createReservation(ReservationDTO reservation) {
+		return Mono.defer(() -> {
+			ReservationService.validateDates(reservation);
+			Reservation created = new Reservation(TimeOrderedUuidGenerator.next(),
+					reservation.getName(), reservation.getEmail(), reservation.getFrom(), reservation.getTo());
+			ReservationDTO booking = reservationConverter.toDTO(created);
+
+			return write(connection -> lockManager
+					.lock(connection, created.getEmail(), created.getStartDate(), created.getEndDate())
+					.then(validateAvailability(connection, booking))
+					.then(repository.insert(connection, created))
+					.then(outbox.append(connection, ReservationEvent.Type.CREATED, created))
+					.thenReturn(created))
+					.doOnNext(saved -> {
+						availabilityIndex.occupy(saved.getId(), saved.getStartDate(), saved.getEndDate());
+						evict(saved.getId(), saved.getStartDate());
+					})
+					.map(reservationConverter::toDTO);
+		});
+	}
+
+	public Mono<ReservationDTO> editReservation(ReservationDTO reservation) {
+		return Mono.defer(() -> write(connection -> repository.findById(connection, reservation.getId())
+				.switchIfEmpty(Mono.defer(() -> Mono.error(notFound(reservation.getId()))))
+				.flatMap(read -> {
+					ReservationService.validateDates(reservation);
+					//The guest is the one stored, and the row is read again once locked, as in ReservationService
+					return lockManager.lock(connection, read.getEmail(),
+							read.getStartDate(), read.getEndDate(), reservation.getFrom(), reservation.getTo())
+							.then(repository.findByIdForUpdate(connection, reservation.getId()))
+							.switchIfEmpty(Mono.defer(() -> Mono.error(notFound(reservation.getId()))))
+							.flatMap(saved -> lockMoved(connection, read, saved).thenReturn(saved));
+				})
+				.flatMap(saved -> {
+					Reservation edited = new Reservation(saved.getId(),
+							saved.getName(), saved.getEmail(), reservation.getFrom(), reservation.getTo());
+					return validateAvailability(connection, reservationConverter.toDTO(edited))
+							.then(repository.updateDates(connection, edited))
+							.then(outbox.append(connection, ReservationEvent.Type.EDITED, edited))
+							.thenReturn(Tuples.of(saved.getStartDate(), edited));
+				}))
+				.doOnNext(previousAndEdited -> {
+					Reservation edited = previousAndEdited.getT2();
+					availabilityIndex.occupy(edited.getId(), edited.getStartDate(), edited.getEndDate());
+					evict(edited.getId(), previousAndEdited.getT1(), edited.getStartDate());
+				})
+				.map(previousAndEdited -> reservationConverter.toDTO(previousAndEdited.getT2())));
+	}
+
+	public Mono<Void> cancelReservation(UUID reservationId) {
+		return write(connection -> repository.findById(connection, reservationId)
+				.switchIfEmpty(Mono.defer(() -> Mono.error(notFound(reservationId))))
+				.flatMap(reservation -> repository.cancel(connection, reservationId)
+						.then(outbox.append(connection, ReservationEvent.Type.CANCELLED, reservation))
+						.thenReturn(reservation)))
+				.doOnNext(reservation -> {
+					availabilityIndex.release(reservationId);
+					evict(reservationId, reservation.getStartDate());
+				})
+				.then();
+	}
+
+	// A transaction of its own, with the database rejecting overlapping bookings as a conflict
+	private <T> Mono<T> write(Function<Connection, Mono<T>> work) {
+		return repository.inTransaction(work)
+				.onErrorMap(e -> SqlStates.hasSqlState(e, SqlStates.EXCLUSION_VIOLATION),
+						e -> new ReservationConflictException(
+								"There is a valid reservation in place for those dates.", (Exception) e));
+	}
+
+	// Expects the booking locks for the reservation to be held already
+	private Mono<Void> validateAvailability(Connection connection, ReservationDTO reservation) {
+		//Dates already taken, as far as this instance knows. The index may trail cancellations, so the database
+		//confirms, across partitions. It has the final word on insert anyway.
+		return Mono.defer(() -> availabilityIndex.isAvailable(reservation.getFrom(), reservation.getTo(), reservation.getId())
+				? validateAcrossPartitions(connection, reservation)
+				: rejectOverlapping(connection, reservation)).then(
+				//Dates held by someone else, who is about to confirm them
+				Mono.fromCallable(() -> holdStore.isHeldByOther(reservation.getFrom(), reservation.getTo(), null))
+						.subscribeOn(Schedulers.elastic())
+						.flatMap(held -> held
+								? Mono.error(new ReservationConflictException(
+										"Those dates are being booked by someone else. Try again later, please."))
+								: Mono.<Void>empty())).then(
+				//Client already has a valid booking
+				repository.findOtherActive(connection,
+						reservation.getName(), reservation.getEmail(), LocalDate.now(), reservation.getId())
+						.flatMap(id -> Mono.error(new InvalidReservationException(String.format(
+								"There is already a valid reservation in place for you. Reservation id: %s", id)))));
+	}
+
+	// Days the reservation moved to, through an edit that committed before the locks were taken
+	private Mono<Void> lockMoved(Connection connection, Reservation read, Reservation saved) {
+		if (saved.getStartDate().equals(read.getStartDate()) && saved.getEndDate().equals(read.getEndDate())) {
+			return Mono.empty();
+		}
+		return lockManager.lock(connection, saved.getEmail(), saved.getStartDate(), saved.getEndDate());
+	}
+
+	// Each partition only rules out overlaps among its own rows, so bookings near the end of a month check across
+	private Mono<Void> validateAcrossPartitions(Connection connection, ReservationDTO reservation) {
+		LocalDate earliestStart = reservation.getFrom().minusDays(ReservationService.MAX_RESERVATION_DAYS);
+		if (!ReservationPartitions.spans(earliestStart, reservation.getTo())) {
+			return Mono.empty();
+		}
+		return rejectOverlapping(connection, reservation);
+	}
+
+	private Mono<Void> rejectOverlapping(Connection connection, ReservationDTO reservation) {
+		return repository.findOverlapping(connection, reservation.getFrom(), reservation.getTo(), reservation.getId())
+				.flatMap(id -> Mono.error(new ReservationConflictException(
+						"There is a valid reservation in place for those dates.")));
+	}
+
+	private void evict(UUID reservationId, LocalDate... startDates) {
+		Mono.fromRunnable(() -> {
+			idCache.evict(reservationId);
+			for (LocalDate startDate : startDates) {
+				dayCache.evict(startDate);
+			}
+		}).subscribeOn(Schedulers.elastic()).subscribe(evicted -> { }, e -> { });
+	}
+
+	private static List<ReservationDTO> orderedAs(Set<UUID> ids, Map<UUID, ReservationDTO> found) {
+		return ids.stream()
+				.map(found::get)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+	}
+
+	private static NotFoundException notFound(UUID reservationId) {
+		return new NotFoundException(String.format("Reservation %s not found", reservationId));
+	}
+}
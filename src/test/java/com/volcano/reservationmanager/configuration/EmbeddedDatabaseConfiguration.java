@@ -2,6 +2,7 @@ package com.volcano.reservationmanager.configuration;
 
 import org.postgresql.ds.PGSimpleDataSource;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.DependsOn;
@@ -12,7 +13,9 @@ import org.springframework.context.event.EventListener;
 import ru.yandex.qatools.embed.postgresql.PostgresExecutable;
 import ru.yandex.qatools.embed.postgresql.PostgresProcess;
 import ru.yandex.qatools.embed.postgresql.PostgresStarter;
+import ru.yandex.qatools.embed.postgresql.config.AbstractPostgresConfig;
 import ru.yandex.qatools.embed.postgresql.config.PostgresConfig;
+import ru.yandex.qatools.embed.postgresql.distribution.Version;
 
 import javax.sql.DataSource;
 import java.io.IOException;
@@ -20,7 +23,7 @@ import java.io.IOException;
 import static java.lang.String.format;
 import static org.apache.commons.lang3.StringUtils.isNumeric;
 
-@Profile("test")
+@Profile({"test", "loadtest"})
 @Configuration
 public class EmbeddedDatabaseConfiguration {
 
@@ -47,7 +50,12 @@ public class EmbeddedDatabaseConfiguration {
 			throw new IllegalStateException(format("To start a embedded postgres the property spring.embedded-postgres.port is not a number %s", port));
 		}
 
-		PostgresConfig postgresConfig = PostgresConfig.defaultWithDbName("postgres_test", username, password);
+		//Partitioned tables with primary keys take Postgres 11
+		PostgresConfig postgresConfig = new PostgresConfig(Version.Main.V11,
+				new AbstractPostgresConfig.Net(),
+				new AbstractPostgresConfig.Storage("postgres_test"),
+				new AbstractPostgresConfig.Timeout(),
+				new AbstractPostgresConfig.Credentials(username, password));
 
 		PostgresStarter<PostgresExecutable, PostgresProcess> runtime = PostgresStarter.getDefaultInstance();
 		PostgresExecutable exec = runtime.prepare(postgresConfig);
@@ -57,10 +65,17 @@ public class EmbeddedDatabaseConfiguration {
 
 	@Bean
 	@DependsOn("postgresProcess")
-	public DataSource dataSource(PostgresProcess postgresProcess) {
+	public DataSource dataSource(PostgresProcess postgresProcess, DataSourceProperties properties) {
 		PGSimpleDataSource dataSource = new PGSimpleDataSource();
 
 		PostgresConfig postgresConfig = postgresProcess.getConfig();
+
+		//For whatever connects on its own, such as the reactive stack
+		properties.setUrl(format("jdbc:postgresql://%s:%d/%s",
+				postgresConfig.net().host(), postgresConfig.net().port(), postgresConfig.storage().dbName()));
+		properties.setUsername(postgresConfig.credentials().username());
+		properties.setPassword(postgresConfig.credentials().password());
+
 		dataSource.setUser(postgresConfig.credentials().username());
 		dataSource.setPassword(postgresConfig.credentials().password());
 		dataSource.setPortNumber(postgresConfig.net().port());
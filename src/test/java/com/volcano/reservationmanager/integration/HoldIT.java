@@ -0,0 +1,161 @@
+package com.volcano.reservationmanager.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
+import com.volcano.reservationmanager.ReservationManagerApplication;
+import com.volcano.reservationmanager.models.HoldDTO;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two step bookings through /reservations/holds, with holds short enough to watch them expire.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = ReservationManagerApplication.class, properties = "reservations.holds.time-to-live=1500")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class HoldIT {
+
+	private static final LocalDate FROM = LocalDate.now().plus(5, ChronoUnit.DAYS);
+	private static final LocalDate TO = LocalDate.now().plus(7, ChronoUnit.DAYS);
+
+	@Autowired
+	private WebApplicationContext wac;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setup() {
+		this.mockMvc = MockMvcBuilders.webAppContextSetup(this.wac).build();
+	}
+
+	@Test
+	public void confirms_a_hold_into_a_reservation() throws Exception {
+		//Given
+		HoldDTO hold = hold("Matheus", "matheus@email.com");
+
+		//When
+		MvcResult confirmed = performAsync(post("/reservations/holds/{id}/confirm", hold.getId()))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		//Then
+		ReservationDTO reservation = getObjectMapper()
+				.readerFor(ReservationDTO.class)
+				.readValue(confirmed.getResponse().getContentAsString());
+		mockMvc.perform(get("/reservations/{id}", reservation.getId()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.from", equalTo(FROM.toString())));
+		performAsync(post("/reservations/holds/{id}/confirm", hold.getId()))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	public void keeps_held_days_from_other_bookings() throws Exception {
+		//Given
+		hold("Matheus", "matheus@email.com");
+
+		//Then
+		performAsync(post("/reservations")
+				.content(getObjectMapper().writeValueAsString(new ReservationDTO("Ana", "ana@email.com", FROM, TO)))
+				.header("Content-type", "application/json"))
+				.andExpect(status().isConflict());
+		requestHold("Ana", "ana@email.com", TO, TO.plusDays(1))
+				.andExpect(status().isConflict());
+	}
+
+	@Test
+	public void frees_the_days_once_a_hold_expires() throws Exception {
+		//Given
+		HoldDTO hold = hold("Matheus", "matheus@email.com");
+
+		//When
+		Thread.sleep(2000);
+
+		//Then
+		performAsync(post("/reservations/holds/{id}/confirm", hold.getId()))
+				.andExpect(status().isNotFound());
+		performAsync(post("/reservations")
+				.content(getObjectMapper().writeValueAsString(new ReservationDTO("Ana", "ana@email.com", FROM, TO)))
+				.header("Content-type", "application/json"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void holds_one_booking_per_guest() throws Exception {
+		//Given
+		hold("Matheus", "matheus@email.com");
+
+		//Then a guest holding some days cannot hold others
+		requestHold("Matheus", "matheus@email.com", FROM.plusDays(10), FROM.plusDays(11))
+				.andExpect(status().isBadRequest());
+
+		//And neither can a guest who has booked already
+		performAsync(post("/reservations")
+				.content(getObjectMapper().writeValueAsString(
+						new ReservationDTO("Ana", "ana@email.com", FROM.plusDays(10), FROM.plusDays(11))))
+				.header("Content-type", "application/json"))
+				.andExpect(status().isOk());
+		requestHold("Ana", "ana@email.com", FROM.plusDays(15), FROM.plusDays(16))
+				.andExpect(status().isBadRequest());
+	}
+
+	private HoldDTO hold(String name, String email) throws Exception {
+		MvcResult held = requestHold(name, email, FROM, TO)
+				.andExpect(status().isOk())
+				.andReturn();
+		return getObjectMapper()
+				.readerFor(HoldDTO.class)
+				.readValue(held.getResponse().getContentAsString());
+	}
+
+	private ResultActions requestHold(String name, String email, LocalDate from, LocalDate to) throws Exception {
+		return mockMvc.perform(post("/reservations/holds")
+				.content(getObjectMapper().writeValueAsString(new HoldDTO(null, name, email, from, to, null)))
+				.header("Content-type", "application/json"));
+	}
+
+	// Writes run on the booking executor: waits for them and dispatches the result back, as the container would
+	private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+		MvcResult started = mockMvc.perform(requestBuilder)
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(asyncDispatch(started));
+	}
+
+	private ObjectMapper getObjectMapper() {
+		ObjectMapper objectMapper = new ObjectMapper();
+		JavaTimeModule module = new JavaTimeModule();
+		module.addSerializer(LocalDate.class, new LocalDateSerializer(DateTimeFormatter.ISO_DATE));
+
+		objectMapper.registerModule(module);
+
+		return objectMapper;
+	}
+}
@@ -0,0 +1,190 @@
+package com.volcano.reservationmanager.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
+import com.volcano.reservationmanager.ReservationManagerApplication;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.routing.ReadYourWritesFilter;
+import com.volcano.reservationmanager.services.ReservationOutbox;
+import com.volcano.reservationmanager.services.ReservationProjector;
+import com.volcano.reservationmanager.services.ReservationReadModel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.servlet.http.Cookie;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Listings and availability served from the read model, as in production. The projector only runs when a test
+ * says so, to watch the read model trail the tables.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = ReservationManagerApplication.class, properties = {
+		"reservations.read-model.enabled=true",
+		"reservations.read-model.poll-interval=3600000"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class ReadModelIT {
+
+	private static final LocalDate FROM = LocalDate.now().plus(1, ChronoUnit.DAYS);
+	private static final LocalDate TO = LocalDate.now().plus(2, ChronoUnit.DAYS);
+
+	@Autowired
+	private WebApplicationContext wac;
+
+	@Autowired
+	private ReservationProjector projector;
+
+	@Autowired
+	private ReservationReadModel readModel;
+
+	@Autowired
+	private ReservationOutbox outbox;
+
+	@Autowired
+	private FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setup() {
+		this.mockMvc = MockMvcBuilders.webAppContextSetup(this.wac)
+				.addFilters(readYourWritesFilter.getFilter())
+				.build();
+		projector.poll();
+	}
+
+	@Test
+	public void serves_listings_once_the_projector_catches_up() throws Exception {
+		//Given
+		book();
+
+		//When
+		projector.poll();
+
+		//Then
+		Assertions.assertTrue(outbox.read(readModel.getPosition(), 1).isEmpty());
+		mockMvc.perform(get("/reservations")
+				.param("from", FROM.toString())
+				.param("to", TO.toString()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(jsonPath("$[0].email", equalTo("matheus@email.com")));
+		mockMvc.perform(get("/reservations/availability")
+				.param("from", FROM.toString())
+				.param("to", TO.toString()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", is(empty())));
+	}
+
+	@Test
+	public void trails_writes_until_the_projector_catches_up() throws Exception {
+		//Given
+		book();
+
+		//Then
+		Assertions.assertFalse(outbox.read(readModel.getPosition(), 1).isEmpty());
+		mockMvc.perform(get("/reservations")
+				.param("from", FROM.toString())
+				.param("to", TO.toString()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", is(empty())));
+	}
+
+	@Test
+	public void shows_clients_their_own_writes_straight_away() throws Exception {
+		//Given
+		Cookie primaryUntil = book().andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+
+		//Then
+		Assertions.assertNotNull(primaryUntil);
+		mockMvc.perform(get("/reservations")
+				.param("from", FROM.toString())
+				.param("to", TO.toString())
+				.cookie(primaryUntil))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(1)));
+		mockMvc.perform(get("/reservations/availability")
+				.param("from", FROM.toString())
+				.param("to", TO.toString())
+				.cookie(primaryUntil))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", is(empty())));
+	}
+
+	@Test
+	public void pins_clients_only_after_writes_that_succeed() throws Exception {
+		//Given
+		book();
+
+		//When
+		Cookie afterConflict = performAsync(post("/reservations")
+				.content(getObjectMapper().writeValueAsString(new ReservationDTO("Ann", "ann@email.com", FROM, TO)))
+				.header("Content-type", "application/json"))
+				.andExpect(status().isConflict())
+				.andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+		Cookie afterLookup = mockMvc.perform(post("/reservations/lookup")
+				.content("[]")
+				.header("Content-type", "application/json"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+
+		//Then
+		Assertions.assertNull(afterConflict);
+		Assertions.assertNull(afterLookup);
+	}
+
+	private ResultActions book() throws Exception {
+		return performAsync(post("/reservations")
+				.content(getObjectMapper().writeValueAsString(new ReservationDTO("Matheus", "matheus@email.com", FROM, TO)))
+				.header("Content-type", "application/json"))
+				.andExpect(status().isOk());
+	}
+
+	// Writes run on the booking executor: waits for them and dispatches the result back, as the container would
+	private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+		MvcResult started = mockMvc.perform(requestBuilder)
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(asyncDispatch(started));
+	}
+
+	private ObjectMapper getObjectMapper() {
+		ObjectMapper objectMapper = new ObjectMapper();
+		JavaTimeModule module = new JavaTimeModule();
+		module.addSerializer(LocalDate.class, new LocalDateSerializer(DateTimeFormatter.ISO_DATE));
+
+		objectMapper.registerModule(module);
+
+		return objectMapper;
+	}
+}
@@ -0,0 +1,145 @@
+package com.volcano.reservationmanager.integration;
+
+import com.volcano.reservationmanager.routing.ReadYourWrites;
+import com.volcano.reservationmanager.routing.ReplicaRoutingDataSource;
+import com.volcano.reservationmanager.routing.ReplicaSet;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.qatools.embed.postgresql.PostgresProcess;
+import ru.yandex.qatools.embed.postgresql.PostgresStarter;
+import ru.yandex.qatools.embed.postgresql.config.PostgresConfig;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Routing between two embedded Postgres instances, one standing in for the primary and one for a replica. Each
+ * is told apart by the port it answers on.
+ */
+public class ReadReplicaRoutingIT {
+
+	private static PostgresProcess primaryProcess;
+	private static PostgresProcess replicaProcess;
+	private static HikariDataSource primary;
+	private static ReplicaSet replicas;
+
+	private static JdbcTemplate jdbcTemplate;
+	private static TransactionTemplate readOnly;
+	private static TransactionTemplate readWrite;
+
+	@BeforeAll
+	static void setUp() throws IOException {
+		primaryProcess = start("primary_test");
+		replicaProcess = start("replica_test");
+
+		primary = new HikariDataSource();
+		primary.setJdbcUrl(url(primaryProcess));
+		primary.setUsername(primaryProcess.getConfig().credentials().username());
+		primary.setPassword(primaryProcess.getConfig().credentials().password());
+		primary.setConnectionTimeout(1000);
+		primary.setInitializationFailTimeout(-1);
+
+		replicas = new ReplicaSet(primary, Collections.singletonList(url(replicaProcess)), 1000, new SimpleMeterRegistry());
+		replicas.checkLag();
+
+		DataSource dataSource = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas));
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		readWrite = new TransactionTemplate(transactionManager);
+	}
+
+	@AfterAll
+	static void tearDown() {
+		replicas.destroy();
+		primary.close();
+		primaryProcess.stop();
+		replicaProcess.stop();
+	}
+
+	@AfterEach
+	void unpin() {
+		ReadYourWrites.unpin();
+	}
+
+	@Test
+	public void reads_from_the_replica() {
+		Assertions.assertEquals(port(replicaProcess), readOnly.execute(status -> answeringPort()));
+	}
+
+	@Test
+	public void writes_to_the_primary() {
+		Assertions.assertEquals(port(primaryProcess), readWrite.execute(status -> answeringPort()));
+	}
+
+	@Test
+	public void reads_own_writes_from_the_primary() {
+		//Given
+		ReadYourWrites.pin();
+
+		//Then
+		Assertions.assertEquals(port(primaryProcess), readOnly.execute(status -> answeringPort()));
+	}
+
+	@Test
+	public void falls_back_to_the_primary_without_replicas() throws IOException {
+		//Given a replica of its own, so stopping it leaves the shared one to the other tests
+		PostgresProcess doomedProcess = start("doomed_replica_test");
+		ReplicaSet doomed = new ReplicaSet(primary, Collections.singletonList(url(doomedProcess)), 1000,
+				new SimpleMeterRegistry());
+		try {
+			DataSource dataSource = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, doomed));
+			JdbcTemplate doomedTemplate = new JdbcTemplate(dataSource);
+			TransactionTemplate doomedReadOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+			doomedReadOnly.setReadOnly(true);
+			doomed.checkLag();
+			Assertions.assertEquals(port(doomedProcess), doomedReadOnly.execute(status -> answeringPort(doomedTemplate)));
+
+			//When
+			doomedProcess.stop();
+			doomed.checkLag();
+
+			//Then
+			Assertions.assertEquals(port(primaryProcess), doomedReadOnly.execute(status -> answeringPort(doomedTemplate)));
+		} finally {
+			doomed.destroy();
+			if (doomedProcess.isProcessRunning()) {
+				doomedProcess.stop();
+			}
+		}
+	}
+
+	private static String answeringPort() {
+		return answeringPort(jdbcTemplate);
+	}
+
+	private static String answeringPort(JdbcTemplate template) {
+		return template.queryForObject("SELECT current_setting('port')", String.class);
+	}
+
+	private static PostgresProcess start(String database) throws IOException {
+		PostgresConfig config = PostgresConfig.defaultWithDbName(database, "postgres-user-test", "postgres-passwd-test");
+		return PostgresStarter.getDefaultInstance().prepare(config).start();
+	}
+
+	private static String url(PostgresProcess process) {
+		PostgresConfig config = process.getConfig();
+		return String.format("jdbc:postgresql://%s:%d/%s",
+				config.net().host(), config.net().port(), config.storage().dbName());
+	}
+
+	private static String port(PostgresProcess process) {
+		return Integer.toString(process.getConfig().net().port());
+	}
+}
@@ -5,39 +5,58 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
 import com.volcano.reservationmanager.ReservationManagerApplication;
+import com.volcano.reservationmanager.models.OutboxPosition;
 import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.models.ReservationEvent;
+import com.volcano.reservationmanager.services.ReservationOutbox;
+import com.volcano.reservationmanager.services.ReservationService;
+import com.volcano.reservationmanager.utils.SqlStatements;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.context.WebApplicationContext;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.Statement;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.Matchers.empty;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
@@ -50,6 +69,18 @@ public class ReservationManagerApplicationIT {
 	@Autowired
 	private WebApplicationContext wac;
 
+	@Autowired
+	private ReservationOutbox outbox;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
 	private MockMvc mockMvc;
 
 	@BeforeEach
@@ -73,8 +104,7 @@ public class ReservationManagerApplicationIT {
 				LocalDate.now().plus(2, ChronoUnit.DAYS)
 		);
 
-		mockMvc
-			.perform(post("/reservations")
+		performAsync(post("/reservations")
 					.content(getObjectMapper().writeValueAsString(reservation))
 					.header("Content-type", "application/json"))
 			.andReturn();
@@ -87,6 +117,55 @@ public class ReservationManagerApplicationIT {
 
 	}
 
+	@Test
+	public void pages_through_reservations() throws Exception {
+		//Save two reservations
+		ReservationDTO firstReservation = new ReservationDTO(
+				"Matheus",
+				"matheus@email.com",
+				LocalDate.now().plus(1, ChronoUnit.DAYS),
+				LocalDate.now().plus(2, ChronoUnit.DAYS)
+		);
+		ReservationDTO secondReservation = new ReservationDTO(
+				"Anna",
+				"anna@email.com",
+				LocalDate.now().plus(5, ChronoUnit.DAYS),
+				LocalDate.now().plus(6, ChronoUnit.DAYS)
+		);
+		for (ReservationDTO reservation : new ReservationDTO[]{firstReservation, secondReservation}) {
+			performAsync(post("/reservations")
+					.content(getObjectMapper().writeValueAsString(reservation))
+					.header("Content-type", "application/json"))
+					.andExpect(status().isOk());
+		}
+
+		//First page
+		MvcResult firstPage = mockMvc.perform(get("/reservations")
+				.param("from", LocalDate.now().format(DateTimeFormatter.ISO_DATE))
+				.param("to", LocalDate.now().plus(10, ChronoUnit.DAYS).format(DateTimeFormatter.ISO_DATE))
+				.param("size", "1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()", is(1)))
+				.andExpect(jsonPath("$[0].name", equalTo("Matheus")))
+				.andReturn();
+
+		String continuationToken = firstPage.getResponse().getHeader("X-Continuation-Token");
+		Assertions.assertNotNull(continuationToken);
+
+		//Second and last page
+		MvcResult secondPage = mockMvc.perform(get("/reservations")
+				.param("from", LocalDate.now().format(DateTimeFormatter.ISO_DATE))
+				.param("to", LocalDate.now().plus(10, ChronoUnit.DAYS).format(DateTimeFormatter.ISO_DATE))
+				.param("size", "1")
+				.param("continuationToken", continuationToken))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()", is(1)))
+				.andExpect(jsonPath("$[0].name", equalTo("Anna")))
+				.andReturn();
+
+		Assertions.assertNull(secondPage.getResponse().getHeader("X-Continuation-Token"));
+	}
+
 	@Test
 	public void test_crud_reservation() throws Exception {
 		//Save reservation
@@ -96,8 +175,7 @@ public class ReservationManagerApplicationIT {
 				LocalDate.now().plus(1, ChronoUnit.DAYS),
 				LocalDate.now().plus(2, ChronoUnit.DAYS)
 		);
-		MvcResult mvcResult = mockMvc
-				.perform(post("/reservations")
+		MvcResult mvcResult = performAsync(post("/reservations")
 						.content(getObjectMapper().writeValueAsString(reservation))
 						.header("Content-type", "application/json"))
 				.andReturn();
@@ -112,8 +190,7 @@ public class ReservationManagerApplicationIT {
 				.andExpect(jsonPath("$.id", equalTo(savedReservation.getId().toString())));
 
 		//Delete reservation
-		mockMvc
-				.perform(delete("/reservations/" + savedReservation.getId()))
+		performAsync(delete("/reservations/" + savedReservation.getId()))
 				.andExpect(status().isOk() );
 
 
@@ -128,8 +205,7 @@ public class ReservationManagerApplicationIT {
 				LocalDate.now().plus(10, ChronoUnit.DAYS),
 				LocalDate.now().plus(12, ChronoUnit.DAYS)
 		);
-		MvcResult mvcResult = mockMvc
-				.perform(post("/reservations")
+		MvcResult mvcResult = performAsync(post("/reservations")
 						.content(getObjectMapper().writeValueAsString(firstReservation))
 						.header("Content-type", "application/json"))
 				.andReturn();
@@ -140,8 +216,7 @@ public class ReservationManagerApplicationIT {
 				LocalDate.now().plus(1, ChronoUnit.DAYS),
 				LocalDate.now().plus(2, ChronoUnit.DAYS)
 		);
-		mockMvc
-				.perform(post("/reservations")
+		performAsync(post("/reservations")
 						.content(getObjectMapper().writeValueAsString(secondReservation))
 						.header("Content-type", "application/json"))
 				.andExpect(status().is4xxClientError());
@@ -157,8 +232,7 @@ public class ReservationManagerApplicationIT {
 				LocalDate.now().plus(10, ChronoUnit.DAYS),
 				LocalDate.now().plus(12, ChronoUnit.DAYS)
 		);
-		MvcResult mvcResult = mockMvc
-				.perform(post("/reservations")
+		MvcResult mvcResult = performAsync(post("/reservations")
 						.content(getObjectMapper().writeValueAsString(firstReservation))
 						.header("Content-type", "application/json"))
 				.andReturn();
@@ -169,8 +243,7 @@ public class ReservationManagerApplicationIT {
 				LocalDate.now().plus(10, ChronoUnit.DAYS),
 				LocalDate.now().plus(12, ChronoUnit.DAYS)
 		);
-		mockMvc
-				.perform(post("/reservations")
+		performAsync(post("/reservations")
 						.content(getObjectMapper().writeValueAsString(secondReservation))
 						.header("Content-type", "application/json"))
 				.andExpect(status().is4xxClientError());
@@ -208,7 +281,7 @@ public class ReservationManagerApplicationIT {
 		CompletableFuture<Void> allFutures = CompletableFuture.allOf(
 			CompletableFuture.runAsync(() -> {
 				try {
-					mockMvc.perform(post("/reservations")
+					performAsync(post("/reservations")
 							.content(getObjectMapper().writeValueAsString(firstReservation))
 							.header("Content-type", "application/json"));
 				} catch (Exception e) {
@@ -217,7 +290,7 @@ public class ReservationManagerApplicationIT {
 			}),
 			CompletableFuture.runAsync(() -> {
 				try {
-					mockMvc.perform(post("/reservations")
+					performAsync(post("/reservations")
 							.content(getObjectMapper().writeValueAsString(secondReservation))
 							.header("Content-type", "application/json"));
 				} catch (Exception e) {
@@ -241,7 +314,7 @@ public class ReservationManagerApplicationIT {
 						.readerFor(new TypeReference<List<ReservationDTO>>() {})
 						.readValue(mvcResult.getResponse().getContentAsString());
 				for (ReservationDTO r : savedReservations) {
-					mockMvc.perform(delete("/reservations/{id}", r.getId()));
+					performAsync(delete("/reservations/{id}", r.getId()));
 				}
 
 			} catch (Exception e) {
@@ -261,7 +334,7 @@ public class ReservationManagerApplicationIT {
 				LocalDate.now().plus(10, ChronoUnit.DAYS),
 				LocalDate.now().plus(12, ChronoUnit.DAYS)
 		);
-		MvcResult mvcResult = mockMvc.perform(post("/reservations")
+		MvcResult mvcResult = performAsync(post("/reservations")
 				.content(getObjectMapper().writeValueAsString(firstReservation))
 				.header("Content-type", "application/json"))
 				.andExpect(status().isOk())
@@ -279,7 +352,7 @@ public class ReservationManagerApplicationIT {
 				LocalDate.now().plus(11, ChronoUnit.DAYS),
 				LocalDate.now().plus(13, ChronoUnit.DAYS)
 		);
-		mockMvc.perform(put("/reservations")
+		performAsync(put("/reservations")
 				.content(getObjectMapper().writeValueAsString(editedReservation))
 				.header("Content-type", "application/json"))
 				.andExpect(status().isOk())
@@ -307,7 +380,7 @@ public class ReservationManagerApplicationIT {
 				LocalDate.now().plus(5, ChronoUnit.DAYS),
 				LocalDate.now().plus(8, ChronoUnit.DAYS)
 		);
-		MvcResult mvcResult = mockMvc.perform(post("/reservations")
+		MvcResult mvcResult = performAsync(post("/reservations")
 				.content(getObjectMapper().writeValueAsString(firstReservation))
 				.header("Content-type", "application/json"))
 				.andExpect(status().isOk())
@@ -319,7 +392,7 @@ public class ReservationManagerApplicationIT {
 				LocalDate.now().plus(10, ChronoUnit.DAYS),
 				LocalDate.now().plus(12, ChronoUnit.DAYS)
 		);
-		MvcResult mvcResult2 = mockMvc.perform(post("/reservations")
+		MvcResult mvcResult2 = performAsync(post("/reservations")
 				.content(getObjectMapper().writeValueAsString(secondReservation))
 				.header("Content-type", "application/json"))
 				.andExpect(status().isOk())
@@ -337,11 +410,241 @@ public class ReservationManagerApplicationIT {
 				LocalDate.now().plus(5, ChronoUnit.DAYS),
 				LocalDate.now().plus(8, ChronoUnit.DAYS)
 		);
-		mockMvc.perform(put("/reservations")
+		performAsync(put("/reservations")
 				.content(getObjectMapper().writeValueAsString(editedReservation))
 				.header("Content-type", "application/json"))
-				.andExpect(status().isBadRequest())
+				.andExpect(status().isConflict())
+				.andReturn();
+	}
+
+	@Test
+	public void keeps_sql_round_trips_in_check() throws Exception {
+		//Create: guest lock, day locks, guest check, insert and outbox event, plus an overlap check near a month's end
+		ReservationDTO reservation = new ReservationDTO(
+				"Ann",
+				"ann@email.com",
+				LocalDate.now().plus(10, ChronoUnit.DAYS),
+				LocalDate.now().plus(12, ChronoUnit.DAYS)
+		);
+		MvcResult mvcResult = performAsync(post("/reservations")
+				.content(getObjectMapper().writeValueAsString(reservation))
+				.header("Content-type", "application/json"))
+				.andExpect(status().isOk())
+				.andExpect(SqlStatements.atMost(6))
+				.andReturn();
+
+		ReservationDTO savedReservation = getObjectMapper()
+				.readerFor(ReservationDTO.class)
+				.readValue(mvcResult.getResponse().getContentAsString());
+
+		//Get: one select
+		mockMvc.perform(get("/reservations/{id}", savedReservation.getId()))
+				.andExpect(status().isOk())
+				.andExpect(SqlStatements.atMost(1));
+
+		//Edit: select, guest lock, day locks for both ranges, select for update, guest check, update and outbox event,
+		//plus the overlap check
+		ReservationDTO editedReservation = new ReservationDTO(
+				savedReservation.getId(),
+				"Ann",
+				"ann@email.com",
+				LocalDate.now().plus(14, ChronoUnit.DAYS),
+				LocalDate.now().plus(16, ChronoUnit.DAYS)
+		);
+		performAsync(put("/reservations")
+				.content(getObjectMapper().writeValueAsString(editedReservation))
+				.header("Content-type", "application/json"))
+				.andExpect(status().isOk())
+				.andExpect(SqlStatements.atMost(9));
+
+		//Cancel: select, status update and outbox event
+		performAsync(delete("/reservations/{id}", savedReservation.getId()))
+				.andExpect(status().isOk())
+				.andExpect(SqlStatements.atMost(3));
+	}
+
+	@Test
+	public void lists_available_days() throws Exception {
+		//Given
+		ReservationDTO reservation = new ReservationDTO(
+				"Matheus",
+				"matheus@email.com",
+				LocalDate.now().plus(1, ChronoUnit.DAYS),
+				LocalDate.now().plus(2, ChronoUnit.DAYS)
+		);
+		performAsync(post("/reservations")
+				.content(getObjectMapper().writeValueAsString(reservation))
+				.header("Content-type", "application/json"))
+				.andExpect(status().isOk());
+
+		//Then
+		mockMvc.perform(get("/reservations/availability")
+				.param("from", LocalDate.now().plus(1, ChronoUnit.DAYS).toString())
+				.param("to", LocalDate.now().plus(4, ChronoUnit.DAYS).toString()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()", is(2)))
+				.andExpect(jsonPath("$[0]", equalTo(LocalDate.now().plus(3, ChronoUnit.DAYS).toString())))
+				.andExpect(jsonPath("$[1]", equalTo(LocalDate.now().plus(4, ChronoUnit.DAYS).toString())));
+	}
+
+	@Test
+	public void appends_changes_to_the_outbox() throws Exception {
+		//Given
+		OutboxPosition start = outbox.start();
+		ReservationDTO reservation = new ReservationDTO(
+				"Matheus",
+				"matheus@email.com",
+				LocalDate.now().plus(1, ChronoUnit.DAYS),
+				LocalDate.now().plus(2, ChronoUnit.DAYS)
+		);
+		MvcResult mvcResult = performAsync(post("/reservations")
+				.content(getObjectMapper().writeValueAsString(reservation))
+				.header("Content-type", "application/json"))
+				.andExpect(status().isOk())
+				.andReturn();
+		ReservationDTO savedReservation = getObjectMapper()
+				.readerFor(ReservationDTO.class)
+				.readValue(mvcResult.getResponse().getContentAsString());
+
+		//When
+		performAsync(delete("/reservations/{id}", savedReservation.getId()))
+				.andExpect(status().isOk());
+
+		//Then
+		List<ReservationEvent> events = outbox.read(start, 10);
+		Assertions.assertEquals(2, events.size());
+		Assertions.assertEquals(ReservationEvent.Type.CREATED, events.get(0).getType());
+		Assertions.assertEquals(ReservationEvent.Type.CANCELLED, events.get(1).getType());
+		Assertions.assertEquals(savedReservation.getId(), events.get(1).getReservation().getId());
+		Assertions.assertEquals(reservation.getFrom(), events.get(1).getReservation().getFrom());
+	}
+
+	@Test
+	public void holds_events_back_until_earlier_transactions_finish() throws Exception {
+		//Given a transaction that appended an event and has not committed yet
+		OutboxPosition start = outbox.start();
+		try (Connection running = dataSource.getConnection()) {
+			running.setAutoCommit(false);
+			try (Statement statement = running.createStatement()) {
+				statement.executeUpdate("INSERT INTO reservation_event " +
+						"(type, reservation_id, start_date, end_date, occurred_at) " +
+						"VALUES ('CANCELLED', '" + UUID.randomUUID() + "', CURRENT_DATE, CURRENT_DATE, clock_timestamp())");
+			}
+
+			//When a booking commits in the meantime
+			performAsync(post("/reservations")
+					.content(getObjectMapper().writeValueAsString(new ReservationDTO(
+							"Matheus",
+							"matheus@email.com",
+							LocalDate.now().plus(1, ChronoUnit.DAYS),
+							LocalDate.now().plus(2, ChronoUnit.DAYS))))
+					.header("Content-type", "application/json"))
+					.andExpect(status().isOk());
+
+			//Then readers wait for the earlier transaction
+			Assertions.assertTrue(outbox.read(start, 10).isEmpty());
+			running.commit();
+		}
+
+		//And get both events in the order the transactions started
+		List<ReservationEvent> events = outbox.read(start, 10);
+		Assertions.assertEquals(2, events.size());
+		Assertions.assertEquals(ReservationEvent.Type.CANCELLED, events.get(0).getType());
+		Assertions.assertEquals(ReservationEvent.Type.CREATED, events.get(1).getType());
+	}
+
+	@Test
+	public void keeps_cancelled_reservations_out_of_the_way() throws Exception {
+		//Given
+		ReservationDTO reservation = new ReservationDTO(
+				"Matheus",
+				"matheus@email.com",
+				LocalDate.now().plus(1, ChronoUnit.DAYS),
+				LocalDate.now().plus(2, ChronoUnit.DAYS)
+		);
+		MvcResult mvcResult = performAsync(post("/reservations")
+				.content(getObjectMapper().writeValueAsString(reservation))
+				.header("Content-type", "application/json"))
+				.andExpect(status().isOk())
+				.andReturn();
+		ReservationDTO savedReservation = getObjectMapper()
+				.readerFor(ReservationDTO.class)
+				.readValue(mvcResult.getResponse().getContentAsString());
+
+		//When
+		performAsync(delete("/reservations/{id}", savedReservation.getId()))
+				.andExpect(status().isOk());
+
+		//Then the row stays, but the reservation is gone and its days can be booked again
+		Assertions.assertEquals("CANCELLED", jdbcTemplate.queryForObject(
+				"SELECT status FROM reservation WHERE id = ?", String.class, savedReservation.getId()));
+		mockMvc.perform(get("/reservations/{id}", savedReservation.getId()))
+				.andExpect(status().isNotFound());
+		performAsync(post("/reservations")
+				.content(getObjectMapper().writeValueAsString(reservation))
+				.header("Content-type", "application/json"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void rejects_overlaps_across_partitions() throws Exception {
+		//Given a reservation on the first of next month, committed behind the availability index's back
+		LocalDate firstOfNextMonth = LocalDate.now().withDayOfMonth(1).plusMonths(1);
+		TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+		newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		newTransaction.execute(status -> jdbcTemplate.update(
+				"INSERT INTO reservation (id, name, email, start_date, end_date) VALUES (?, ?, ?, ?, ?)",
+				UUID.randomUUID(), "Anna", "anna@email.com",
+				Date.valueOf(firstOfNextMonth), Date.valueOf(firstOfNextMonth.plusDays(1))));
+
+		//When booking the end of this month, up to that day
+		ReservationDTO reservation = new ReservationDTO(
+				"Matheus",
+				"matheus@email.com",
+				firstOfNextMonth.minusDays(2),
+				firstOfNextMonth
+		);
+
+		//Then
+		performAsync(post("/reservations")
+				.content(getObjectMapper().writeValueAsString(reservation))
+				.header("Content-type", "application/json"))
+				.andExpect(status().isConflict());
+	}
+
+	@Test
+	public void answers_conflicts_caught_by_the_exclusion_constraint() throws Exception {
+		//Given days within a single month, so only the partition's exclusion constraint can catch an overlap
+		LocalDate day = LocalDate.now().plusDays(1);
+		while (!YearMonth.from(day.minusDays(ReservationService.MAX_RESERVATION_DAYS)).equals(YearMonth.from(day.plusDays(1)))) {
+			day = day.plusDays(1);
+		}
+		LocalDate from = day;
+		LocalDate to = day.plusDays(1);
+
+		//And a reservation on them, committed behind the availability index's back
+		TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+		newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		newTransaction.execute(status -> jdbcTemplate.update(
+				"INSERT INTO reservation (id, name, email, start_date, end_date) VALUES (?, ?, ?, ?, ?)",
+				UUID.randomUUID(), "Anna", "anna@email.com", Date.valueOf(from), Date.valueOf(to)));
+
+		//When
+		ReservationDTO reservation = new ReservationDTO("Matheus", "matheus@email.com", from, to);
+
+		//Then
+		performAsync(post("/reservations")
+				.content(getObjectMapper().writeValueAsString(reservation))
+				.header("Content-type", "application/json"))
+				.andExpect(status().isConflict());
+	}
+
+	// Writes run on the booking executor: waits for them and dispatches the result back, as the container would
+	private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+		MvcResult started = mockMvc.perform(requestBuilder)
+				.andExpect(request().asyncStarted())
 				.andReturn();
+		return mockMvc.perform(asyncDispatch(started));
 	}
 
 	private ObjectMapper getObjectMapper() {
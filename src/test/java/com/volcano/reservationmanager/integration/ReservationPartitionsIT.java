@@ -0,0 +1,162 @@
+package com.volcano.reservationmanager.integration;
+
+import com.volcano.reservationmanager.ReservationManagerApplication;
+import com.volcano.reservationmanager.repositories.ReservationPartitions;
+import com.volcano.reservationmanager.repositories.models.ReservationRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The monthly partitions and the start dates kept by id, on the embedded Postgres. The context keeps twelve months
+ * back; the rollover under test keeps one, so the months in between are archived.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = ReservationManagerApplication.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class ReservationPartitionsIT {
+
+	private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'reservation_y'yyyy'm'MM");
+
+	private static final String ARCHIVE_SCHEMA = "reservation_archive";
+
+	private static final String ATTACHED = "SELECT child.relname FROM pg_inherits " +
+			"JOIN pg_class child ON child.oid = pg_inherits.inhrelid " +
+			"WHERE pg_inherits.inhparent = 'reservation'::regclass";
+
+	private static final String INSERT = "INSERT INTO reservation (id, name, email, start_date, end_date) VALUES (?, ?, ?, ?, ?)";
+
+	private static final String START_DATE = "SELECT start_date FROM reservation_start WHERE id = ?";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private ReservationRepository repository;
+
+	private ReservationPartitions subject;
+
+	@BeforeEach
+	void setup() {
+		subject = new ReservationPartitions(jdbcTemplate, transactionManager, 5, 1, ARCHIVE_SCHEMA, 2000);
+	}
+
+	@Test
+	public void attaches_the_months_ahead_and_archives_the_old_ones() {
+		//Given
+		LocalDate old = LocalDate.now().minusMonths(3).withDayOfMonth(1);
+		UUID id = insert(old);
+
+		//When
+		subject.rollOver();
+
+		//Then
+		List<String> attached = jdbcTemplate.queryForList(ATTACHED, String.class);
+		Assertions.assertTrue(attached.contains(name(YearMonth.now().plusMonths(5))));
+		Assertions.assertTrue(attached.contains(name(YearMonth.now().minusMonths(1))));
+		Assertions.assertFalse(attached.contains(name(YearMonth.now().minusMonths(2))));
+		Assertions.assertFalse(attached.contains(name(YearMonth.from(old))));
+
+		//And the old reservation went to the archive with its month, out of the lookups by id
+		Assertions.assertEquals(Integer.valueOf(1), jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM " + ARCHIVE_SCHEMA + "." + name(YearMonth.from(old)) + " WHERE id = ?",
+				Integer.class, id));
+		Assertions.assertEquals(Integer.valueOf(0), jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM reservation WHERE id = ?", Integer.class, id));
+		Assertions.assertTrue(jdbcTemplate.queryForList(START_DATE, Date.class, id).isEmpty());
+	}
+
+	@Test
+	public void is_idempotent() {
+		//Given
+		subject.rollOver();
+		List<String> attached = jdbcTemplate.queryForList(ATTACHED + " ORDER BY child.relname", String.class);
+
+		//When
+		subject.rollOver();
+
+		//Then
+		Assertions.assertEquals(attached, jdbcTemplate.queryForList(ATTACHED + " ORDER BY child.relname", String.class));
+	}
+
+	@Test
+	public void leaves_the_rollover_to_the_instance_holding_the_lock() throws Exception {
+		//Given another instance rolling over on a connection of its own
+		try (Connection other = dataSource.getConnection()) {
+			other.setAutoCommit(false);
+			try (PreparedStatement lock = other.prepareStatement("SELECT pg_advisory_xact_lock(?, 0)")) {
+				lock.setInt(1, 0x52534704);
+				lock.execute();
+			}
+
+			//When
+			subject.rollOver();
+
+			//Then
+			List<String> attached = jdbcTemplate.queryForList(ATTACHED, String.class);
+			Assertions.assertFalse(attached.contains(name(YearMonth.now().plusMonths(5))));
+			Assertions.assertTrue(attached.contains(name(YearMonth.now().minusMonths(3))));
+			other.rollback();
+		}
+	}
+
+	@Test
+	public void keeps_the_start_date_of_every_reservation_by_id() {
+		//Given
+		LocalDate start = LocalDate.now().plusDays(1);
+		UUID id = insert(start);
+		Assertions.assertEquals(Date.valueOf(start), jdbcTemplate.queryForObject(START_DATE, Date.class, id));
+
+		//When it moves to another month
+		LocalDate moved = start.plusMonths(1);
+		jdbcTemplate.update("UPDATE reservation SET start_date = ?, end_date = ? WHERE id = ?",
+				Date.valueOf(moved), Date.valueOf(moved.plusDays(1)), id);
+
+		//Then
+		Assertions.assertEquals(Date.valueOf(moved), jdbcTemplate.queryForObject(START_DATE, Date.class, id));
+		Assertions.assertEquals(moved, new TransactionTemplate(transactionManager)
+				.execute(status -> repository.findById(id).orElseThrow(AssertionError::new).getStartDate()));
+
+		//When it is deleted
+		jdbcTemplate.update("DELETE FROM reservation WHERE id = ?", id);
+
+		//Then
+		Assertions.assertTrue(jdbcTemplate.queryForList(START_DATE, Date.class, id).isEmpty());
+	}
+
+	private UUID insert(LocalDate start) {
+		UUID id = UUID.randomUUID();
+		jdbcTemplate.update(INSERT, id, "Matheus", "matheus@email.com", Date.valueOf(start), Date.valueOf(start.plusDays(1)));
+		return id;
+	}
+
+	private static String name(YearMonth month) {
+		return PARTITION_NAME.format(month);
+	}
+}
@@ -0,0 +1,141 @@
+package com.volcano.reservationmanager.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
+import com.volcano.reservationmanager.ReservationManagerApplication;
+import com.volcano.reservationmanager.controllers.ReservationController;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /reservations for clients asking for application/x-ndjson: one JSON document per line, in listing order.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = ReservationManagerApplication.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class ReservationStreamIT {
+
+	private static final LocalDate FROM = LocalDate.now().plus(1, ChronoUnit.DAYS);
+
+	private static final MediaType NDJSON = MediaType.valueOf(ReservationController.APPLICATION_NDJSON_VALUE);
+
+	@Autowired
+	private WebApplicationContext wac;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setup() {
+		this.mockMvc = MockMvcBuilders.webAppContextSetup(this.wac).build();
+	}
+
+	@Test
+	public void streams_one_document_per_line() throws Exception {
+		//Given
+		book("Matheus", "matheus@email.com", FROM, FROM.plusDays(1));
+		book("Ana", "ana@email.com", FROM.plusDays(3), FROM.plusDays(4));
+
+		//When
+		MvcResult streamed = stream(FROM, FROM.plusDays(10)).andReturn();
+
+		//Then
+		Assertions.assertTrue(NDJSON.isCompatibleWith(MediaType.valueOf(streamed.getResponse().getContentType())));
+		String body = streamed.getResponse().getContentAsString();
+		Assertions.assertTrue(body.endsWith("\n"));
+		String[] lines = body.split("\n");
+		Assertions.assertEquals(2, lines.length);
+		ReservationDTO first = getObjectMapper().readerFor(ReservationDTO.class).readValue(lines[0]);
+		ReservationDTO second = getObjectMapper().readerFor(ReservationDTO.class).readValue(lines[1]);
+		Assertions.assertEquals("matheus@email.com", first.getEmail());
+		Assertions.assertEquals(FROM, first.getFrom());
+		Assertions.assertEquals("ana@email.com", second.getEmail());
+	}
+
+	@Test
+	public void streams_nothing_for_an_empty_range() throws Exception {
+		//Given
+		book("Matheus", "matheus@email.com", FROM, FROM.plusDays(1));
+
+		//When
+		MvcResult streamed = stream(FROM.plusDays(5), FROM.plusDays(10)).andReturn();
+
+		//Then
+		Assertions.assertEquals("", streamed.getResponse().getContentAsString());
+	}
+
+	@Test
+	public void keeps_json_for_clients_not_asking_for_the_stream() throws Exception {
+		//When
+		MvcResult listed = mockMvc.perform(get("/reservations")
+				.param("from", FROM.toString())
+				.param("to", FROM.plusDays(10).toString()))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		//Then
+		Assertions.assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(
+				MediaType.valueOf(listed.getResponse().getContentType())));
+		Assertions.assertEquals("[]", listed.getResponse().getContentAsString());
+	}
+
+	private ResultActions stream(LocalDate from, LocalDate to) throws Exception {
+		return performAsync(get("/reservations")
+				.param("from", from.toString())
+				.param("to", to.toString())
+				.header(HttpHeaders.ACCEPT, ReservationController.APPLICATION_NDJSON_VALUE))
+				.andExpect(status().isOk());
+	}
+
+	private void book(String name, String email, LocalDate from, LocalDate to) throws Exception {
+		performAsync(post("/reservations")
+				.content(getObjectMapper().writeValueAsString(new ReservationDTO(name, email, from, to)))
+				.header("Content-type", "application/json"))
+				.andExpect(status().isOk());
+	}
+
+	// Writes and streams finish on other threads: waits for them and dispatches the result back, as the container would
+	private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+		MvcResult started = mockMvc.perform(requestBuilder)
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(asyncDispatch(started));
+	}
+
+	private ObjectMapper getObjectMapper() {
+		ObjectMapper objectMapper = new ObjectMapper();
+		JavaTimeModule module = new JavaTimeModule();
+		module.addSerializer(LocalDate.class, new LocalDateSerializer(DateTimeFormatter.ISO_DATE));
+
+		objectMapper.registerModule(module);
+
+		return objectMapper;
+	}
+}
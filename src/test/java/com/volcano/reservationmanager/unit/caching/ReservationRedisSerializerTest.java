@@ -0,0 +1,66 @@
+package com.volcano.reservationmanager.unit.caching;
+
+import com.volcano.reservationmanager.caching.ReservationRedisSerializer;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+public class ReservationRedisSerializerTest {
+
+	private final ReservationRedisSerializer subject = new ReservationRedisSerializer();
+
+	private final ReservationDTO reservation = new ReservationDTO(
+			UUID.randomUUID(),
+			"Matheus",
+			"matheus@email.com",
+			LocalDate.of(2019, 1, 10),
+			LocalDate.of(2019, 1, 12)
+	);
+
+	@Test
+	public void round_trips_a_reservation() {
+		//When
+		Object read = subject.deserialize(subject.serialize(reservation));
+
+		//Then
+		Assertions.assertEquals(reservation, read);
+	}
+
+	@Test
+	public void round_trips_a_day_bucket() {
+		//Given
+		ReservationDTO other = new ReservationDTO(
+				UUID.randomUUID(), "Zoë", "zoe@email.com", LocalDate.of(2019, 1, 13), LocalDate.of(2019, 1, 14));
+		List<ReservationDTO> bucket = Arrays.asList(reservation, other);
+
+		//Then
+		Assertions.assertEquals(bucket, subject.deserialize(subject.serialize(bucket)));
+		Assertions.assertEquals(Collections.emptyList(), subject.deserialize(subject.serialize(Collections.emptyList())));
+	}
+
+	@Test
+	public void reads_other_formats_as_a_miss() {
+		//Given
+		byte[] jdkSerialized = new JdkSerializationRedisSerializer().serialize(reservation);
+
+		//Then
+		Assertions.assertNull(subject.deserialize(jdkSerialized));
+	}
+
+	@Test
+	public void is_smaller_than_jdk_serialization() {
+		//When
+		int binary = subject.serialize(reservation).length;
+		int jdk = new JdkSerializationRedisSerializer().serialize(reservation).length;
+
+		//Then
+		Assertions.assertTrue(binary * 4 < jdk, String.format("%d bytes against %d", binary, jdk));
+	}
+}
@@ -0,0 +1,158 @@
+package com.volcano.reservationmanager.unit.caching;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.volcano.reservationmanager.caching.CacheInvalidationBus;
+import com.volcano.reservationmanager.caching.TwoLevelCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class TwoLevelCacheTest {
+
+	@Mock
+	private CacheInvalidationBus invalidationBus;
+
+	private final ConcurrentMapCache remote = new ConcurrentMapCache("reservation");
+
+	private TwoLevelCache subject() {
+		return new TwoLevelCache(
+				remote,
+				Caffeine.newBuilder().maximumSize(10).<String, Cache.ValueWrapper>build(),
+				invalidationBus,
+				new SimpleMeterRegistry());
+	}
+
+	@Test
+	public void reads_through_to_the_remote_tier() {
+		//Given
+		TwoLevelCache subject = subject();
+		remote.put("id", "reservation");
+
+		//Then
+		Assertions.assertEquals("reservation", subject.get("id", String.class));
+	}
+
+	@Test
+	public void local_tier_answers_once_loaded() {
+		//Given
+		TwoLevelCache subject = subject();
+		remote.put("id", "reservation");
+		subject.get("id");
+
+		//When
+		remote.evict("id");
+
+		//Then
+		Assertions.assertEquals("reservation", subject.get("id", String.class));
+	}
+
+	@Test
+	public void coalesces_concurrent_misses() throws Exception {
+		//Given
+		TwoLevelCache subject = subject();
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		//When
+		CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> subject.get("id", () -> {
+			loads.incrementAndGet();
+			loading.countDown();
+			release.await();
+			return "reservation";
+		}));
+		Assertions.assertTrue(loading.await(5, TimeUnit.SECONDS));
+		AtomicReference<String> second = new AtomicReference<>();
+		Thread secondThread = new Thread(() -> second.set(subject.get("id", () -> {
+			loads.incrementAndGet();
+			return "other";
+		})));
+		secondThread.start();
+
+		//Only released once the second miss is parked on the load in flight
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (secondThread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		Assertions.assertEquals(Thread.State.WAITING, secondThread.getState());
+		release.countDown();
+
+		//Then
+		Assertions.assertEquals("reservation", first.get(5, TimeUnit.SECONDS));
+		secondThread.join(5000);
+		Assertions.assertEquals("reservation", second.get());
+		Assertions.assertEquals(1, loads.get());
+	}
+
+	@Test
+	public void fills_misses_without_invalidating_other_instances() {
+		//Given
+		TwoLevelCache subject = subject();
+
+		//When
+		String loaded = subject.get("id", () -> "reservation");
+
+		//Then
+		Assertions.assertEquals("reservation", loaded);
+		Assertions.assertEquals("reservation", remote.get("id", String.class));
+		verifyZeroInteractions(invalidationBus);
+	}
+
+	@Test
+	public void keeps_values_written_while_loading() {
+		//Given
+		TwoLevelCache subject = subject();
+
+		//When
+		String loaded = subject.get("id", () -> {
+			remote.put("id", "updated reservation");
+			return "stale reservation";
+		});
+
+		//Then
+		Assertions.assertEquals("updated reservation", loaded);
+		Assertions.assertEquals("updated reservation", remote.get("id", String.class));
+		Assertions.assertEquals("updated reservation", subject.get("id", String.class));
+	}
+
+	@Test
+	public void writes_and_evicts_invalidate_other_instances() {
+		//Given
+		TwoLevelCache subject = subject();
+
+		//When
+		subject.put("id", "reservation");
+		subject.evict("id");
+
+		//Then
+		//The bus publishes package-private, so its calls are counted rather than verified one by one
+		Assertions.assertEquals(2, mockingDetails(invalidationBus).getInvocations().size());
+	}
+
+	@Test
+	public void failed_loads_are_not_cached() {
+		//Given
+		TwoLevelCache subject = subject();
+
+		//When/Then
+		Assertions.assertThrows(Cache.ValueRetrievalException.class, () -> subject.get("id", () -> {
+			throw new IllegalStateException("database down");
+		}));
+		Assertions.assertNull(subject.get("id"));
+	}
+}
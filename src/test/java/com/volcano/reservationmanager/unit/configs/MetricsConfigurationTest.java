@@ -0,0 +1,65 @@
+package com.volcano.reservationmanager.unit.configs;
+
+import com.volcano.reservationmanager.configs.MetricsConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MetricsConfigurationTest {
+
+	private final MetricsConfiguration subject = new MetricsConfiguration();
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+			.withUserConfiguration(MetricsConfiguration.class);
+
+	@Test
+	public void keeps_hibernate_statistics_off_unless_asked_for() {
+		contextRunner.run(context -> {
+			//When
+			Map<String, Object> properties = new HashMap<>();
+			context.getBean(HibernatePropertiesCustomizer.class).customize(properties);
+
+			//Then
+			Assertions.assertEquals("false", properties.get(AvailableSettings.GENERATE_STATISTICS));
+		});
+	}
+
+	@Test
+	public void turns_hibernate_statistics_on_when_enabled() {
+		contextRunner.withPropertyValues("reservations.hibernate-statistics.enabled=true").run(context -> {
+			//When
+			Map<String, Object> properties = new HashMap<>();
+			context.getBean(HibernatePropertiesCustomizer.class).customize(properties);
+
+			//Then
+			Assertions.assertEquals("true", properties.get(AvailableSettings.GENERATE_STATISTICS));
+		});
+	}
+
+	@Test
+	public void reports_no_database_pool_saturation_without_a_hikari_pool() {
+		//Given
+		MeterRegistry registry = new SimpleMeterRegistry();
+		ObjectProvider<DataSource> noDataSource = new StaticListableBeanFactory().getBeanProvider(DataSource.class);
+
+		//When
+		subject.connectionPoolSaturation(noDataSource).bindTo(registry);
+
+		//Then
+		Assertions.assertTrue(Double.isNaN(registry.get("reservations.pool.saturation")
+				.tag("pool", "database")
+				.gauge()
+				.value()));
+	}
+}
@@ -0,0 +1,93 @@
+package com.volcano.reservationmanager.unit.limiting;
+
+import com.volcano.reservationmanager.limiting.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final AdaptiveConcurrencyLimiter subject =
+			new AdaptiveConcurrencyLimiter("write", 2, 1, 4, 100, 0.5, registry);
+
+	@Test
+	public void rejects_requests_over_the_limit() {
+		//Given
+		subject.tryAcquire();
+		subject.tryAcquire();
+
+		//Then
+		Assertions.assertFalse(subject.tryAcquire());
+		Assertions.assertEquals(1, registry.get("reservations.concurrency.rejections").counter().count());
+	}
+
+	@Test
+	public void raises_the_limit_while_fast_and_busy() {
+		//Given
+		subject.tryAcquire();
+		subject.tryAcquire();
+
+		//When
+		subject.onComplete(TimeUnit.MILLISECONDS.toNanos(10), false);
+
+		//Then
+		Assertions.assertEquals(3, subject.getLimit());
+		Assertions.assertEquals(1, subject.getInFlight());
+	}
+
+	@Test
+	public void backs_off_when_slow_or_dropped() {
+		//Given
+		subject.tryAcquire();
+		subject.tryAcquire();
+
+		//When
+		subject.onComplete(TimeUnit.MILLISECONDS.toNanos(500), false);
+		subject.onComplete(TimeUnit.MILLISECONDS.toNanos(10), true);
+
+		//Then
+		Assertions.assertEquals(1, subject.getLimit());
+		Assertions.assertEquals(1, registry.get("reservations.concurrency.limit").gauge().value());
+	}
+
+	@Test
+	public void backs_off_once_per_congestion_event() throws InterruptedException {
+		//Given
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("read", 8, 1, 8, 100, 0.5, registry);
+		for (int i = 0; i < 8; i++) {
+			limiter.tryAcquire();
+		}
+
+		//When a burst of requests admitted together are all slow
+		for (int i = 0; i < 6; i++) {
+			limiter.onComplete(TimeUnit.MILLISECONDS.toNanos(500), i % 2 == 0);
+		}
+
+		//Then
+		Assertions.assertEquals(4, limiter.getLimit());
+
+		//When one admitted after the cut is slow too
+		Thread.sleep(200);
+		limiter.onComplete(TimeUnit.MILLISECONDS.toNanos(150), false);
+
+		//Then
+		Assertions.assertEquals(2, limiter.getLimit());
+	}
+
+	@Test
+	public void ignores_the_latency_of_streams() {
+		//Given
+		subject.tryAcquire();
+
+		//When
+		subject.onIgnore();
+
+		//Then
+		Assertions.assertEquals(2, subject.getLimit());
+		Assertions.assertEquals(0, subject.getInFlight());
+	}
+}
@@ -0,0 +1,96 @@
+package com.volcano.reservationmanager.unit.limiting;
+
+import com.volcano.reservationmanager.limiting.AdaptiveConcurrencyLimiter;
+import com.volcano.reservationmanager.limiting.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+
+public class ConcurrencyLimitFilterTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	// Any latency is over a target of 0, so every accounted request backs the limit off
+	private final AdaptiveConcurrencyLimiter reads = new AdaptiveConcurrencyLimiter("read", 4, 1, 4, 0, 0.5, registry);
+	private final AdaptiveConcurrencyLimiter writes = new AdaptiveConcurrencyLimiter("write", 1, 1, 1, 0, 0.5, registry);
+
+	private final ConcurrencyLimitFilter subject = new ConcurrencyLimitFilter(reads, writes, 3);
+
+	@Test
+	public void sheds_requests_over_the_limit() throws Exception {
+		//Given
+		writes.tryAcquire();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockFilterChain chain = new MockFilterChain();
+
+		//When
+		subject.doFilter(new MockHttpServletRequest("POST", "/reservations"), response, chain);
+
+		//Then
+		Assertions.assertEquals(503, response.getStatus());
+		Assertions.assertEquals("3", response.getHeader(HttpHeaders.RETRY_AFTER));
+		Assertions.assertNull(chain.getRequest());
+	}
+
+	@Test
+	public void limits_reads_apart_from_writes() throws Exception {
+		//Given
+		writes.tryAcquire();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		//When
+		subject.doFilter(new MockHttpServletRequest("GET", "/reservations"), response, new MockFilterChain());
+
+		//Then
+		Assertions.assertEquals(200, response.getStatus());
+		Assertions.assertEquals(0, reads.getInFlight());
+	}
+
+	@Test
+	public void accounts_for_async_requests_once_they_complete() throws Exception {
+		//Given
+		MockHttpServletRequest request = asyncRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FilterChain chain = (req, res) -> req.startAsync(req, res);
+
+		//When
+		subject.doFilter(request, response, chain);
+
+		//Then
+		Assertions.assertEquals(1, reads.getInFlight());
+		request.getAsyncContext().complete();
+		Assertions.assertEquals(0, reads.getInFlight());
+		Assertions.assertEquals(2, reads.getLimit());
+	}
+
+	@Test
+	public void leaves_streams_out_of_the_latency_samples() throws Exception {
+		//Given
+		MockHttpServletRequest request = asyncRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FilterChain chain = (req, res) -> {
+			res.setContentType("application/x-ndjson");
+			req.startAsync(req, res);
+		};
+
+		//When
+		subject.doFilter(request, response, chain);
+		request.getAsyncContext().complete();
+
+		//Then
+		Assertions.assertEquals(0, reads.getInFlight());
+		Assertions.assertEquals(4, reads.getLimit());
+	}
+
+	private static MockHttpServletRequest asyncRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/reservations");
+		request.setAsyncSupported(true);
+		return request;
+	}
+}
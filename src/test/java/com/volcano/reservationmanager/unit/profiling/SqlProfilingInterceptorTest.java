@@ -0,0 +1,61 @@
+package com.volcano.reservationmanager.unit.profiling;
+
+import com.volcano.reservationmanager.profiling.SqlProfiler;
+import com.volcano.reservationmanager.profiling.SqlProfilingInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+public class SqlProfilingInterceptorTest {
+
+	private final SqlProfiler profiler = new SqlProfiler();
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	public void keeps_the_profile_out_of_responses_by_default() {
+		//Given
+		SqlProfilingInterceptor subject = new SqlProfilingInterceptor(profiler, registry, false);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		//When
+		handle(subject, response);
+
+		//Then
+		Assertions.assertNull(response.getHeader(SqlProfilingInterceptor.STATEMENTS_HEADER));
+		Assertions.assertNull(response.getHeader(SqlProfilingInterceptor.TIME_HEADER));
+		Assertions.assertEquals(1, registry.get("reservations.sql.statements")
+				.tag("endpoint", "GET /reservations")
+				.summary()
+				.count());
+	}
+
+	@Test
+	public void reports_the_profile_in_headers_when_asked_for() {
+		//Given
+		SqlProfilingInterceptor subject = new SqlProfilingInterceptor(profiler, registry, true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		//When
+		handle(subject, response);
+
+		//Then
+		Assertions.assertEquals("0", response.getHeader(SqlProfilingInterceptor.STATEMENTS_HEADER));
+		Assertions.assertEquals("0", response.getHeader(SqlProfilingInterceptor.TIME_HEADER));
+		Assertions.assertEquals(1, registry.get("reservations.sql.time")
+				.tag("endpoint", "GET /reservations")
+				.timer()
+				.count());
+	}
+
+	private static void handle(SqlProfilingInterceptor subject, MockHttpServletResponse response) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/reservations");
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/reservations");
+		subject.preHandle(request, response, null);
+		subject.postHandle(request, response, null, null);
+		subject.afterCompletion(request, response, null, null);
+	}
+}
@@ -0,0 +1,53 @@
+package com.volcano.reservationmanager.unit.repositories;
+
+import com.volcano.reservationmanager.models.ReservationCursor;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.repositories.models.TimeOrderedUuidGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public class TimeOrderedUuidGeneratorTest {
+
+	@Test
+	public void makes_version_7_uuids() {
+		//When
+		UUID id = TimeOrderedUuidGenerator.next();
+
+		//Then
+		Assertions.assertEquals(7, id.version());
+		Assertions.assertEquals(2, id.variant());
+	}
+
+	@Test
+	public void starts_with_the_current_time() {
+		//Given
+		long before = System.currentTimeMillis();
+
+		//When
+		UUID id = TimeOrderedUuidGenerator.next();
+
+		//Then
+		long millis = id.getMostSignificantBits() >>> 16;
+		Assertions.assertTrue(millis >= before);
+		Assertions.assertTrue(millis <= System.currentTimeMillis() + 1);
+	}
+
+	@Test
+	public void sorts_in_the_order_ids_were_made() {
+		//Given
+		LocalDate day = LocalDate.now();
+		ReservationDTO previous = new ReservationDTO(TimeOrderedUuidGenerator.next(), "Ann", "ann@email.com", day, day);
+
+		for (int i = 0; i < 100_000; i++) {
+			//When
+			ReservationDTO next = new ReservationDTO(TimeOrderedUuidGenerator.next(), "Ann", "ann@email.com", day, day);
+
+			//Then
+			Assertions.assertTrue(ReservationCursor.ORDER.compare(previous, next) < 0);
+			previous = next;
+		}
+	}
+}
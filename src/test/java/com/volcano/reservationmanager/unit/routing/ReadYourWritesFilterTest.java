@@ -0,0 +1,108 @@
+package com.volcano.reservationmanager.unit.routing;
+
+import com.volcano.reservationmanager.routing.ReadYourWrites;
+import com.volcano.reservationmanager.routing.ReadYourWritesFilter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ReadYourWritesFilterTest {
+
+	private static final long WINDOW_MILLIS = 5000;
+
+	private final ReadYourWritesFilter subject = new ReadYourWritesFilter(WINDOW_MILLIS);
+
+	@Test
+	public void hands_writers_a_cookie_ending_one_window_from_now() throws Exception {
+		//Given
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		long before = System.currentTimeMillis();
+
+		//When
+		subject.doFilter(new MockHttpServletRequest("POST", "/reservations"), response, (req, res) -> { });
+
+		//Then
+		long until = Long.parseLong(response.getCookie(ReadYourWritesFilter.COOKIE_NAME).getValue());
+		Assertions.assertTrue(until >= before + WINDOW_MILLIS);
+		Assertions.assertTrue(until <= System.currentTimeMillis() + WINDOW_MILLIS);
+	}
+
+	@Test
+	public void hands_no_cookie_for_failed_writes() throws Exception {
+		//Given
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		//When
+		subject.doFilter(new MockHttpServletRequest("POST", "/reservations"), response, (req, res) -> {
+			((HttpServletResponse) res).setStatus(HttpServletResponse.SC_CONFLICT);
+			res.getWriter().write("{}");
+		});
+
+		//Then
+		Assertions.assertNull(response.getCookie(ReadYourWritesFilter.COOKIE_NAME));
+	}
+
+	@Test
+	public void hands_no_cookie_for_lookups() throws Exception {
+		//Given
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		//When
+		subject.doFilter(new MockHttpServletRequest("POST", "/reservations/lookup"), response, (req, res) -> { });
+
+		//Then
+		Assertions.assertNull(response.getCookie(ReadYourWritesFilter.COOKIE_NAME));
+	}
+
+	@Test
+	public void hands_the_cookie_once_an_async_write_completes() throws Exception {
+		//Given
+		MockHttpServletRequest request = new MockHttpServletRequest("DELETE", "/reservations/1");
+		request.setAsyncSupported(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		subject.doFilter(request, response, (req, res) -> req.startAsync(req, res));
+		Assertions.assertNull(response.getCookie(ReadYourWritesFilter.COOKIE_NAME));
+
+		//When
+		request.setAsyncStarted(false);
+		request.setDispatcherType(DispatcherType.ASYNC);
+		subject.doFilter(request, response, (req, res) -> { });
+
+		//Then
+		Assertions.assertNotNull(response.getCookie(ReadYourWritesFilter.COOKIE_NAME));
+	}
+
+	@Test
+	public void pins_reads_within_the_window() throws Exception {
+		Assertions.assertTrue(pinnedWith(System.currentTimeMillis() + WINDOW_MILLIS / 2));
+	}
+
+	@Test
+	public void leaves_reads_unpinned_once_the_window_is_over() throws Exception {
+		Assertions.assertFalse(pinnedWith(System.currentTimeMillis() - 1));
+		Assertions.assertFalse(ReadYourWrites.isPinned());
+	}
+
+	@Test
+	public void ignores_cookies_ending_further_away_than_a_window() throws Exception {
+		Assertions.assertFalse(pinnedWith(System.currentTimeMillis() + WINDOW_MILLIS * 10));
+		Assertions.assertFalse(pinnedWith(Long.MAX_VALUE));
+	}
+
+	private boolean pinnedWith(long primaryUntil) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/reservations");
+		request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, Long.toString(primaryUntil)));
+		AtomicBoolean pinned = new AtomicBoolean();
+		FilterChain chain = (req, res) -> pinned.set(ReadYourWrites.isPinned());
+
+		subject.doFilter(request, new MockHttpServletResponse(), chain);
+		return pinned.get();
+	}
+}
@@ -0,0 +1,83 @@
+package com.volcano.reservationmanager.unit.services;
+
+import com.volcano.reservationmanager.repositories.models.Reservation;
+import com.volcano.reservationmanager.services.AvailabilityIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public class AvailabilityIndexTest {
+
+	private final AvailabilityIndex subject = new AvailabilityIndex();
+
+	@Test
+	public void empty_index_is_available() {
+		Assertions.assertTrue(subject.isAvailable(LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 12), null));
+	}
+
+	@Test
+	public void detects_overlapping_days() {
+		//Given
+		subject.occupy(UUID.randomUUID(), LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 12));
+
+		//Then
+		Assertions.assertFalse(subject.isAvailable(LocalDate.of(2019, 1, 12), LocalDate.of(2019, 1, 14), null));
+		Assertions.assertFalse(subject.isAvailable(LocalDate.of(2019, 1, 11), LocalDate.of(2019, 1, 11), null));
+		Assertions.assertFalse(subject.isAvailable(LocalDate.of(2019, 1, 9), LocalDate.of(2019, 1, 13), null));
+		Assertions.assertTrue(subject.isAvailable(LocalDate.of(2019, 1, 13), LocalDate.of(2019, 1, 15), null));
+	}
+
+	@Test
+	public void ignores_days_of_the_reservation_being_edited() {
+		//Given
+		UUID reservationId = UUID.randomUUID();
+		subject.occupy(reservationId, LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 12));
+
+		//Then
+		Assertions.assertTrue(subject.isAvailable(LocalDate.of(2019, 1, 11), LocalDate.of(2019, 1, 13), reservationId));
+	}
+
+	@Test
+	public void release_frees_the_days() {
+		//Given
+		UUID reservationId = UUID.randomUUID();
+		subject.occupy(reservationId, LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 12));
+
+		//When
+		subject.release(reservationId);
+
+		//Then
+		Assertions.assertTrue(subject.isAvailable(LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 12), null));
+	}
+
+	@Test
+	public void occupy_moves_an_existing_reservation() {
+		//Given
+		UUID reservationId = UUID.randomUUID();
+		subject.occupy(reservationId, LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 12));
+
+		//When
+		subject.occupy(reservationId, LocalDate.of(2019, 1, 20), LocalDate.of(2019, 1, 21));
+
+		//Then
+		Assertions.assertTrue(subject.isAvailable(LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 12), null));
+		Assertions.assertFalse(subject.isAvailable(LocalDate.of(2019, 1, 21), LocalDate.of(2019, 1, 22), null));
+	}
+
+	@Test
+	public void replace_all_discards_previous_state() {
+		//Given
+		subject.occupy(UUID.randomUUID(), LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 12));
+
+		//When
+		subject.replaceAll(Stream.of(new Reservation(
+				UUID.randomUUID(), "Matheus", "matheus@email.com", LocalDate.of(2019, 2, 1), LocalDate.of(2019, 2, 2))));
+
+		//Then
+		Assertions.assertTrue(subject.isAvailable(LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 12), null));
+		Assertions.assertFalse(subject.isAvailable(LocalDate.of(2019, 2, 2), LocalDate.of(2019, 2, 3), null));
+	}
+}
@@ -0,0 +1,92 @@
+package com.volcano.reservationmanager.unit.services;
+
+import com.volcano.reservationmanager.exceptions.ServiceBusyException;
+import com.volcano.reservationmanager.profiling.SqlProfile;
+import com.volcano.reservationmanager.profiling.SqlProfiler;
+import com.volcano.reservationmanager.routing.ReadYourWrites;
+import com.volcano.reservationmanager.services.BookingExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BookingExecutorTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final SqlProfiler profiler = new SqlProfiler();
+
+	private BookingExecutor subject;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setup() {
+		ObjectProvider<SqlProfiler> provider = mock(ObjectProvider.class);
+		when(provider.getIfAvailable()).thenReturn(profiler);
+		subject = new BookingExecutor(registry, provider, 1, 1);
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		profiler.unbind();
+		ReadYourWrites.unpin();
+		subject.stop();
+	}
+
+	@Test
+	public void carries_the_callers_context_over() {
+		//Given
+		SqlProfile profile = profiler.start();
+		ReadYourWrites.pin();
+
+		//When
+		Object[] seen = subject.submit(() -> new Object[]{profiler.current(), ReadYourWrites.isPinned()}).join();
+
+		//Then
+		Assertions.assertSame(profile, seen[0]);
+		Assertions.assertEquals(Boolean.TRUE, seen[1]);
+		Assertions.assertEquals(1, registry.timer("reservations.booking-executor.wait").count());
+	}
+
+	@Test
+	public void rejects_bookings_once_the_queue_is_full() throws InterruptedException {
+		//Given
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch running = new CountDownLatch(1);
+		CompletableFuture<Void> first = subject.submit(() -> {
+			running.countDown();
+			await(release);
+		});
+		running.await();
+		CompletableFuture<Void> queued = subject.submit(() -> { });
+
+		//When
+		CompletableFuture<Void> rejected = subject.submit(() -> { });
+
+		//Then
+		CompletionException e = Assertions.assertThrows(CompletionException.class, rejected::join);
+		Assertions.assertTrue(e.getCause() instanceof ServiceBusyException);
+		Assertions.assertEquals(1, registry.counter("reservations.booking-executor.rejected").count());
+		Assertions.assertEquals(1, registry.get("reservations.booking-executor.queued").gauge().value());
+
+		release.countDown();
+		first.join();
+		queued.join();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
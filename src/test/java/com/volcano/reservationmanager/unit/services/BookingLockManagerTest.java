@@ -0,0 +1,77 @@
+package com.volcano.reservationmanager.unit.services;
+
+import com.volcano.reservationmanager.services.BookingLockManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+public class BookingLockManagerTest {
+
+	private static final int GUEST_NAMESPACE = 0x52534701;
+	private static final int DAY_NAMESPACE = 0x52534702;
+
+	private static final LocalDate DAY = LocalDate.of(2019, 1, 10);
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+	private final BookingLockManager subject = new BookingLockManager(jdbcTemplate, new SimpleMeterRegistry());
+
+	@Test
+	public void locks_guests_in_email_order_before_any_day() {
+		//When
+		subject.lock(Arrays.asList("zoe@email.com", "ana@email.com", "matheus@email.com"), DAY, DAY);
+
+		//Then
+		InOrder order = inOrder(jdbcTemplate);
+		order.verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(GUEST_NAMESPACE), eq("ana@email.com"));
+		order.verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(GUEST_NAMESPACE), eq("matheus@email.com"));
+		order.verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(GUEST_NAMESPACE), eq("zoe@email.com"));
+		order.verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class),
+				eq(DAY_NAMESPACE), eq(epochDay(DAY)), eq(epochDay(DAY)));
+	}
+
+	@Test
+	public void locks_days_in_ascending_runs_whatever_order_the_ranges_come_in() {
+		//When an edit moving back, overlapping its old days, and another booking further ahead
+		subject.lock(Arrays.asList("ana@email.com"),
+				DAY.plusDays(10), DAY.plusDays(12),
+				DAY.plusDays(2), DAY.plusDays(3),
+				DAY, DAY.plusDays(2));
+
+		//Then overlapping ranges merge into one run, and runs go from the earliest day on
+		InOrder order = inOrder(jdbcTemplate);
+		order.verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(GUEST_NAMESPACE), eq("ana@email.com"));
+		order.verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class),
+				eq(DAY_NAMESPACE), eq(epochDay(DAY)), eq(epochDay(DAY.plusDays(3))));
+		order.verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class),
+				eq(DAY_NAMESPACE), eq(epochDay(DAY.plusDays(10))), eq(epochDay(DAY.plusDays(12))));
+		verifyNoMoreInteractions(jdbcTemplate);
+	}
+
+	@Test
+	public void locks_each_guest_once() {
+		//When
+		subject.lock(Arrays.asList("ana@email.com", "ana@email.com"), DAY, DAY);
+
+		//Then
+		verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class), eq(GUEST_NAMESPACE), eq("ana@email.com"));
+	}
+
+	private static int epochDay(LocalDate day) {
+		return Math.toIntExact(day.toEpochDay());
+	}
+}
@@ -0,0 +1,178 @@
+package com.volcano.reservationmanager.unit.services;
+
+import com.volcano.reservationmanager.exceptions.InvalidReservationException;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.services.BookingLockManager;
+import com.volcano.reservationmanager.services.BookingSequencer;
+import com.volcano.reservationmanager.services.ReservationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BookingSequencerTest {
+
+	private static final LocalDate DAY = LocalDate.now().plusDays(5);
+
+	private final ReservationService service = mock(ReservationService.class);
+	private final BookingLockManager lockManager = mock(BookingLockManager.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+	private BookingSequencer subject;
+
+	@BeforeEach
+	void setup() {
+		subject = new BookingSequencer(service, lockManager, transactionManager, 16, 16);
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		subject.stop();
+	}
+
+	@Test
+	public void commits_a_batch_in_one_transaction() {
+		//Given
+		ReservationDTO ann = reservation("ann@email.com", DAY, DAY.plusDays(1));
+		ReservationDTO bob = reservation("bob@email.com", DAY.plusDays(2), DAY.plusDays(3));
+		when(service.applyCreate(ann)).thenReturn(ann);
+		when(service.applyCreate(bob)).thenReturn(bob);
+		CompletableFuture<ReservationDTO> first = subject.create(ann);
+		CompletableFuture<ReservationDTO> second = subject.create(bob);
+
+		//When
+		subject.start();
+
+		//Then
+		Assertions.assertSame(ann, first.join());
+		Assertions.assertSame(bob, second.join());
+		verify(transactionManager, times(1)).getTransaction(any());
+		verify(transactionManager, times(1)).commit(any());
+		verify(lockManager).lock(eq(new HashSet<>(Arrays.asList("ann@email.com", "bob@email.com"))),
+				eq(DAY), eq(DAY.plusDays(1)), eq(DAY.plusDays(2)), eq(DAY.plusDays(3)));
+	}
+
+	@Test
+	public void replays_a_failed_batch_one_booking_at_a_time() {
+		//Given
+		ReservationDTO ann = reservation("ann@email.com", DAY, DAY.plusDays(1));
+		ReservationDTO bob = reservation("bob@email.com", DAY.plusDays(2), DAY.plusDays(3));
+		DataIntegrityViolationException failure = new DataIntegrityViolationException("conflict");
+		when(service.applyCreate(ann)).thenReturn(ann);
+		when(service.applyCreate(bob)).thenThrow(failure);
+		CompletableFuture<ReservationDTO> first = subject.create(ann);
+		CompletableFuture<ReservationDTO> second = subject.create(bob);
+
+		//When
+		subject.start();
+
+		//Then the batch and the conflicting booking roll back, and the other one commits on its own
+		Assertions.assertSame(ann, first.join());
+		CompletionException e = Assertions.assertThrows(CompletionException.class, second::join);
+		Assertions.assertSame(failure, e.getCause());
+		verify(service, times(2)).applyCreate(ann);
+		verify(transactionManager, times(3)).getTransaction(any());
+		verify(transactionManager, times(1)).commit(any());
+		verify(transactionManager, times(2)).rollback(any());
+	}
+
+	@Test
+	public void answers_rule_violations_without_aborting_the_batch() {
+		//Given
+		ReservationDTO ann = reservation("ann@email.com", DAY, DAY.plusDays(1));
+		ReservationDTO bob = reservation("bob@email.com", DAY.plusDays(2), DAY.plusDays(3));
+		InvalidReservationException rejection = new InvalidReservationException("Already booked");
+		when(service.applyCreate(ann)).thenReturn(ann);
+		when(service.applyCreate(bob)).thenThrow(rejection);
+		CompletableFuture<ReservationDTO> first = subject.create(ann);
+		CompletableFuture<ReservationDTO> second = subject.create(bob);
+
+		//When
+		subject.start();
+
+		//Then
+		Assertions.assertSame(ann, first.join());
+		CompletionException e = Assertions.assertThrows(CompletionException.class, second::join);
+		Assertions.assertSame(rejection, e.getCause());
+		verify(transactionManager, times(1)).getTransaction(any());
+		verify(transactionManager, times(1)).commit(any());
+	}
+
+	@Test
+	public void aborts_the_batch_on_rule_violations_caused_by_the_database() {
+		//Given
+		ReservationDTO ann = reservation("ann@email.com", DAY, DAY.plusDays(1));
+		InvalidReservationException rejection =
+				new InvalidReservationException("Invalid", new DataIntegrityViolationException("constraint"));
+		when(service.applyCreate(ann)).thenThrow(rejection);
+		CompletableFuture<ReservationDTO> first = subject.create(ann);
+
+		//When
+		subject.start();
+
+		//Then
+		CompletionException e = Assertions.assertThrows(CompletionException.class, first::join);
+		Assertions.assertSame(rejection, e.getCause());
+		verify(transactionManager, times(2)).rollback(any());
+	}
+
+	@Test
+	public void locks_the_days_an_edit_moves_away_from_up_front() {
+		//Given
+		UUID id = UUID.randomUUID();
+		ReservationDTO stored = new ReservationDTO(id, "Ann", "ann@email.com", DAY.plusDays(10), DAY.plusDays(11));
+		ReservationDTO edited = new ReservationDTO(id, "Ann", "ann@email.com", DAY, DAY.plusDays(1));
+		when(service.findStored(id)).thenReturn(Optional.of(stored));
+		when(service.applyEdit(edited)).thenReturn(edited);
+		CompletableFuture<ReservationDTO> edit = subject.edit(edited);
+
+		//When
+		subject.start();
+
+		//Then
+		Assertions.assertSame(edited, edit.join());
+		verify(lockManager).lock(eq(Collections.singleton("ann@email.com")),
+				eq(DAY), eq(DAY.plusDays(1)), eq(DAY.plusDays(10)), eq(DAY.plusDays(11)));
+	}
+
+	@Test
+	public void locks_the_stored_guest_of_an_edit() {
+		//Given
+		UUID id = UUID.randomUUID();
+		ReservationDTO stored = new ReservationDTO(id, "Ann", "ann@email.com", DAY.plusDays(10), DAY.plusDays(11));
+		ReservationDTO edited = new ReservationDTO(id, "Ann", "mallory@email.com", DAY, DAY.plusDays(1));
+		when(service.findStored(id)).thenReturn(Optional.of(stored));
+		when(service.applyEdit(edited)).thenReturn(edited);
+		CompletableFuture<ReservationDTO> edit = subject.edit(edited);
+
+		//When
+		subject.start();
+
+		//Then
+		Assertions.assertSame(edited, edit.join());
+		verify(lockManager).lock(eq(new HashSet<>(Arrays.asList("ann@email.com", "mallory@email.com"))),
+				eq(DAY), eq(DAY.plusDays(1)), eq(DAY.plusDays(10)), eq(DAY.plusDays(11)));
+	}
+
+	private static ReservationDTO reservation(String email, LocalDate from, LocalDate to) {
+		return new ReservationDTO("Guest", email, from, to);
+	}
+}
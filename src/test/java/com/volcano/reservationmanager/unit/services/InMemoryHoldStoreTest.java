@@ -0,0 +1,78 @@
+package com.volcano.reservationmanager.unit.services;
+
+import com.volcano.reservationmanager.models.HoldDTO;
+import com.volcano.reservationmanager.services.HoldStore;
+import com.volcano.reservationmanager.services.InMemoryHoldStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public class InMemoryHoldStoreTest {
+
+	private final InMemoryHoldStore subject = new InMemoryHoldStore();
+
+	private static HoldDTO hold(int fromDay, int toDay, Instant expiresAt) {
+		return hold("matheus@email.com", fromDay, toDay, expiresAt);
+	}
+
+	private static HoldDTO hold(String email, int fromDay, int toDay, Instant expiresAt) {
+		return new HoldDTO(UUID.randomUUID(), "Matheus", email,
+				LocalDate.of(2019, 1, fromDay), LocalDate.of(2019, 1, toDay), expiresAt);
+	}
+
+	@Test
+	public void does_not_claim_days_held_by_others() {
+		//Given
+		HoldDTO first = hold(10, 12, Instant.now().plusSeconds(60));
+		HoldDTO second = hold("ana@email.com", 12, 14, Instant.now().plusSeconds(60));
+
+		//When
+		subject.claim(first, 1);
+
+		//Then
+		Assertions.assertEquals(HoldStore.Claim.DAYS_HELD, subject.claim(second, 1));
+		Assertions.assertTrue(subject.isHeldByOther(LocalDate.of(2019, 1, 12), LocalDate.of(2019, 1, 12), null));
+		Assertions.assertFalse(subject.isHeldByOther(LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 12), first.getId()));
+	}
+
+	@Test
+	public void released_days_are_free() {
+		//Given
+		HoldDTO first = hold(10, 12, Instant.now().plusSeconds(60));
+		subject.claim(first, 1);
+
+		//When
+		subject.release(first.getId());
+
+		//Then
+		Assertions.assertFalse(subject.find(first.getId()).isPresent());
+		Assertions.assertEquals(HoldStore.Claim.CLAIMED, subject.claim(hold(12, 14, Instant.now().plusSeconds(60)), 1));
+	}
+
+	@Test
+	public void expired_holds_free_their_days() {
+		//Given
+		HoldDTO expired = hold(10, 12, Instant.now().minusSeconds(1));
+		subject.claim(expired, 1);
+
+		//Then
+		Assertions.assertFalse(subject.find(expired.getId()).isPresent());
+		Assertions.assertEquals(HoldStore.Claim.CLAIMED, subject.claim(hold(10, 12, Instant.now().plusSeconds(60)), 1));
+	}
+
+	@Test
+	public void limits_the_holds_of_each_guest() {
+		//Given
+		subject.claim(hold(10, 12, Instant.now().plusSeconds(60)), 1);
+
+		//Then
+		Assertions.assertEquals(HoldStore.Claim.TOO_MANY_HOLDS,
+				subject.claim(hold("Matheus@Email.com", 20, 22, Instant.now().plusSeconds(60)), 1));
+		Assertions.assertFalse(subject.isHeldByOther(LocalDate.of(2019, 1, 20), LocalDate.of(2019, 1, 22), null));
+		Assertions.assertEquals(HoldStore.Claim.CLAIMED,
+				subject.claim(hold("matheus@email.com", 20, 22, Instant.now().plusSeconds(60)), 2));
+	}
+}
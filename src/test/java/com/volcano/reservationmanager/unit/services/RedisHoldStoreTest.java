@@ -0,0 +1,134 @@
+package com.volcano.reservationmanager.unit.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volcano.reservationmanager.models.HoldDTO;
+import com.volcano.reservationmanager.services.HoldStore;
+import com.volcano.reservationmanager.services.RedisHoldStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RedisHoldStoreTest {
+
+	private static final String PREFIX = "reservations:{holds}:";
+
+	private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+	@SuppressWarnings("unchecked")
+	private final ValueOperations<String, String> values = mock(ValueOperations.class);
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+	private RedisHoldStore subject;
+
+	@BeforeEach
+	void setup() {
+		when(redisTemplate.opsForValue()).thenReturn(values);
+		subject = new RedisHoldStore(redisTemplate, objectMapper);
+	}
+
+	private static HoldDTO hold() {
+		return new HoldDTO(UUID.randomUUID(), "Matheus", "Matheus@Email.com",
+				LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 11), Instant.now().plusSeconds(60));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void claims_the_hold_its_guest_and_every_day_in_one_script() {
+		//Given
+		HoldDTO hold = hold();
+		when(redisTemplate.execute(any(RedisScript.class), anyList(),
+				anyString(), anyString(), anyString(), anyString(), anyString())).thenReturn(1L);
+
+		//When
+		HoldStore.Claim claim = subject.claim(hold, 2);
+
+		//Then
+		Assertions.assertEquals(HoldStore.Claim.CLAIMED, claim);
+		ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+		ArgumentCaptor<String> ttl = ArgumentCaptor.forClass(String.class);
+		verify(redisTemplate).execute(any(RedisScript.class), keys.capture(),
+				eq(hold.getId().toString()), ttl.capture(), anyString(), anyString(), eq("2"));
+		Assertions.assertEquals(Arrays.asList(
+				PREFIX + "hold:" + hold.getId(),
+				PREFIX + "guest:matheus@email.com",
+				PREFIX + "day:" + LocalDate.of(2019, 1, 10).toEpochDay(),
+				PREFIX + "day:" + LocalDate.of(2019, 1, 11).toEpochDay()), keys.getValue());
+		long millis = Long.parseLong(ttl.getValue());
+		Assertions.assertTrue(millis > 0 && millis <= 60_000);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void tells_why_a_claim_failed() {
+		//Given
+		when(redisTemplate.execute(any(RedisScript.class), anyList(),
+				anyString(), anyString(), anyString(), anyString(), anyString())).thenReturn(0L, -1L);
+
+		//Then
+		Assertions.assertEquals(HoldStore.Claim.DAYS_HELD, subject.claim(hold(), 1));
+		Assertions.assertEquals(HoldStore.Claim.TOO_MANY_HOLDS, subject.claim(hold(), 1));
+	}
+
+	@Test
+	public void reads_holds_back() throws Exception {
+		//Given
+		HoldDTO hold = hold();
+		when(values.get(PREFIX + "hold:" + hold.getId())).thenReturn(objectMapper.writeValueAsString(hold));
+
+		//When
+		HoldDTO found = subject.find(hold.getId()).orElseThrow(AssertionError::new);
+
+		//Then
+		Assertions.assertEquals(hold.getId(), found.getId());
+		Assertions.assertEquals(hold.getFrom(), found.getFrom());
+		Assertions.assertEquals(hold.getExpiresAt(), found.getExpiresAt());
+		Assertions.assertFalse(subject.find(UUID.randomUUID()).isPresent());
+	}
+
+	@Test
+	public void ignores_days_held_by_the_same_hold() {
+		//Given
+		UUID own = UUID.randomUUID();
+		LocalDate day = LocalDate.of(2019, 1, 10);
+		when(values.multiGet(Arrays.asList(PREFIX + "day:" + day.toEpochDay(), PREFIX + "day:" + (day.toEpochDay() + 1))))
+				.thenReturn(Arrays.asList(null, own.toString()));
+
+		//Then
+		Assertions.assertFalse(subject.isHeldByOther(day, day.plusDays(1), own));
+		Assertions.assertTrue(subject.isHeldByOther(day, day.plusDays(1), UUID.randomUUID()));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void releases_the_days_and_the_guest_slot() throws Exception {
+		//Given
+		HoldDTO hold = hold();
+		when(values.get(PREFIX + "hold:" + hold.getId())).thenReturn(objectMapper.writeValueAsString(hold));
+
+		//When
+		subject.release(hold.getId());
+
+		//Then
+		ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+		verify(redisTemplate).execute(any(RedisScript.class), keys.capture(), eq(hold.getId().toString()));
+		Assertions.assertEquals(PREFIX + "guest:matheus@email.com", keys.getValue().get(1));
+		Assertions.assertEquals(4, keys.getValue().size());
+	}
+}
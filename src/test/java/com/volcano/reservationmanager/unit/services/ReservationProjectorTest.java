@@ -0,0 +1,103 @@
+package com.volcano.reservationmanager.unit.services;
+
+import com.volcano.reservationmanager.converters.ReservationConverter;
+import com.volcano.reservationmanager.models.OutboxPosition;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.models.ReservationEvent;
+import com.volcano.reservationmanager.repositories.models.Reservation;
+import com.volcano.reservationmanager.repositories.models.ReservationRepository;
+import com.volcano.reservationmanager.services.AvailabilityIndex;
+import com.volcano.reservationmanager.services.ReservationOutbox;
+import com.volcano.reservationmanager.services.ReservationProjector;
+import com.volcano.reservationmanager.services.ReservationReadModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReservationProjectorTest {
+
+	private static final LocalDate DAY = LocalDate.of(2019, 1, 10);
+
+	private final ReservationOutbox outbox = mock(ReservationOutbox.class);
+	private final ReservationRepository repository = mock(ReservationRepository.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private final ReservationReadModel readModel = new ReservationReadModel();
+	private final AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+
+	private ReservationProjector subject;
+
+	@BeforeEach
+	void setup() {
+		subject = new ReservationProjector(outbox, repository, new ReservationConverter(), readModel,
+				availabilityIndex, transactionManager, new SimpleMeterRegistry(), 2);
+	}
+
+	@Test
+	public void loads_a_snapshot_then_replays_the_events_that_follow_it() {
+		//Given
+		Reservation stored = new Reservation(UUID.randomUUID(), "Matheus", "matheus@email.com", DAY, DAY.plusDays(1));
+		ReservationDTO booked = new ReservationDTO(UUID.randomUUID(), "Ana", "ana@email.com", DAY.plusDays(5), DAY.plusDays(6));
+		when(outbox.start()).thenReturn(OutboxPosition.before(70L));
+		when(repository.findAll()).thenReturn(Collections.singletonList(stored));
+		when(outbox.read(OutboxPosition.before(70L), 2)).thenReturn(Collections.singletonList(
+				new ReservationEvent(71L, 8L, ReservationEvent.Type.CREATED, booked, 0)));
+
+		//When
+		subject.poll();
+
+		//Then
+		Assertions.assertEquals(new OutboxPosition(71L, 8L), readModel.getPosition());
+		Assertions.assertEquals(2, readModel.findReservations(DAY, DAY.plusDays(10), null, 10).getReservations().size());
+		Assertions.assertFalse(availabilityIndex.isAvailable(DAY.plusDays(5), DAY.plusDays(5), null));
+	}
+
+	@Test
+	public void loads_the_snapshot_only_once() {
+		//Given
+		when(outbox.start()).thenReturn(OutboxPosition.before(1L));
+		when(repository.findAll()).thenReturn(Collections.emptyList());
+		when(outbox.read(OutboxPosition.before(1L), 2)).thenReturn(Collections.emptyList());
+
+		//When
+		subject.poll();
+		subject.poll();
+
+		//Then
+		verify(repository, times(1)).findAll();
+		verify(outbox, times(2)).read(OutboxPosition.before(1L), 2);
+	}
+
+	@Test
+	public void reads_on_while_batches_come_back_full() {
+		//Given
+		ReservationDTO booked = new ReservationDTO(UUID.randomUUID(), "Ana", "ana@email.com", DAY, DAY.plusDays(1));
+		ReservationDTO moved = new ReservationDTO(booked.getId(), "Ana", "ana@email.com", DAY.plusDays(3), DAY.plusDays(4));
+		when(outbox.start()).thenReturn(OutboxPosition.before(1L));
+		when(repository.findAll()).thenReturn(Collections.emptyList());
+		when(outbox.read(OutboxPosition.before(1L), 2)).thenReturn(Arrays.asList(
+				new ReservationEvent(1L, 2L, ReservationEvent.Type.CREATED, booked, 0),
+				new ReservationEvent(2L, 1L, ReservationEvent.Type.EDITED, moved, 0)));
+		when(outbox.read(new OutboxPosition(2L, 1L), 2)).thenReturn(Collections.singletonList(
+				new ReservationEvent(3L, 3L, ReservationEvent.Type.CANCELLED, moved, 0)));
+
+		//When
+		subject.poll();
+
+		//Then
+		Assertions.assertEquals(new OutboxPosition(3L, 3L), readModel.getPosition());
+		Assertions.assertTrue(readModel.findReservations(DAY, DAY.plusDays(10), null, 10).getReservations().isEmpty());
+		Assertions.assertTrue(availabilityIndex.isAvailable(DAY, DAY.plusDays(4), null));
+	}
+}
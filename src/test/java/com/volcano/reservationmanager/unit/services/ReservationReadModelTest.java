@@ -0,0 +1,100 @@
+package com.volcano.reservationmanager.unit.services;
+
+import com.volcano.reservationmanager.exceptions.InvalidReservationException;
+import com.volcano.reservationmanager.models.OutboxPosition;
+import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.models.ReservationEvent;
+import com.volcano.reservationmanager.models.ReservationPage;
+import com.volcano.reservationmanager.services.ReservationReadModel;
+import com.volcano.reservationmanager.services.ReservationService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+public class ReservationReadModelTest {
+
+	private final ReservationReadModel subject = new ReservationReadModel();
+
+	@Test
+	public void is_not_ready_before_loading() {
+		Assertions.assertFalse(subject.isReady());
+
+		subject.load(Collections.emptyList(), OutboxPosition.before(1));
+
+		Assertions.assertTrue(subject.isReady());
+	}
+
+	@Test
+	public void lists_reservations_overlapping_the_range_in_pages() {
+		//Given
+		ReservationDTO before = reservation(LocalDate.of(2019, 1, 1), LocalDate.of(2019, 1, 3));
+		ReservationDTO overlapping = reservation(LocalDate.of(2019, 1, 8), LocalDate.of(2019, 1, 10));
+		ReservationDTO inside = reservation(LocalDate.of(2019, 1, 12), LocalDate.of(2019, 1, 13));
+		subject.load(Arrays.asList(inside, before, overlapping), OutboxPosition.before(1));
+
+		//When
+		ReservationPage firstPage = subject.findReservations(LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 20), null, 1);
+		ReservationPage secondPage = subject.findReservations(
+				LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 20), firstPage.getContinuationToken(), 1);
+
+		//Then
+		Assertions.assertEquals(Collections.singletonList(overlapping), firstPage.getReservations());
+		Assertions.assertEquals(Collections.singletonList(inside), secondPage.getReservations());
+		Assertions.assertNull(secondPage.getContinuationToken());
+	}
+
+	@Test
+	public void rejects_listings_wider_than_a_year() {
+		//Given
+		subject.load(Collections.emptyList(), OutboxPosition.before(1));
+		LocalDate from = LocalDate.of(2019, 1, 1);
+
+		//When/Then
+		Assertions.assertThrows(InvalidReservationException.class, () ->
+				subject.findReservations(from, from.plusDays(ReservationService.MAX_LISTING_DAYS), null, 10));
+	}
+
+	@Test
+	public void applies_events_in_order_once() {
+		//Given
+		ReservationDTO reservation = reservation(LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 12));
+		ReservationDTO edited = new ReservationDTO(reservation.getId(), reservation.getName(), reservation.getEmail(),
+				LocalDate.of(2019, 1, 14), LocalDate.of(2019, 1, 15));
+		subject.load(Collections.emptyList(), OutboxPosition.before(10));
+
+		//When
+		boolean stale = subject.apply(new ReservationEvent(9, 12, ReservationEvent.Type.CREATED, reservation, 0));
+		subject.apply(new ReservationEvent(10, 6, ReservationEvent.Type.CREATED, reservation, 0));
+		subject.apply(new ReservationEvent(11, 5, ReservationEvent.Type.EDITED, edited, 0));
+
+		//Then events are ordered by transaction first, whatever their ids
+		Assertions.assertFalse(stale);
+		Assertions.assertEquals(new OutboxPosition(11, 5), subject.getPosition());
+		Assertions.assertEquals(Collections.singletonList(edited),
+				subject.findReservations(LocalDate.of(2019, 1, 1), LocalDate.of(2019, 1, 31), null, 10).getReservations());
+	}
+
+	@Test
+	public void cancelled_reservations_free_their_days() {
+		//Given
+		ReservationDTO reservation = reservation(LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 12));
+		subject.load(Collections.singletonList(reservation), OutboxPosition.before(1));
+		Assertions.assertEquals(
+				Arrays.asList(LocalDate.of(2019, 1, 9), LocalDate.of(2019, 1, 13)),
+				subject.findAvailableDays(LocalDate.of(2019, 1, 9), LocalDate.of(2019, 1, 13)));
+
+		//When
+		subject.apply(new ReservationEvent(1, 1, ReservationEvent.Type.CANCELLED, reservation, 0));
+
+		//Then
+		Assertions.assertEquals(5, subject.findAvailableDays(LocalDate.of(2019, 1, 9), LocalDate.of(2019, 1, 13)).size());
+	}
+
+	private static ReservationDTO reservation(LocalDate from, LocalDate to) {
+		return new ReservationDTO(UUID.randomUUID(), "Matheus", "matheus@email.com", from, to);
+	}
+}
@@ -1,25 +1,44 @@
 package com.volcano.reservationmanager.unit.services;
 
 
+import com.volcano.reservationmanager.caching.ReservationDayCache;
+import com.volcano.reservationmanager.caching.ReservationIdCache;
 import com.volcano.reservationmanager.converters.ReservationConverter;
 import com.volcano.reservationmanager.exceptions.InvalidReservationException;
+import com.volcano.reservationmanager.exceptions.NotFoundException;
 import com.volcano.reservationmanager.models.ReservationDTO;
+import com.volcano.reservationmanager.models.ReservationPage;
 import com.volcano.reservationmanager.repositories.models.Reservation;
 import com.volcano.reservationmanager.repositories.models.ReservationRepository;
+import com.volcano.reservationmanager.services.AvailabilityIndex;
+import com.volcano.reservationmanager.services.BookingLockManager;
+import com.volcano.reservationmanager.services.HoldStore;
+import com.volcano.reservationmanager.services.ReservationOutbox;
 import com.volcano.reservationmanager.services.ReservationService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Stream;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 
@@ -35,6 +54,24 @@ public class ReservationServiceTest {
 	@Mock
 	private ReservationConverter converter;
 
+	@Spy
+	private AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+
+	@Mock
+	private BookingLockManager lockManager;
+
+	@Mock
+	private ReservationDayCache dayCache;
+
+	@Mock
+	private ReservationIdCache idCache;
+
+	@Mock
+	private HoldStore holdStore;
+
+	@Mock
+	private ReservationOutbox outbox;
+
 
 	@Test
 	public void validates_reservation_dates_valid_range() {
@@ -94,7 +131,7 @@ public class ReservationServiceTest {
 				LocalDate.of(2019, 1, 12)
 		));
 
-		when(repository.findByNameAndEmailAndEndDateAfter(any(), any(), any()))
+		when(repository.findByNameAndEmailAndStartDateGreaterThanEqualAndEndDateAfter(any(), any(), any(), any()))
 				.thenReturn(Stream.empty());
 
 		//Then/When
@@ -113,7 +150,7 @@ public class ReservationServiceTest {
 				LocalDate.of(2019, 1, 12)
 		);
 
-		when(repository.findByNameAndEmailAndEndDateAfter(any(), any(), any()))
+		when(repository.findByNameAndEmailAndStartDateGreaterThanEqualAndEndDateAfter(any(), any(), any(), any()))
 				.thenReturn(Stream.of(new Reservation(UUID.randomUUID(), "", "", LocalDate.now(), LocalDate.now())));
 
 		//When/Then
@@ -121,6 +158,62 @@ public class ReservationServiceTest {
 
 	}
 
+	@Test
+	public void validates_reservation_dates_taken() {
+		//Given
+		availabilityIndex.occupy(UUID.randomUUID(), LocalDate.of(2019, 1, 11), LocalDate.of(2019, 1, 13));
+		when(repository.existsByStartDateBetweenAndEndDateGreaterThanEqual(any(), any(), any())).thenReturn(true);
+
+		ReservationDTO reservation = new ReservationDTO(
+				"Matheus",
+				"matheus@email.com",
+				LocalDate.of(2019, 1, 10),
+				LocalDate.of(2019, 1, 12)
+		);
+
+		//When/Then
+		Assertions.assertThrows(InvalidReservationException.class, () -> subject.createReservation(reservation));
+
+	}
+
+	@Test
+	public void books_dates_freed_since_the_index_saw_them() {
+		//Given
+		availabilityIndex.occupy(UUID.randomUUID(), LocalDate.of(2019, 1, 11), LocalDate.of(2019, 1, 13));
+
+		ReservationDTO reservation = new ReservationDTO(
+				"Matheus",
+				"matheus@email.com",
+				LocalDate.of(2019, 1, 10),
+				LocalDate.of(2019, 1, 12)
+		);
+
+		when(converter.toModel(reservation)).thenReturn(new Reservation(
+				"Matheus",
+				"matheus@email.com",
+				LocalDate.of(2019, 1, 10),
+				LocalDate.of(2019, 1, 12)
+		));
+
+		when(repository.save(any())).thenReturn(new Reservation(
+				UUID.randomUUID(),
+				"Matheus",
+				"matheus@email.com",
+				LocalDate.of(2019, 1, 10),
+				LocalDate.of(2019, 1, 12)
+		));
+
+		when(repository.findByNameAndEmailAndStartDateGreaterThanEqualAndEndDateAfter(any(), any(), any(), any()))
+				.thenReturn(Stream.empty());
+
+		//When
+		Assertions.assertDoesNotThrow(() -> subject.createReservation(reservation));
+
+		//Then
+		verify(repository).existsByStartDateBetweenAndEndDateGreaterThanEqual(
+				LocalDate.of(2019, 1, 7), LocalDate.of(2019, 1, 12), LocalDate.of(2019, 1, 10));
+	}
+
 	@Test
 	public void validates_reservation_too_far() {
 		//Given
@@ -173,7 +266,7 @@ public class ReservationServiceTest {
 
 		when(repository.save(any())).thenReturn(savedReservation);
 
-		when(repository.findByNameAndEmailAndEndDateAfter(any(), any(), any()))
+		when(repository.findByNameAndEmailAndStartDateGreaterThanEqualAndEndDateAfter(any(), any(), any(), any()))
 				.thenReturn(Stream.empty());
 
 		//When
@@ -185,5 +278,122 @@ public class ReservationServiceTest {
 
 	}
 
+	@Test
+	public void finds_reservations_loading_only_days_not_cached() {
+		//Given
+		LocalDate from = LocalDate.of(2019, 1, 10);
+		LocalDate to = LocalDate.of(2019, 1, 12);
+		ReservationDTO cached = new ReservationDTO(
+				UUID.randomUUID(), "Matheus", "matheus@email.com", LocalDate.of(2019, 1, 8), LocalDate.of(2019, 1, 10));
+		Reservation stored = new Reservation(
+				UUID.randomUUID(), "Ana", "ana@email.com", LocalDate.of(2019, 1, 11), LocalDate.of(2019, 1, 12));
+		ReservationDTO loaded = new ReservationDTO(
+				stored.getId(), "Ana", "ana@email.com", LocalDate.of(2019, 1, 11), LocalDate.of(2019, 1, 12));
+
+		Map<LocalDate, List<ReservationDTO>> cachedDays = new HashMap<>();
+		cachedDays.put(LocalDate.of(2019, 1, 8), Collections.singletonList(cached));
+		cachedDays.put(LocalDate.of(2019, 1, 9), Collections.emptyList());
+		cachedDays.put(LocalDate.of(2019, 1, 10), Collections.emptyList());
+		when(dayCache.getAll(any())).thenReturn(cachedDays);
+		when(repository.findByStartDateBetweenOrderByStartDateAscIdAsc(LocalDate.of(2019, 1, 11), to))
+				.thenReturn(Collections.singletonList(stored));
+		when(converter.toDTO(stored)).thenReturn(loaded);
+
+		//When
+		ReservationPage page = subject.findReservations(from, to, null, 10);
+
+		//Then
+		Assertions.assertEquals(Arrays.asList(cached, loaded), page.getReservations());
+		Assertions.assertNull(page.getContinuationToken());
+		Map<LocalDate, List<ReservationDTO>> filled = new HashMap<>();
+		filled.put(LocalDate.of(2019, 1, 11), Collections.singletonList(loaded));
+		filled.put(LocalDate.of(2019, 1, 12), Collections.emptyList());
+		verify(dayCache, times(1)).getAll(any());
+		verify(dayCache).putAllIfAbsent(filled);
+	}
+
+	@Test
+	public void rejects_listings_wider_than_a_year() {
+		//Given
+		LocalDate from = LocalDate.of(2019, 1, 1);
+		LocalDate to = from.plusDays(ReservationService.MAX_LISTING_DAYS);
+
+		//When/Then
+		Assertions.assertThrows(InvalidReservationException.class, () -> subject.findReservations(from, to, null, 10));
+		verifyZeroInteractions(dayCache, repository);
+	}
+
+	@Test
+	public void looks_up_only_ids_not_cached() {
+		//Given
+		ReservationDTO cached = new ReservationDTO(
+				UUID.randomUUID(), "Matheus", "matheus@email.com", LocalDate.of(2019, 1, 8), LocalDate.of(2019, 1, 10));
+		Reservation stored = new Reservation(
+				UUID.randomUUID(), "Ana", "ana@email.com", LocalDate.of(2019, 1, 11), LocalDate.of(2019, 1, 12));
+		ReservationDTO loaded = new ReservationDTO(
+				stored.getId(), "Ana", "ana@email.com", LocalDate.of(2019, 1, 11), LocalDate.of(2019, 1, 12));
+		UUID unknown = UUID.randomUUID();
+		List<UUID> ids = Arrays.asList(stored.getId(), unknown, cached.getId());
+
+		when(idCache.getAll(any())).thenReturn(Collections.singletonMap(cached.getId(), cached));
+		when(repository.findAllById(Arrays.asList(stored.getId(), unknown)))
+				.thenReturn(Collections.singletonList(stored));
+		when(converter.toDTO(stored)).thenReturn(loaded);
+
+		//When
+		List<ReservationDTO> found = subject.lookupReservations(ids);
+
+		//Then
+		Assertions.assertEquals(Arrays.asList(loaded, cached), found);
+		verify(idCache).putAllIfAbsent(Collections.singletonMap(loaded.getId(), loaded));
+	}
+
+	@Test
+	public void edits_lock_the_stored_guest_and_reread_the_reservation() {
+		//Given
+		UUID id = UUID.randomUUID();
+		Reservation stored = new Reservation(
+				id, "Ann", "ann@email.com", LocalDate.of(2019, 1, 20), LocalDate.of(2019, 1, 21));
+		ReservationDTO edit = new ReservationDTO(
+				id, "Ann", "mallory@email.com", LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 12));
+
+		when(repository.findById(id)).thenReturn(Optional.of(stored));
+		//Moved by another edit that committed before the locks were taken
+		when(repository.refreshForUpdate(stored)).thenAnswer(invocation -> {
+			stored.setStartDate(LocalDate.of(2019, 1, 24));
+			stored.setEndDate(LocalDate.of(2019, 1, 25));
+			return Optional.of(stored);
+		});
+		when(repository.findByNameAndEmailAndStartDateGreaterThanEqualAndEndDateAfter(any(), any(), any(), any()))
+				.thenReturn(Stream.empty());
+
+		//When
+		subject.applyEdit(edit);
+
+		//Then
+		verify(lockManager).lock("ann@email.com", LocalDate.of(2019, 1, 20), LocalDate.of(2019, 1, 21),
+				LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 12));
+		verify(lockManager).lock("ann@email.com", LocalDate.of(2019, 1, 24), LocalDate.of(2019, 1, 25));
+		verify(repository).findByNameAndEmailAndStartDateGreaterThanEqualAndEndDateAfter(
+				eq("Ann"), eq("ann@email.com"), any(), any());
+		verify(dayCache).evict(LocalDate.of(2019, 1, 24));
+		Assertions.assertEquals(LocalDate.of(2019, 1, 10), stored.getStartDate());
+	}
+
+	@Test
+	public void edits_of_reservations_cancelled_meanwhile_are_not_found() {
+		//Given
+		UUID id = UUID.randomUUID();
+		Reservation stored = new Reservation(
+				id, "Ann", "ann@email.com", LocalDate.of(2019, 1, 20), LocalDate.of(2019, 1, 21));
+		ReservationDTO edit = new ReservationDTO(
+				id, "Ann", "ann@email.com", LocalDate.of(2019, 1, 10), LocalDate.of(2019, 1, 12));
+
+		when(repository.findById(id)).thenReturn(Optional.of(stored));
+		when(repository.refreshForUpdate(stored)).thenReturn(Optional.empty());
+
+		//When/Then
+		Assertions.assertThrows(NotFoundException.class, () -> subject.applyEdit(edit));
+	}
 
-}
\ No newline at end of file
+}
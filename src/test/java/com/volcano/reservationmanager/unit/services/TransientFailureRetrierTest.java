@@ -0,0 +1,83 @@
+package com.volcano.reservationmanager.unit.services;
+
+import com.volcano.reservationmanager.exceptions.ReservationConflictException;
+import com.volcano.reservationmanager.exceptions.ServiceBusyException;
+import com.volcano.reservationmanager.services.TransientFailureRetrier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TransientFailureRetrierTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final TransientFailureRetrier subject = new TransientFailureRetrier(registry, 3, 1, 2);
+
+	@Test
+	public void retries_serialization_failures() {
+		//Given
+		AtomicInteger attempts = new AtomicInteger();
+
+		//When
+		String result = subject.execute(() -> {
+			if (attempts.incrementAndGet() < 3) {
+				throw serializationFailure();
+			}
+			return "saved";
+		});
+
+		//Then
+		Assertions.assertEquals("saved", result);
+		Assertions.assertEquals(2, registry.counter("reservations.write.retries").count());
+	}
+
+	@Test
+	public void gives_up_after_max_attempts() {
+		//Given
+		AtomicInteger attempts = new AtomicInteger();
+
+		//When/Then
+		Assertions.assertThrows(ServiceBusyException.class, () -> subject.execute(() -> {
+			attempts.incrementAndGet();
+			throw serializationFailure();
+		}));
+		Assertions.assertEquals(3, attempts.get());
+		Assertions.assertEquals(1, registry.counter("reservations.write.retries.exhausted").count());
+	}
+
+	@Test
+	public void does_not_retry_conflicts() {
+		//Given
+		AtomicInteger attempts = new AtomicInteger();
+
+		//When/Then
+		Assertions.assertThrows(ReservationConflictException.class, () -> subject.execute(() -> {
+			attempts.incrementAndGet();
+			throw new ReservationConflictException("There is a valid reservation in place for those dates.");
+		}));
+		Assertions.assertEquals(1, attempts.get());
+		Assertions.assertEquals(1, registry.counter("reservations.write.conflicts").count());
+	}
+
+	@Test
+	public void does_not_retry_other_failures() {
+		//Given
+		AtomicInteger attempts = new AtomicInteger();
+
+		//When/Then
+		Assertions.assertThrows(IllegalStateException.class, () -> subject.execute(() -> {
+			attempts.incrementAndGet();
+			throw new IllegalStateException();
+		}));
+		Assertions.assertEquals(1, attempts.get());
+	}
+
+	private static RuntimeException serializationFailure() {
+		return new CannotAcquireLockException("could not serialize access",
+				new SQLException("could not serialize access due to concurrent update", "40001"));
+	}
+}
@@ -0,0 +1,26 @@
+package com.volcano.reservationmanager.utils;
+
+import com.volcano.reservationmanager.profiling.SqlProfilingInterceptor;
+import org.junit.jupiter.api.Assertions;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+/**
+ * Asserts on the SQL round trips a request made, as reported by the SQL profiler, so that a change adding
+ * queries to an endpoint fails the build.
+ */
+public final class SqlStatements {
+
+	private SqlStatements() {
+	}
+
+	public static ResultMatcher atMost(long statements) {
+		return result -> {
+			String header = result.getResponse().getHeader(SqlProfilingInterceptor.STATEMENTS_HEADER);
+			Assertions.assertNotNull(header, "Request was not profiled");
+			long made = Long.parseLong(header);
+			Assertions.assertTrue(made <= statements, String.format(
+					"%s %s made %d SQL statements, at most %d expected",
+					result.getRequest().getMethod(), result.getRequest().getRequestURI(), made, statements));
+		};
+	}
+}